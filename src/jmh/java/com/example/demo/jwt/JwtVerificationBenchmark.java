@@ -0,0 +1,78 @@
+package com.example.demo.jwt;
+
+import java.security.Key;
+import java.time.temporal.ChronoUnit;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.security.core.userdetails.User;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+
+/**
+ * Стоимость проверки JWT на один запрос в JwtAuthFilter.
+ * legacyFilterPath - прежний путь: validateToken и getUsername, каждый заново декодирует секрет,
+ * строит ключ и парсер и разбирает токен. verifyUncached - одна проверка подписи общим парсером,
+ * verifyHot - повторный запрос с тем же токеном (попадание в кэш проверенных токенов);
+ * validateAndGetUsername - публичные validateToken и getUsername подряд, как их вызывают сервисы.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class JwtVerificationBenchmark {
+    private static final String SECRET = "66546A555E5A7234753778214123222A472D4B614E645262356B587032733576";
+
+    private JwtTokenProvider provider;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        provider = new JwtTokenProvider(new RevokedTokens());
+        token = provider.generateAccessToken(Map.of("role", "ADMIN"), 60L, ChronoUnit.MINUTES,
+            User.withUsername("admin").password("x").authorities("ADMIN").build()).getTokenValue();
+    }
+
+    @Benchmark
+    public String legacyFilterPath() {
+        legacyParse(token);
+        return legacyParse(token);
+    }
+
+    @Benchmark
+    public VerifiedToken verifyUncached() {
+        return provider.parse(token);
+    }
+
+    @Benchmark
+    public VerifiedToken verifyHot() {
+        return provider.verify(token);
+    }
+
+    @Benchmark
+    public String validateAndGetUsername() {
+        return provider.validateToken(token) ? provider.getUsername(token) : null;
+    }
+
+    private static String legacyParse(String token) {
+        Key key = Keys.hmacShaKeyFor(hexStringToByteArray(SECRET));
+        return Jwts.parserBuilder().setSigningKey(key).build().parseClaimsJws(token).getBody().getSubject();
+    }
+
+    private static byte[] hexStringToByteArray(String hex) {
+        int len = hex.length();
+        byte[] data = new byte[len / 2];
+        for (int i = 0; i < len; i += 2) {
+            data[i / 2] = (byte) ((Character.digit(hex.charAt(i), 16) << 4)
+                    + Character.digit(hex.charAt(i + 1), 16));
+        }
+        return data;
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.demo.load;
+
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.HdrHistogram.Histogram;
+
+import com.example.demo.capture.CapturedRequest;
+
+/**
+ * Сравнение двух прогонов одного захвата: исходного (например, файлы RequestCaptureFilter или record= прежней сборки)
+ * и воспроизведения на новой сборке (LoadHarness replay=... record=...).
+ * Запросы сопоставляются по смещению, методу и пути; по каждому адресу печатаются изменившиеся коды ответов
+ * и перцентили задержки до и после. Код выхода 1, если у какого-либо запроса изменился код ответа.
+ * RequestCaptureFilter пишет время обработки на сервере, LoadHarness - от запланированной отправки до ответа;
+ * задержки сравнимы между двумя воспроизведениями, коды ответов - между любыми двумя прогонами.
+ * Запуск: mvn -Pjmh compile exec:java -Dexec.mainClass=com.example.demo.load.CaptureDiff
+ *   -Dexec.args="captures/ target/load/replay.jsonl"
+ */
+public class CaptureDiff {
+
+    public static void main(String[] args) throws Exception {
+        if (args.length != 2) {
+            System.err.println("Usage: CaptureDiff <baseline file or directory> <candidate file or directory>");
+            System.exit(2);
+        }
+        List<CapturedRequest> baseline = CapturedRequest.read(Path.of(args[0]));
+        List<CapturedRequest> candidate = CapturedRequest.read(Path.of(args[1]));
+
+        Map<String, Deque<CapturedRequest>> pending = new HashMap<>();
+        for (CapturedRequest request : baseline) {
+            pending.computeIfAbsent(key(request), k -> new ArrayDeque<>()).add(request);
+        }
+        Map<String, RouteDiff> routes = new TreeMap<>();
+        RouteDiff overall = new RouteDiff();
+        int unmatched = 0;
+        for (CapturedRequest after : candidate) {
+            Deque<CapturedRequest> matches = pending.get(key(after));
+            CapturedRequest before = matches != null ? matches.poll() : null;
+            if (before == null) {
+                unmatched++;
+                continue;
+            }
+            String route = LoadHarness.route(after.method(), after.path());
+            routes.computeIfAbsent(route, k -> new RouteDiff()).add(before, after);
+            overall.add(before, after);
+        }
+        int missing = pending.values().stream().mapToInt(Deque::size).sum();
+
+        System.out.printf("%d baseline, %d candidate requests; %d only in baseline, %d only in candidate%n",
+            baseline.size(), candidate.size(), missing, unmatched);
+        System.out.printf("%-42s %7s %19s %19s %19s  %s%n",
+            "route", "count", "p50 ms before/after", "p99 ms before/after", "max ms before/after", "status changes");
+        routes.forEach((route, diff) -> diff.print(route));
+        overall.print("ALL");
+        System.exit(overall.statusChanges.isEmpty() ? 0 : 1);
+    }
+
+    private static String key(CapturedRequest request) {
+        return request.offsetMillis() + " " + request.method() + " " + request.path();
+    }
+
+    private static class RouteDiff {
+        private final Histogram before = new Histogram(3);
+        private final Histogram after = new Histogram(3);
+        private final Map<String, Integer> statusChanges = new TreeMap<>();
+
+        void add(CapturedRequest baseline, CapturedRequest candidate) {
+            before.recordValue(Math.max(1, baseline.latencyMicros()));
+            after.recordValue(Math.max(1, candidate.latencyMicros()));
+            if (baseline.status() != candidate.status()) {
+                statusChanges.merge(baseline.status() + "->" + candidate.status(), 1, Integer::sum);
+            }
+        }
+
+        void print(String route) {
+            System.out.printf("%-42s %7d %19s %19s %19s  %s%n", route, after.getTotalCount(),
+                pair(before.getValueAtPercentile(50), after.getValueAtPercentile(50)),
+                pair(before.getValueAtPercentile(99), after.getValueAtPercentile(99)),
+                pair(before.getMaxValue(), after.getMaxValue()),
+                statusChanges.isEmpty() ? "-" : statusChanges);
+        }
+
+        private static String pair(long beforeMicros, long afterMicros) {
+            return String.format("%.1f/%.1f", beforeMicros / 1_000.0, afterMicros / 1_000.0);
+        }
+    }
+}
@@ -0,0 +1,212 @@
+package com.example.demo.load;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.example.demo.DemoApplication;
+import com.example.demo.model.Device;
+import com.example.demo.model.DeviceType;
+import com.example.demo.model.Room;
+import com.example.demo.model.User;
+import com.example.demo.service.DeviceService;
+import com.example.demo.service.RoomService;
+import com.example.demo.service.UserService;
+
+/**
+ * Нагрузочный прогон обработки запросов на платформенных и виртуальных потоках.
+ * Поднимает приложение в этом же процессе на отдельной H2 в памяти, создает 50 комнат по 20 устройств
+ * и держит N соединений (по умолчанию 5000) в замкнутом цикле запрос-ответ к GET-адресу (по умолчанию /api/devices).
+ * После прогрева печатает пропускную способность и перцентили задержки.
+ * Запуск: mvn -Pjmh compile exec:java -Dexec.mainClass=com.example.demo.load.ConnectionLoadTest
+ *   -Dexec.args="platform 5000 30 /api/devices?size=20"; режим virtual требует Java 21 (-Pjmh,java21).
+ */
+public class ConnectionLoadTest {
+    private static final int ROOMS = 50;
+    private static final int DEVICES_PER_ROOM = 20;
+    private static final String DEFAULT_PATH = "/api/devices?size=20";
+    private static final Pattern ACCESS_TOKEN = Pattern.compile("access_token=([^;]+)");
+
+    public static void main(String[] args) throws Exception {
+        String mode = args.length > 0 ? args[0] : "platform";
+        int connections = args.length > 1 ? Integer.parseInt(args[1]) : 5000;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 30;
+        String path = args.length > 3 ? args[3] : DEFAULT_PATH;
+        boolean virtual = "virtual".equals(mode);
+        if (virtual && Runtime.version().feature() < 21) {
+            System.err.println("Virtual threads need Java 21, running on " + Runtime.version());
+            System.exit(2);
+        }
+
+        // Перезапуск devtools решается до чтения свойств приложения
+        System.setProperty("spring.devtools.restart.enabled", "false");
+        // Аргументы командной строки, а не properties(): те имеют низший приоритет и проигрывают application.properties
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(DemoApplication.class).run(
+            "--server.port=0",
+            "--spring.threads.virtual.enabled=" + virtual,
+            "--spring.datasource.url=jdbc:h2:mem:load-test;DB_CLOSE_DELAY=-1",
+            "--spring.jpa.show-sql=false",
+            "--logging.level.com.example.demo=ERROR",
+            "--logging.level.org.springframework.security=ERROR");
+        try {
+            seed(context);
+            String baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+            Result result = run(baseUrl + path, connections, seconds);
+            System.out.printf("%n%s %s threads, %d connections, %d s: %d requests, %d errors, %.0f req/s%n",
+                path, mode, connections, seconds, result.requests(), result.errors(),
+                result.requests() / (double) seconds);
+            System.out.printf("latency ms: p50 %.1f, p90 %.1f, p99 %.1f, max %.1f%n",
+                result.percentile(50), result.percentile(90), result.percentile(99), result.percentile(100));
+        } finally {
+            context.close();
+        }
+        System.exit(0);
+    }
+
+    private static void seed(ConfigurableApplicationContext context) {
+        User admin = context.getBean(UserService.class).getUserByUsername("admin");
+        RoomService roomService = context.getBean(RoomService.class);
+        DeviceService deviceService = context.getBean(DeviceService.class);
+        DeviceType[] types = DeviceType.values();
+        for (int r = 0; r < ROOMS; r++) {
+            Room room = new Room();
+            room.setBus("LOAD" + r);
+            room.setManager(admin);
+            room = roomService.createRoom(room);
+            for (int d = 0; d < DEVICES_PER_ROOM; d++) {
+                Device device = new Device();
+                device.setTitle("Load device " + r + "-" + d);
+                device.setType(types[d % types.length]);
+                device.setPower(0.1 + d / 100.0);
+                device.setActive(d % 2 == 0);
+                device.setRoom(room);
+                deviceService.createDevice(device);
+            }
+        }
+    }
+
+    private static Result run(String url, int connections, int seconds) throws Exception {
+        HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(30))
+            .executor(Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors()))
+            .build();
+        HttpRequest request = HttpRequest.newBuilder(URI.create(url))
+            .header("Authorization", "Bearer " + login(client, URI.create(url).resolve("/api/auth/login")))
+            .timeout(Duration.ofSeconds(60))
+            .build();
+
+        // Прогрев - треть времени замера; в замер попадают только запросы, начатые после прогрева
+        AtomicBoolean measuring = new AtomicBoolean(false);
+        AtomicBoolean stopped = new AtomicBoolean(false);
+        CountDownLatch finished = new CountDownLatch(connections);
+        List<Worker> workers = new ArrayList<>();
+        for (int i = 0; i < connections; i++) {
+            Worker worker = new Worker(client, request, measuring, stopped, finished);
+            workers.add(worker);
+            worker.next();
+        }
+        TimeUnit.SECONDS.sleep(Math.max(1, seconds / 3));
+        measuring.set(true);
+        TimeUnit.SECONDS.sleep(seconds);
+        measuring.set(false);
+        stopped.set(true);
+        finished.await(90, TimeUnit.SECONDS);
+
+        long[] latencies = workers.stream()
+            .flatMapToLong(worker -> Arrays.stream(worker.latencies, 0, worker.count))
+            .sorted()
+            .toArray();
+        long errors = workers.stream().mapToLong(worker -> worker.errors).sum();
+        return new Result(latencies, errors);
+    }
+
+    private static String login(HttpClient client, URI loginUri) throws Exception {
+        HttpRequest login = HttpRequest.newBuilder(loginUri)
+            .header("Content-Type", "application/json")
+            .POST(HttpRequest.BodyPublishers.ofString("{\"username\":\"admin\",\"password\":\"admin\"}"))
+            .build();
+        HttpResponse<Void> response = client.send(login, HttpResponse.BodyHandlers.discarding());
+        return response.headers().allValues("Set-Cookie").stream()
+            .map(ACCESS_TOKEN::matcher)
+            .filter(Matcher::find)
+            .map(matcher -> matcher.group(1))
+            .findFirst()
+            .orElseThrow(() -> new IllegalStateException("Login failed: " + response.statusCode()));
+    }
+
+    // Одно соединение: следующий запрос уходит после ответа на предыдущий; обратные вызовы не пересекаются
+    private static class Worker {
+        private final HttpClient client;
+        private final HttpRequest request;
+        private final AtomicBoolean measuring;
+        private final AtomicBoolean stopped;
+        private final CountDownLatch finished;
+        private long[] latencies = new long[256];
+        private int count;
+        private long errors;
+
+        Worker(HttpClient client, HttpRequest request, AtomicBoolean measuring, AtomicBoolean stopped,
+               CountDownLatch finished) {
+            this.client = client;
+            this.request = request;
+            this.measuring = measuring;
+            this.stopped = stopped;
+            this.finished = finished;
+        }
+
+        void next() {
+            if (stopped.get()) {
+                finished.countDown();
+                return;
+            }
+            boolean measured = measuring.get();
+            long start = System.nanoTime();
+            client.sendAsync(request, HttpResponse.BodyHandlers.discarding()).whenComplete((response, error) -> {
+                if (measured && measuring.get()) {
+                    if (error != null || response.statusCode() != 200) {
+                        errors++;
+                    } else {
+                        record(System.nanoTime() - start);
+                    }
+                }
+                next();
+            });
+        }
+
+        private void record(long nanos) {
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = nanos;
+        }
+    }
+
+    private record Result(long[] latencies, long errors) {
+        long requests() {
+            return latencies.length;
+        }
+
+        double percentile(double percent) {
+            if (latencies.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.ceil(percent / 100 * latencies.length) - 1;
+            return latencies[Math.max(0, index)] / 1_000_000.0;
+        }
+    }
+}
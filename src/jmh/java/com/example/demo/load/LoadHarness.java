@@ -0,0 +1,521 @@
+package com.example.demo.load;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import com.example.demo.DemoApplication;
+import com.example.demo.capture.CapturedRequest;
+import com.example.demo.dataset.DatasetGenerator;
+import com.example.demo.dataset.DatasetScale;
+import com.example.demo.dataset.GeneratedDataset;
+import com.example.demo.model.Device;
+import com.example.demo.model.DeviceType;
+import com.example.demo.model.ModeType;
+import com.example.demo.model.Role;
+import com.example.demo.model.Room;
+import com.example.demo.model.User;
+import com.example.demo.repository.DeviceRepository;
+import com.example.demo.repository.RoleRepository;
+import com.example.demo.repository.RoomRepository;
+import com.example.demo.repository.UserRepository;
+import com.example.demo.service.PowerLedgerService;
+import com.example.demo.service.TitleSearchService;
+
+/**
+ * Нагрузочный стенд "от запроса до ответа": поднимает приложение в этом же процессе на отдельной H2 в памяти,
+ * создает пользователей, комнаты и устройства (детерминированно от seed) и подает запросы с заданной частотой
+ * по открытой модели: запрос уходит по расписанию, даже если предыдущие еще не ответили. Задержка считается
+ * от запланированного момента отправки, поэтому очередь на стороне клиента не прячет торможение сервера.
+ * Смесь по умолчанию - вход, списки устройств и комнат, переключение устройства, управление по температуре,
+ * активация режима и импорт CSV; по каждому адресу печатаются перцентили HdrHistogram, запросы в секунду и коды ответов.
+ *
+ * record=файл сохраняет поданные запросы в формате requests.jsonl (CapturedRequest), replay=файл подает
+ * сохраненный захват вместо смеси с исходными интервалами (speed=2 - вдвое быстрее). replay принимает и каталог
+ * captures/ с частями захвата RequestCaptureFilter. Данные при одинаковых seed и размерах совпадают, поэтому
+ * один захват можно подать на любую сборку; replay=... record=... на двух сборках сравнивает CaptureDiff.
+ * Пользователи захвата сопоставляются созданным load-user-N, тела входа заменяются учетными данными load-login-N.
+ *
+ * Запуск: mvn -Pjmh compile exec:java -Dexec.mainClass=com.example.demo.load.LoadHarness
+ *   -Dexec.args="rate=100 seconds=30 users=20 rooms=200 devices=4000 record=target/load/requests.jsonl"
+ * Параметры (ключ=значение): users, rooms, devices, seed, rate (запросов в секунду), seconds, warmup (секунд
+ * без учета в отчете), mix (например, listDevices=35,toggle=25), record, replay, speed, maxInFlight.
+ * scale=1k|100k|1m вместо rooms и devices заполняет базу DatasetGenerator - теми же данными, что профиль dataset;
+ * users тогда - сколько менеджеров набора подают запросы.
+ * Лимиты RateLimitFilter действуют и здесь: вход - 20 подряд и 2 в секунду на IP, управление - 5 в секунду
+ * на пользователя, режимы - 1 в секунду на пользователя; отказы видны в отчете как 429.
+ */
+public class LoadHarness {
+    private static final String PASSWORD = "load";
+    private static final int LOGIN_USERS = 5;
+    private static final int SEED_BATCH = 1_000;
+    private static final int CSV_ROWS = 20;
+    private static final Pattern ACCESS_TOKEN = Pattern.compile("access_token=([^;]+)");
+    private static final Pattern NUMBER = Pattern.compile("/\\d+(?=/|$)");
+    private static final String[] WORDS = {"Main", "Kitchen", "Bedroom", "Office", "Hall", "Night", "LivingRoom"};
+    private static final Map<String, Integer> DEFAULT_MIX = new LinkedHashMap<>();
+
+    static {
+        DEFAULT_MIX.put("login", 1);
+        DEFAULT_MIX.put("listDevices", 35);
+        DEFAULT_MIX.put("listRooms", 15);
+        DEFAULT_MIX.put("toggle", 30);
+        DEFAULT_MIX.put("temperature", 12);
+        DEFAULT_MIX.put("mode", 4);
+        DEFAULT_MIX.put("import", 3);
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options = Options.parse(args);
+
+        // Перезапуск devtools решается до чтения свойств приложения
+        System.setProperty("spring.devtools.restart.enabled", "false");
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(DemoApplication.class).run(
+            "--server.port=0",
+            "--spring.datasource.url=jdbc:h2:mem:load-harness;DB_CLOSE_DELAY=-1",
+            "--spring.jpa.show-sql=false",
+            "--logging.level.com.example.demo=ERROR",
+            "--logging.level.org.springframework.security=ERROR");
+        int exitCode = 0;
+        try {
+            long seedStart = System.nanoTime();
+            Dataset dataset = seed(context, options);
+            System.out.printf("Seeded %d users, %d rooms, %d devices in %d ms%n", dataset.users().size(),
+                dataset.roomIds().size(), dataset.deviceIds().size(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - seedStart));
+
+            String baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+            HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(30))
+                .executor(Executors.newFixedThreadPool(Math.max(2, Runtime.getRuntime().availableProcessors())))
+                .build();
+            Map<String, String> tokens = login(client, baseUrl, dataset.users(), dataset.password());
+
+            // Захват пишется в порядке ответов - подаем в порядке отправки
+            List<CapturedRequest> schedule = options.replay != null
+                ? CapturedRequest.read(Path.of(options.replay)).stream()
+                    .sorted(Comparator.comparingLong(CapturedRequest::offsetMillis)).toList()
+                : generate(options, dataset);
+            Run run = new Run(client, baseUrl, dataset, tokens, options);
+            run.execute(schedule);
+            run.report();
+        } catch (Exception e) {
+            e.printStackTrace();
+            exitCode = 1;
+        } finally {
+            context.close();
+        }
+        System.exit(exitCode);
+    }
+
+    // Пароль у всех один: BCrypt считается один раз, а не на каждого пользователя
+    private static Dataset seed(ConfigurableApplicationContext context, Options options) {
+        Random random = new Random(options.seed);
+        Role admin = context.getBean(RoleRepository.class).findByName("ADMIN");
+        String hash = context.getBean(PasswordEncoder.class).encode(PASSWORD);
+        UserRepository userRepository = context.getBean(UserRepository.class);
+        List<User> users = new ArrayList<>();
+        if (options.scale == null) {
+            for (int i = 0; i < options.users; i++) {
+                users.add(User.builder().username("load-user-" + i).password(hash).role(admin)
+                    .managedRooms(new ArrayList<>()).build());
+            }
+        }
+        List<String> logins = new ArrayList<>();
+        for (int i = 0; i < LOGIN_USERS; i++) {
+            users.add(User.builder().username("load-login-" + i).password(hash).role(admin)
+                .managedRooms(new ArrayList<>()).build());
+            logins.add("load-login-" + i);
+        }
+        users = userRepository.saveAll(users);
+
+        // Именованный размер: те же данные, что у профиля dataset; рабочие - первые users менеджеров набора
+        if (options.scale != null) {
+            GeneratedDataset generated = context.getBean(DatasetGenerator.class).generate(options.scale, options.seed);
+            List<String> workers = generated.managers().subList(0, Math.min(options.users, generated.managers().size()));
+            return new Dataset(workers, generated.password(), logins,
+                Arrays.stream(generated.roomIds()).boxed().toList(), generated.buses(),
+                Arrays.stream(generated.deviceIds()).boxed().toList());
+        }
+
+        RoomRepository roomRepository = context.getBean(RoomRepository.class);
+        List<Room> rooms = new ArrayList<>();
+        List<Room> savedRooms = new ArrayList<>();
+        for (int r = 0; r < options.rooms; r++) {
+            Room room = new Room();
+            room.setBus("LOAD-" + r);
+            room.setManager(users.get(r % options.users));
+            rooms.add(room);
+            if (rooms.size() == SEED_BATCH || r == options.rooms - 1) {
+                savedRooms.addAll(roomRepository.saveAll(rooms));
+                rooms.clear();
+            }
+        }
+
+        DeviceRepository deviceRepository = context.getBean(DeviceRepository.class);
+        DeviceType[] types = DeviceType.values();
+        List<Device> devices = new ArrayList<>();
+        List<Long> deviceIds = new ArrayList<>();
+        for (int d = 0; d < options.devices; d++) {
+            Device device = new Device();
+            device.setTitle(WORDS[random.nextInt(WORDS.length)] + " device " + d);
+            device.setType(types[random.nextInt(types.length)]);
+            device.setPower(Math.round(random.nextDouble() * 200) / 100.0);
+            device.setActive(random.nextBoolean());
+            device.setRoom(savedRooms.get(random.nextInt(savedRooms.size())));
+            devices.add(device);
+            if (devices.size() == SEED_BATCH || d == options.devices - 1) {
+                deviceRepository.saveAll(devices).forEach(saved -> deviceIds.add(saved.getId()));
+                devices.clear();
+            }
+        }
+
+        // Записи шли мимо сервисов - пересобираем индексы в памяти так же, как при старте
+        context.getBean(PowerLedgerService.class).load();
+        context.getBean(TitleSearchService.class).rebuild();
+        List<String> workers = users.stream().map(User::getUsername).filter(name -> name.startsWith("load-user-"))
+            .toList();
+        return new Dataset(workers, PASSWORD, logins, savedRooms.stream().map(Room::getId).toList(),
+            savedRooms.stream().map(Room::getBus).toList(), deviceIds);
+    }
+
+    // Вход каждого рабочего пользователя; на 429 ждем Retry-After (лимит входа - по IP)
+    private static Map<String, String> login(HttpClient client, String baseUrl, List<String> users,
+                                             String password) throws Exception {
+        Map<String, String> tokens = new HashMap<>();
+        for (String username : users) {
+            while (true) {
+                HttpResponse<Void> response = client.send(loginRequest(baseUrl, username, password),
+                    HttpResponse.BodyHandlers.discarding());
+                if (response.statusCode() == 429) {
+                    long retryAfter = response.headers().firstValueAsLong("Retry-After").orElse(1);
+                    TimeUnit.SECONDS.sleep(retryAfter);
+                    continue;
+                }
+                tokens.put(username, response.headers().allValues("Set-Cookie").stream()
+                    .map(ACCESS_TOKEN::matcher)
+                    .filter(Matcher::find)
+                    .map(matcher -> matcher.group(1))
+                    .findFirst()
+                    .orElseThrow(() -> new IllegalStateException(
+                        "Login of " + username + " failed: " + response.statusCode())));
+                break;
+            }
+        }
+        return tokens;
+    }
+
+    private static HttpRequest loginRequest(String baseUrl, String username, String password) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + "/api/auth/login"))
+            .header("Content-Type", "application/json")
+            .POST(HttpRequest.BodyPublishers.ofString(loginBody(username, password)))
+            .build();
+    }
+
+    private static String loginBody(String username, String password) {
+        return "{\"username\":\"" + username + "\",\"password\":\"" + password + "\"}";
+    }
+
+    // Расписание смеси: равные интервалы 1/rate, операция выбирается по весам
+    private static List<CapturedRequest> generate(Options options, Dataset dataset) {
+        Random random = new Random(options.seed + 1);
+        List<String> operations = new ArrayList<>();
+        options.mix.forEach((operation, weight) -> {
+            for (int i = 0; i < weight; i++) {
+                operations.add(operation);
+            }
+        });
+        long total = (long) options.rate * (options.seconds + options.warmup);
+        List<CapturedRequest> schedule = new ArrayList<>((int) total);
+        for (long i = 0; i < total; i++) {
+            long offset = i * 1_000 / options.rate;
+            String user = dataset.users().get(random.nextInt(dataset.users().size()));
+            String operation = operations.get(random.nextInt(operations.size()));
+            schedule.add(request(operation, offset, user, random, dataset));
+        }
+        return schedule;
+    }
+
+    private static CapturedRequest request(String operation, long offset, String user, Random random,
+                                           Dataset dataset) {
+        long device = dataset.deviceIds().get(random.nextInt(dataset.deviceIds().size()));
+        long room = dataset.roomIds().get(random.nextInt(dataset.roomIds().size()));
+        return switch (operation) {
+            case "login" -> new CapturedRequest(offset, "POST", "/api/auth/login", null, "application/json",
+                loginBody(dataset.logins().get(random.nextInt(dataset.logins().size())), PASSWORD), 0, 0);
+            case "listDevices" -> new CapturedRequest(offset, "GET",
+                "/api/devices?page=" + random.nextInt(5) + "&size=20", user, null, null, 0, 0);
+            case "listRooms" -> new CapturedRequest(offset, "GET", "/api/rooms?size=20", user, null, null, 0, 0);
+            case "toggle" -> new CapturedRequest(offset, "POST", "/api/control/devices/" + device + "/toggle", user,
+                "application/json", "{\"active\":" + random.nextBoolean() + "}", 0, 0);
+            case "temperature" -> new CapturedRequest(offset, "POST", "/api/control/temperature", user,
+                "application/json", "{\"roomId\":" + room + ",\"temperature\":" + (15 + random.nextInt(15)) + "}",
+                0, 0);
+            case "mode" -> new CapturedRequest(offset, "POST",
+                "/api/modes/" + ModeType.values()[random.nextInt(ModeType.values().length)] + "/activate", user,
+                null, null, 0, 0);
+            case "import" -> new CapturedRequest(offset, "POST", "/api/devices/import/csv", user,
+                "multipart/form-data", csv(random, dataset), 0, 0);
+            default -> throw new IllegalArgumentException("Unknown operation in mix: " + operation);
+        };
+    }
+
+    private static String csv(Random random, Dataset dataset) {
+        DeviceType[] types = DeviceType.values();
+        StringBuilder csv = new StringBuilder("title,type,power,active,roomBus\n");
+        for (int i = 0; i < CSV_ROWS; i++) {
+            csv.append("Imported ").append(WORDS[random.nextInt(WORDS.length)]).append(' ').append(random.nextInt())
+                .append(',').append(types[random.nextInt(types.length)])
+                .append(',').append(random.nextInt(200) / 100.0)
+                .append(',').append(random.nextBoolean())
+                .append(',').append(dataset.buses().get(random.nextInt(dataset.buses().size())))
+                .append('\n');
+        }
+        return csv.toString();
+    }
+
+    // Адрес без параметров и с {id} вместо чисел - ключ отчета, одинаковый для смеси и захвата
+    static String route(String method, String path) {
+        int query = path.indexOf('?');
+        String base = query >= 0 ? path.substring(0, query) : path;
+        return method + " " + NUMBER.matcher(base).replaceAll("/{id}");
+    }
+
+    private record Dataset(List<String> users, String password, List<String> logins, List<Long> roomIds, List<String> buses,
+                           List<Long> deviceIds) {}
+
+    private static class Run {
+        private final HttpClient client;
+        private final String baseUrl;
+        private final Dataset dataset;
+        private final Map<String, String> tokens;
+        private final Options options;
+        private final Map<String, Stats> stats = new ConcurrentHashMap<>();
+        private final Stats overall = new Stats();
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final LongAdder overloaded = new LongAdder();
+        private final Map<String, String> principals = new HashMap<>();
+        private final AtomicInteger nextLogin = new AtomicInteger();
+        private long measuredFromMillis;
+        private long measuredMillis;
+
+        Run(HttpClient client, String baseUrl, Dataset dataset, Map<String, String> tokens, Options options) {
+            this.client = client;
+            this.baseUrl = baseUrl;
+            this.dataset = dataset;
+            this.tokens = tokens;
+            this.options = options;
+        }
+
+        void execute(List<CapturedRequest> schedule) throws Exception {
+            mapPrincipals(schedule);
+            long lastOffset = schedule.isEmpty() ? 0 : schedule.get(schedule.size() - 1).offsetMillis();
+            measuredFromMillis = options.replay != null ? 0 : options.warmup * 1_000L;
+            measuredMillis = Math.max(1, (long) (lastOffset / options.speed) - measuredFromMillis);
+            CapturedRequest.Writer recorder = options.record != null
+                ? CapturedRequest.writer(Path.of(options.record)) : null;
+            try {
+                long start = System.nanoTime();
+                for (CapturedRequest captured : schedule) {
+                    long intended = start + TimeUnit.MILLISECONDS.toNanos((long) (captured.offsetMillis() / options.speed));
+                    long wait = intended - System.nanoTime();
+                    if (wait > 0) {
+                        TimeUnit.NANOSECONDS.sleep(wait);
+                    }
+                    if (inFlight.get() >= options.maxInFlight) {
+                        overloaded.increment();
+                        continue;
+                    }
+                    send(captured, intended, start, recorder);
+                }
+                long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(60);
+                while (inFlight.get() > 0 && System.nanoTime() < deadline) {
+                    TimeUnit.MILLISECONDS.sleep(20);
+                }
+            } finally {
+                if (recorder != null) {
+                    recorder.close();
+                }
+            }
+        }
+
+        private void send(CapturedRequest captured, long intended, long start, CapturedRequest.Writer recorder) {
+            String route = route(captured.method(), captured.path());
+            boolean measured = TimeUnit.NANOSECONDS.toMillis(intended - start) >= measuredFromMillis;
+            inFlight.incrementAndGet();
+            client.sendAsync(build(captured), HttpResponse.BodyHandlers.discarding()).whenComplete((response, error) -> {
+                long latencyMicros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - intended);
+                int status = error != null ? 0 : response.statusCode();
+                if (measured) {
+                    stats.computeIfAbsent(route, key -> new Stats()).record(status, latencyMicros);
+                    overall.record(status, latencyMicros);
+                }
+                if (recorder != null) {
+                    recorder.write(captured.withResult(status, latencyMicros));
+                }
+                inFlight.decrementAndGet();
+            });
+        }
+
+        private HttpRequest build(CapturedRequest captured) {
+            HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(baseUrl + captured.path()))
+                .timeout(Duration.ofSeconds(60));
+            String principal = captured.principal() != null ? principals.get(captured.principal()) : null;
+            if (principal != null) {
+                builder.header("Authorization", "Bearer " + tokens.get(principal));
+            }
+            String body = captured.body();
+            if ("/api/auth/login".equals(captured.path())) {
+                // Пароли в захвате не хранятся - входим созданными пользователями по кругу
+                body = loginBody(dataset.logins().get(Math.floorMod(nextLogin.getAndIncrement(),
+                    dataset.logins().size())), PASSWORD);
+            }
+            if (body == null) {
+                return builder.method(captured.method(), HttpRequest.BodyPublishers.noBody()).build();
+            }
+            if (captured.contentType() != null && captured.contentType().startsWith("multipart/form-data")) {
+                String boundary = "load-" + Long.toHexString(captured.offsetMillis());
+                String multipart = "--" + boundary + "\r\n"
+                    + "Content-Disposition: form-data; name=\"file\"; filename=\"load.csv\"\r\n"
+                    + "Content-Type: text/csv\r\n\r\n"
+                    + body + "\r\n--" + boundary + "--\r\n";
+                return builder.header("Content-Type", "multipart/form-data; boundary=" + boundary)
+                    .method(captured.method(), HttpRequest.BodyPublishers.ofString(multipart, StandardCharsets.UTF_8))
+                    .build();
+            }
+            return builder.header("Content-Type", captured.contentType() != null ? captured.contentType() : "application/json")
+                .method(captured.method(), HttpRequest.BodyPublishers.ofString(body, StandardCharsets.UTF_8))
+                .build();
+        }
+
+        // Пользователи захвата по алфавиту получают load-user-0, load-user-1, ... (по кругу, если их больше)
+        private void mapPrincipals(List<CapturedRequest> schedule) {
+            TreeSet<String> captured = new TreeSet<>();
+            schedule.stream().map(CapturedRequest::principal).filter(principal -> principal != null)
+                .forEach(captured::add);
+            int index = 0;
+            for (String principal : captured) {
+                principals.put(principal, dataset.users().get(index++ % dataset.users().size()));
+            }
+        }
+
+        void report() {
+            double seconds = measuredMillis / 1_000.0;
+            System.out.printf("%nMeasured %.1f s, %d requests not sent (more than %d in flight)%n",
+                seconds, overloaded.sum(), options.maxInFlight);
+            System.out.printf("%-42s %8s %8s %9s %9s %9s %9s %9s  %s%n",
+                "route", "count", "req/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms", "statuses");
+            new TreeMap<>(stats).forEach((route, routeStats) -> routeStats.print(route, seconds));
+            overall.print("ALL", seconds);
+        }
+    }
+
+    // Задержки в микросекундах; ConcurrentHistogram - запись из потоков HttpClient без блокировок
+    private static class Stats {
+        private final Histogram latencies = new ConcurrentHistogram(3);
+        private final Map<Integer, LongAdder> statuses = new ConcurrentHashMap<>();
+
+        void record(int status, long latencyMicros) {
+            latencies.recordValue(Math.max(1, latencyMicros));
+            statuses.computeIfAbsent(status, key -> new LongAdder()).increment();
+        }
+
+        void print(String route, double seconds) {
+            Map<Integer, Long> counts = new TreeMap<>();
+            statuses.forEach((status, count) -> counts.put(status, count.sum()));
+            System.out.printf("%-42s %8d %8.1f %9.2f %9.2f %9.2f %9.2f %9.2f  %s%n", route,
+                latencies.getTotalCount(), latencies.getTotalCount() / seconds,
+                millis(50), millis(90), millis(99), millis(99.9), latencies.getMaxValue() / 1_000.0, counts);
+        }
+
+        private double millis(double percentile) {
+            return latencies.getValueAtPercentile(percentile) / 1_000.0;
+        }
+    }
+
+    private static class Options {
+        int users = 20;
+        int rooms = 200;
+        int devices = 4_000;
+        long seed = 42;
+        DatasetScale scale;
+        int rate = 100;
+        int seconds = 30;
+        int warmup = 10;
+        double speed = 1.0;
+        int maxInFlight = 1_000;
+        Map<String, Integer> mix = new LinkedHashMap<>(DEFAULT_MIX);
+        String record;
+        String replay;
+
+        static Options parse(String[] args) {
+            Options options = new Options();
+            for (String arg : args) {
+                int eq = arg.indexOf('=');
+                if (eq < 0) {
+                    throw new IllegalArgumentException("Expected key=value, got " + arg);
+                }
+                String key = arg.substring(0, eq);
+                String value = arg.substring(eq + 1);
+                switch (key) {
+                    case "users" -> options.users = Integer.parseInt(value);
+                    case "rooms" -> options.rooms = Integer.parseInt(value);
+                    case "devices" -> options.devices = Integer.parseInt(value);
+                    case "seed" -> options.seed = Long.parseLong(value);
+                    case "scale" -> options.scale = DatasetScale.parse(value);
+                    case "rate" -> options.rate = Integer.parseInt(value);
+                    case "seconds" -> options.seconds = Integer.parseInt(value);
+                    case "warmup" -> options.warmup = Integer.parseInt(value);
+                    case "speed" -> options.speed = Double.parseDouble(value);
+                    case "maxInFlight" -> options.maxInFlight = Integer.parseInt(value);
+                    case "record" -> options.record = value;
+                    case "replay" -> options.replay = value;
+                    case "mix" -> options.mix = parseMix(value);
+                    default -> throw new IllegalArgumentException("Unknown option " + key);
+                }
+            }
+            return options;
+        }
+
+        // Неуказанные операции из смеси по умолчанию получают вес 0
+        private static Map<String, Integer> parseMix(String value) {
+            Map<String, Integer> mix = new LinkedHashMap<>();
+            for (String part : value.split(",")) {
+                String[] pair = part.split(":|=", 2);
+                if (!DEFAULT_MIX.containsKey(pair[0])) {
+                    throw new IllegalArgumentException("Unknown operation " + pair[0] + ", expected " + DEFAULT_MIX.keySet());
+                }
+                mix.put(pair[0], Integer.parseInt(pair[1]));
+            }
+            return mix;
+        }
+    }
+}
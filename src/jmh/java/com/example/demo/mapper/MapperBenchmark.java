@@ -0,0 +1,95 @@
+package com.example.demo.mapper;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.example.demo.dto.DeviceResponseDto;
+import com.example.demo.dto.RoomDto;
+import com.example.demo.model.Device;
+import com.example.demo.model.DeviceType;
+import com.example.demo.model.Role;
+import com.example.demo.model.Room;
+import com.example.demo.model.User;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Сборка ответов списков: DeviceMapper.toDto и RoomMapper.toDto по уже загруженным сущностям
+ * и сериализация страницы GET /api/devices (Page<DeviceResponseDto>, как ее отдает DeviceController).
+ * ObjectMapper собирается Jackson2ObjectMapperBuilder - с теми же модулями, что у Spring Boot.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MapperBenchmark {
+    private static final DeviceType[] TYPES = DeviceType.values();
+
+    // Размер страницы и число устройств в комнате
+    @Param({"20", "200"})
+    public int size;
+
+    private List<Device> devices;
+    private Room room;
+    private Page<DeviceResponseDto> page;
+    private ObjectMapper objectMapper;
+
+    @Setup
+    public void setUp() {
+        Role role = new Role();
+        role.setName("manager");
+        User manager = User.builder().id(7L).username("manager").password("x").role(role).build();
+        room = new Room();
+        room.setId(3L);
+        room.setBus("Room 3");
+        room.setManager(manager);
+        devices = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            Device device = new Device();
+            device.setId((long) i);
+            device.setTitle("Device " + i);
+            device.setType(TYPES[i % TYPES.length]);
+            device.setPower(100 + i);
+            device.setActive(i % 2 == 0);
+            device.setRoom(room);
+            devices.add(device);
+        }
+        room.setDevices(devices);
+        page = new PageImpl<>(devices.stream().map(DeviceMapper::toDto).toList(), PageRequest.of(0, size), 100_000);
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+    }
+
+    @Benchmark
+    public Page<DeviceResponseDto> deviceToDto() {
+        return new PageImpl<>(devices).map(DeviceMapper::toDto);
+    }
+
+    @Benchmark
+    public RoomDto roomToDto() {
+        return RoomMapper.toDto(room);
+    }
+
+    @Benchmark
+    public byte[] serializeDevicePage() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(page);
+    }
+}
@@ -0,0 +1,150 @@
+package com.example.demo.model;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.cfg.Configuration;
+import org.hibernate.stat.Statistics;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.MappedSuperclass;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+
+/**
+ * Вставка 100 000 устройств: IDENTITY (каждая строка - отдельный INSERT, пакетная вставка отключена)
+ * против SEQUENCE с allocationSize = 50 и hibernate.jdbc.batch_size = 50, как в application.properties.
+ * Помимо времени выводит число подготовленных JDBC-выражений и вставленных строк (статистика Hibernate).
+ * Сущности бенчмарка - копии полей Device без связи с комнатой, база - H2 в памяти, как у приложения.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class IdGenerationBenchmark {
+    private static final int ROWS = 100_000;
+    private static final int BATCH_SIZE = 50;
+
+    private SessionFactory sessionFactory;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        sessionFactory = new Configuration()
+            .addAnnotatedClass(IdentityDevice.class)
+            .addAnnotatedClass(SequenceDevice.class)
+            .setProperty("hibernate.connection.url", "jdbc:h2:mem:idgen;DB_CLOSE_DELAY=-1")
+            .setProperty("hibernate.connection.username", "sa")
+            .setProperty("hibernate.hbm2ddl.auto", "create-drop")
+            .setProperty("hibernate.jdbc.batch_size", String.valueOf(BATCH_SIZE))
+            .setProperty("hibernate.order_inserts", "true")
+            .setProperty("hibernate.generate_statistics", "true")
+            .buildSessionFactory();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        sessionFactory.close();
+    }
+
+    @Setup(Level.Iteration)
+    public void truncate() {
+        sessionFactory.inTransaction(session -> {
+            session.createMutationQuery("DELETE FROM IdentityDevice").executeUpdate();
+            session.createMutationQuery("DELETE FROM SequenceDevice").executeUpdate();
+        });
+        sessionFactory.getStatistics().clear();
+    }
+
+    @Benchmark
+    public void identity(StatementCounters counters) {
+        insert(counters, IdentityDevice::new);
+    }
+
+    @Benchmark
+    public void sequence(StatementCounters counters) {
+        insert(counters, SequenceDevice::new);
+    }
+
+    private void insert(StatementCounters counters, Supplier<BenchmarkDevice> factory) {
+        sessionFactory.inTransaction(session -> {
+            for (int i = 0; i < ROWS; i++) {
+                BenchmarkDevice device = factory.get();
+                device.fill(i);
+                session.persist(device);
+                if ((i + 1) % BATCH_SIZE == 0) {
+                    flushAndClear(session);
+                }
+            }
+        });
+        Statistics statistics = sessionFactory.getStatistics();
+        counters.statements = statistics.getPrepareStatementCount();
+        counters.inserts = statistics.getEntityInsertCount();
+    }
+
+    private static void flushAndClear(Session session) {
+        session.flush();
+        session.clear();
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class StatementCounters {
+        public long statements;
+        public long inserts;
+    }
+
+    @MappedSuperclass
+    public abstract static class BenchmarkDevice {
+        protected String title;
+        protected double power;
+        protected boolean active;
+        @Enumerated(EnumType.STRING)
+        protected DeviceType type;
+
+        void fill(int i) {
+            title = "Dev " + i;
+            power = (i % 1000) / 1000.0;
+            active = i % 2 == 0;
+            type = DeviceType.values()[i % DeviceType.values().length];
+        }
+    }
+
+    @Entity(name = "IdentityDevice")
+    @Table(name = "bench_identity_device")
+    public static class IdentityDevice extends BenchmarkDevice {
+        @Id
+        @GeneratedValue(strategy = GenerationType.IDENTITY)
+        private Long id;
+    }
+
+    @Entity(name = "SequenceDevice")
+    @Table(name = "bench_sequence_device")
+    public static class SequenceDevice extends BenchmarkDevice {
+        @Id
+        @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "bench_device_seq")
+        @SequenceGenerator(name = "bench_device_seq", sequenceName = "bench_device_seq", allocationSize = BATCH_SIZE)
+        private Long id;
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.demo.model;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.core.GrantedAuthority;
+
+/**
+ * User.getAuthorities: вызывается на каждую проверку прав (hasAuthority, @PreAuthorize) и при входе.
+ * Каждый вызов заново форматирует строки прав ("%S:%S") и собирает два множества.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UserAuthoritiesBenchmark {
+    private static final String[] OPERATIONS = {"read", "create", "update", "delete"};
+
+    // 8 - как у ADMIN в DemoApplication; 40 - роль с правами на все ресурсы
+    @Param({"8", "40"})
+    public int permissions;
+
+    private User user;
+
+    @Setup
+    public void setUp() {
+        Set<Permission> granted = new HashSet<>();
+        for (int i = 0; i < permissions; i++) {
+            granted.add(new Permission("resource" + i / OPERATIONS.length, OPERATIONS[i % OPERATIONS.length]));
+        }
+        Role role = new Role();
+        role.setName("admin");
+        role.setPermissions(granted);
+        user = User.builder().username("admin").password("x").role(role).build();
+    }
+
+    @Benchmark
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return user.getAuthorities();
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.demo.ratelimit;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Накладные расходы RateLimitFilter на запрос.
+ * allowedHotKey - один пользователь, корзина никогда не пустеет (часы сдвигаются на интервал пополнения);
+ * rejectedHotKey - корзина исчерпана, каждый запрос отклоняется по реальным часам;
+ * allowedManyKeys - 100 000 ключей по кругу (промахи кэша процессора по карте корзин);
+ * contendedHotKey - 4 потока на одной корзине (повторы compareAndSet);
+ * filterDecision - выбор семейства по методу и пути, сборка ключа и решение, как в doFilterInternal.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RateLimiterBenchmark {
+    private static final int KEYS = 100_000;
+    private static final long REFILL_NANOS = 1_000_000L;
+
+    private TokenBucketLimiter limiter;
+    private TokenBucketLimiter exhausted;
+    private RateLimitFilter filter;
+    private String username = "admin";
+    private String[] keys;
+    private int next;
+    private long clock;
+
+    @Setup
+    public void setUp() {
+        limiter = new TokenBucketLimiter("bench", 20, 1, KEYS * 2);
+        exhausted = new TokenBucketLimiter("exhausted", 1, 60_000, KEYS * 2);
+        exhausted.tryAcquire("user:admin");
+        filter = new RateLimitFilter();
+        keys = new String[KEYS];
+        for (int i = 0; i < KEYS; i++) {
+            keys[i] = "user:manager-" + i;
+            limiter.tryAcquire(keys[i], 0);
+        }
+        clock = 0;
+    }
+
+    @Benchmark
+    public TokenBucketLimiter.Decision allowedHotKey() {
+        clock += REFILL_NANOS;
+        return limiter.tryAcquire("user:admin", clock);
+    }
+
+    @Benchmark
+    public TokenBucketLimiter.Decision rejectedHotKey() {
+        return exhausted.tryAcquire("user:admin");
+    }
+
+    @Benchmark
+    public TokenBucketLimiter.Decision allowedManyKeys() {
+        if (++next == KEYS) {
+            next = 0;
+            clock += REFILL_NANOS;
+        }
+        return limiter.tryAcquire(keys[next], clock);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public TokenBucketLimiter.Decision contendedHotKey(ContendedState state) {
+        return state.limiter.tryAcquire("user:admin");
+    }
+
+    @Benchmark
+    public TokenBucketLimiter.Decision filterDecision() {
+        TokenBucketLimiter family = filter.limiterFor("POST", "/api/control/devices/42/toggle");
+        clock += REFILL_NANOS;
+        return family.tryAcquire("user:" + username, clock);
+    }
+
+    @State(Scope.Benchmark)
+    public static class ContendedState {
+        // Запас на 10^6 секунд при интервале 1 мс - за прогон корзина не пустеет
+        final TokenBucketLimiter limiter = new TokenBucketLimiter("contended", 1_000_000_000, 1, 16);
+    }
+}
@@ -0,0 +1,114 @@
+package com.example.demo.service;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.web.multipart.MultipartFile;
+
+import com.example.demo.dto.CsvImportDto;
+import com.example.demo.model.Device;
+import com.example.demo.model.DeviceType;
+
+/**
+ * Пропускная способность разбора CSV при импорте устройств, строк в секунду (без сохранения в БД).
+ * Файл в формате /api/import/devices (title,type,power,active,roomBus); строки разбираются тем же
+ * CsvParserUtil.streamCsvFile порциями по 500, запись в Device - как в CsvImportService.mapDevice
+ * без поиска комнаты. batchHandler ничего не сохраняет.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CsvParserBenchmark {
+    private static final int ROWS = 10_000;
+    private static final int BATCH_SIZE = 500;
+
+    private final CsvParserUtil csvParserUtil = new CsvParserUtil();
+    private MultipartFile file;
+
+    @Setup
+    public void setUp() {
+        DeviceType[] types = DeviceType.values();
+        StringBuilder csv = new StringBuilder("title,type,power,active,roomBus\n");
+        for (int i = 0; i < ROWS; i++) {
+            csv.append("Device ").append(i).append(',')
+                .append(types[i % types.length].name().toLowerCase()).append(',')
+                .append(50 + i % 2_000).append(".5,")
+                .append(i % 2 == 0).append(",Room ").append(i % 100).append('\n');
+        }
+        file = new CsvFile(csv.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public CsvImportDto streamDevices() {
+        return csvParserUtil.streamCsvFile(file, BATCH_SIZE, record -> {
+            Device device = new Device();
+            device.setTitle(record.get("title"));
+            device.setType(DeviceType.valueOf(record.get("type").trim().toUpperCase()));
+            device.setPower(Double.parseDouble(record.get("power").trim()));
+            device.setActive(Boolean.parseBoolean(record.get("active")));
+            return device;
+        }, batch -> List.of());
+    }
+
+    // MockMultipartFile есть только в spring-test, которого нет в classpath профиля jmh
+    private record CsvFile(byte[] content) implements MultipartFile {
+        @Override
+        public String getName() {
+            return "file";
+        }
+
+        @Override
+        public String getOriginalFilename() {
+            return "devices.csv";
+        }
+
+        @Override
+        public String getContentType() {
+            return "text/csv";
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return content.length == 0;
+        }
+
+        @Override
+        public long getSize() {
+            return content.length;
+        }
+
+        @Override
+        public byte[] getBytes() {
+            return content;
+        }
+
+        @Override
+        public InputStream getInputStream() {
+            return new ByteArrayInputStream(content);
+        }
+
+        @Override
+        public void transferTo(File dest) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
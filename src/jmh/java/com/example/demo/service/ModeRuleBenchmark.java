@@ -0,0 +1,95 @@
+package com.example.demo.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.example.demo.model.DeviceType;
+import com.example.demo.model.ModeRule;
+
+/**
+ * Сопоставление правил режима с устройствами, как при активации режима в ModeService.
+ * compile - сборка ModeRuleEvaluator из набора правил (выполняется при промахе ModeRuleCache);
+ * evaluateFleet - проверка DEVICES синтетических устройств всех типов против скомпилированного набора.
+ * Правила: треть без шаблона, треть с литеральным шаблоном, треть с регулярным выражением;
+ * у половины заданы границы мощности. Генератор детерминирован (seed 42).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ModeRuleBenchmark {
+    private static final int DEVICES = 10_000;
+    private static final String[] WORDS = {"Лампа", "Kitchen", "Bedroom", "Office", "Hall", "Main", "Night"};
+
+    @Param({"3", "50", "500"})
+    public int rules;
+
+    private List<ModeRule> ruleSet;
+    private ModeRuleEvaluator evaluator;
+    private DeviceType[] types;
+    private String[] titles;
+    private double[] powers;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        DeviceType[] allTypes = DeviceType.values();
+        ruleSet = new ArrayList<>(rules);
+        for (int i = 0; i < rules; i++) {
+            ModeRule rule = new ModeRule();
+            rule.setDeviceType(i % 4 == 0 ? null : allTypes[random.nextInt(allTypes.length)]);
+            rule.setTitlePattern(switch (i % 3) {
+                case 0 -> null;
+                case 1 -> WORDS[random.nextInt(WORDS.length)];
+                default -> "^" + WORDS[random.nextInt(WORDS.length)] + ".*\\d{2}$";
+            });
+            if (i % 2 == 0) {
+                double min = random.nextInt(2_000);
+                rule.setMinPower(min);
+                rule.setMaxPower(min + random.nextInt(1_000));
+            }
+            rule.setShouldBeActive(random.nextBoolean());
+            rule.setPriority(rules - i);
+            ruleSet.add(rule);
+        }
+        evaluator = ModeRuleEvaluator.compile(ruleSet);
+
+        types = new DeviceType[DEVICES];
+        titles = new String[DEVICES];
+        powers = new double[DEVICES];
+        for (int i = 0; i < DEVICES; i++) {
+            types[i] = allTypes[random.nextInt(allTypes.length)];
+            titles[i] = WORDS[random.nextInt(WORDS.length)] + " " + WORDS[random.nextInt(WORDS.length)] + " " + i;
+            powers[i] = random.nextInt(3_000);
+        }
+    }
+
+    @Benchmark
+    public ModeRuleEvaluator compile() {
+        return ModeRuleEvaluator.compile(ruleSet);
+    }
+
+    @Benchmark
+    public void evaluateFleet(Blackhole blackhole) {
+        for (int i = 0; i < DEVICES; i++) {
+            blackhole.consume(evaluator.evaluate(types[i], titles[i], powers[i]));
+        }
+    }
+}
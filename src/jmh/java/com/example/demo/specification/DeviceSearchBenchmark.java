@@ -0,0 +1,219 @@
+package com.example.demo.specification;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.cfg.Configuration;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.jpa.domain.Specification;
+
+import com.example.demo.model.Device;
+import com.example.demo.model.DeviceType;
+import com.example.demo.model.Permission;
+import com.example.demo.model.Role;
+import com.example.demo.model.Room;
+import com.example.demo.model.Token;
+import com.example.demo.model.User;
+
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+
+/**
+ * Страница /api/devices (20 id по title плюс COUNT, как у findAll(spec, pageable)) на 1 000 000 устройств
+ * в 1000 комнатах у 100 менеджеров. Схема и индексы создаются Hibernate из аннотаций сущностей,
+ * запрос строится теми же DeviceSpecification.managedBy и withFilter, что и в DeviceService.
+ * indexed = false удаляет индексы idx_device_* (индексы внешних ключей остаются; idx_room_manager H2 использует
+ * для внешнего ключа manager_id, поэтому он есть в обоих вариантах).
+ * В начале каждого прогона печатается EXPLAIN запроса страницы - видно, какой индекс выбран.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class DeviceSearchBenchmark {
+    private static final int DEVICES = 1_000_000;
+    private static final int ROOMS = 1_000;
+    private static final int MANAGERS = 100;
+    private static final int PAGE_SIZE = 20;
+    private static final String[] INDEXES = {
+        "idx_device_room_type", "idx_device_room_active", "idx_device_power"
+    };
+
+    @Param({"none", "type", "active", "power", "manager", "type+active", "type+power", "manager+type+active",
+        "manager+type+active+power"})
+    public String filter;
+
+    @Param({"true", "false"})
+    public boolean indexed;
+
+    private SessionFactory sessionFactory;
+    private Specification<Device> spec;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        sessionFactory = new Configuration()
+            .addAnnotatedClass(Device.class)
+            .addAnnotatedClass(Room.class)
+            .addAnnotatedClass(User.class)
+            .addAnnotatedClass(Role.class)
+            .addAnnotatedClass(Permission.class)
+            .addAnnotatedClass(Token.class)
+            .setProperty("hibernate.connection.url", "jdbc:h2:mem:device-search;DB_CLOSE_DELAY=-1;QUERY_CACHE_SIZE=0")
+            .setProperty("hibernate.connection.username", "sa")
+            .setProperty("hibernate.hbm2ddl.auto", "create-drop")
+            // QUERY_CACHE_SIZE=0 выше: иначе H2 вернет закэшированный результат повторного запроса без выполнения
+            // Слушатели Role/Permission - Spring-бины, вне контекста они не нужны
+            .setProperty("hibernate.jpa_callbacks.enabled", "false")
+            // Значения фильтров подставляются в SQL литералами, чтобы EXPLAIN можно было выполнить как есть
+            .setProperty("hibernate.criteria.value_handling_mode", "inline")
+            .setProperty("hibernate.session_factory.statement_inspector", SqlCapture.class.getName())
+            .buildSessionFactory();
+        spec = specFor(filter);
+
+        sessionFactory.inTransaction(session -> session.doWork(connection -> {
+            seed(connection);
+            if (!indexed) {
+                try (Statement statement = connection.createStatement()) {
+                    for (String index : INDEXES) {
+                        statement.execute("DROP INDEX " + index);
+                    }
+                }
+            }
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("ANALYZE");
+            }
+        }));
+
+        search();
+        String sql = SqlCapture.pageSql;
+        sessionFactory.inSession(session -> session.doWork(connection -> {
+            try (Statement statement = connection.createStatement();
+                 ResultSet plan = statement.executeQuery("EXPLAIN " + sql)) {
+                plan.next();
+                System.out.println("\n[" + filter + ", indexed=" + indexed + "]\n" + plan.getString(1));
+            }
+        }));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        sessionFactory.close();
+    }
+
+    @Benchmark
+    public long search() {
+        try (Session session = sessionFactory.openSession()) {
+            CriteriaBuilder cb = session.getCriteriaBuilder();
+
+            // Только id: загрузка комнат (EAGER) добавила бы по запросу на строку и заслонила бы фильтр
+            CriteriaQuery<Long> pageQuery = cb.createQuery(Long.class);
+            Root<Device> root = pageQuery.from(Device.class);
+            pageQuery.select(root.get("id"));
+            Predicate predicate = spec.toPredicate(root, pageQuery, cb);
+            if (predicate != null) {
+                pageQuery.where(predicate);
+            }
+            pageQuery.orderBy(cb.asc(root.get("title")));
+            List<Long> page = session.createQuery(pageQuery).setMaxResults(PAGE_SIZE).getResultList();
+            SqlCapture.pageSql = SqlCapture.last;
+
+            CriteriaQuery<Long> countQuery = cb.createQuery(Long.class);
+            Root<Device> countRoot = countQuery.from(Device.class);
+            Predicate countPredicate = spec.toPredicate(countRoot, countQuery, cb);
+            if (countPredicate != null) {
+                countQuery.where(countPredicate);
+            }
+            countQuery.select(cb.count(countRoot));
+            return session.createQuery(countQuery).getSingleResult() + page.size();
+        }
+    }
+
+    private static Specification<Device> specFor(String filter) {
+        List<String> parts = List.of(filter.split("\\+"));
+        Long managerId = parts.contains("manager") ? 1L : null;
+        DeviceType type = parts.contains("type") ? DeviceType.LIGHT : null;
+        Boolean active = parts.contains("active") ? Boolean.TRUE : null;
+        Double minPower = parts.contains("power") ? 0.100 : null;
+        Double maxPower = parts.contains("power") ? 0.110 : null;
+        return DeviceSpecification.managedBy(managerId)
+            .and(DeviceSpecification.withFilter(null, type, minPower, maxPower, active));
+    }
+
+    // Независимые равномерные значения: тип 1/10, active 1/2, мощность 0..1 с шагом 0.001, менеджер 1/100
+    private static void seed(Connection connection) throws SQLException {
+        try (PreparedStatement users = connection.prepareStatement(
+                "INSERT INTO users (id, username, password) VALUES (?, ?, 'x')")) {
+            for (int i = 1; i <= MANAGERS; i++) {
+                users.setLong(1, i);
+                users.setString(2, "manager-" + i);
+                users.addBatch();
+            }
+            users.executeBatch();
+        }
+        try (PreparedStatement rooms = connection.prepareStatement(
+                "INSERT INTO room (id, bus, manager_id) VALUES (?, ?, ?)")) {
+            for (int i = 1; i <= ROOMS; i++) {
+                rooms.setLong(1, i);
+                rooms.setString(2, "BUS" + i);
+                rooms.setLong(3, (i - 1) % MANAGERS + 1);
+                rooms.addBatch();
+            }
+            rooms.executeBatch();
+        }
+        DeviceType[] types = DeviceType.values();
+        Random random = new Random(42);
+        try (PreparedStatement devices = connection.prepareStatement(
+                "INSERT INTO device (id, title, type, power, active, room_id) VALUES (?, ?, ?, ?, ?, ?)")) {
+            for (int i = 1; i <= DEVICES; i++) {
+                devices.setLong(1, i);
+                devices.setString(2, "Device " + random.nextInt(DEVICES));
+                devices.setString(3, types[random.nextInt(types.length)].name());
+                devices.setDouble(4, random.nextInt(1000) / 1000.0);
+                devices.setBoolean(5, random.nextBoolean());
+                devices.setLong(6, random.nextInt(ROOMS) + 1);
+                devices.addBatch();
+                // Фиксируем порциями: коммит одной транзакции на миллион строк в H2 очень медленный
+                if (i % 10_000 == 0) {
+                    devices.executeBatch();
+                    connection.commit();
+                }
+            }
+        }
+    }
+
+    public static class SqlCapture implements StatementInspector {
+        static volatile String last;
+        static volatile String pageSql;
+
+        @Override
+        public String inspect(String sql) {
+            last = sql;
+            return sql;
+        }
+    }
+}
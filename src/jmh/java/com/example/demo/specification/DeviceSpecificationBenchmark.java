@@ -0,0 +1,43 @@
+package com.example.demo.specification;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.jpa.domain.Specification;
+
+import com.example.demo.model.Device;
+import com.example.demo.model.DeviceType;
+
+/**
+ * Сборка Specification для GET /api/devices без обращения к БД: withFilter создает цепочку лямбд
+ * на каждый запрос. Сам SQL-запрос на миллионе устройств измеряет DeviceSearchBenchmark.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DeviceSpecificationBenchmark {
+    private String title = "lamp";
+    private Long managerId = 7L;
+
+    @Benchmark
+    public Specification<Device> withoutFilter() {
+        return DeviceSpecification.withFilter(null, null, null, null, null);
+    }
+
+    @Benchmark
+    public Specification<Device> withAllFilters() {
+        return DeviceSpecification.withFilter(title, DeviceType.LIGHT, 10.0, 500.0, Boolean.TRUE)
+            .and(DeviceSpecification.managedBy(managerId));
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.demo.cache;
+
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+import com.example.demo.dto.CacheStatsDto;
+
+/**
+ * Потокобезопасный кэш с ограничением размера и временем жизни записей.
+ * При переполнении сначала удаляются просроченные записи, затем записи с ближайшим сроком истечения,
+ * пока размер не опустится до 90% от лимита - так очистка происходит редко и пачками.
+ */
+public class BoundedTtlCache<K, V> {
+    private final int maxSize;
+    private final long ttlNanos;
+    private final Map<K, Entry<V>> entries = new ConcurrentHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public BoundedTtlCache(int maxSize, long ttlMillis) {
+        this.maxSize = maxSize;
+        this.ttlNanos = ttlMillis * 1_000_000L;
+    }
+
+    // Значение из кэша или загруженное loader; null от loader не кэшируется
+    public V get(K key, Function<? super K, ? extends V> loader) {
+        long now = System.nanoTime();
+        Entry<V> entry = entries.get(key);
+        if (entry != null && entry.expiresAt - now > 0) {
+            hits.increment();
+            return entry.value;
+        }
+        misses.increment();
+        V value = loader.apply(key);
+        if (value != null) {
+            put(key, value, now);
+        }
+        return value;
+    }
+
+    public void invalidate(K key) {
+        if (entries.remove(key) != null) {
+            evictions.increment();
+        }
+    }
+
+    public void invalidateAll() {
+        evictions.add(entries.size());
+        entries.clear();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public CacheStatsDto stats() {
+        long hitCount = hits.sum();
+        long missCount = misses.sum();
+        long total = hitCount + missCount;
+        return new CacheStatsDto(hitCount, missCount, evictions.sum(), entries.size(), maxSize,
+            total == 0 ? 0.0 : (double) hitCount / total);
+    }
+
+    private void put(K key, V value, long now) {
+        entries.put(key, new Entry<>(value, now + ttlNanos));
+        if (entries.size() > maxSize) {
+            shrink(now);
+        }
+    }
+
+    private synchronized void shrink(long now) {
+        if (entries.size() <= maxSize) {
+            return;
+        }
+        entries.entrySet().removeIf(e -> {
+            boolean expired = e.getValue().expiresAt - now <= 0;
+            if (expired) {
+                evictions.increment();
+            }
+            return expired;
+        });
+        int target = maxSize * 9 / 10;
+        int excess = entries.size() - target;
+        if (excess <= 0) {
+            return;
+        }
+        entries.entrySet().stream()
+            .sorted(Comparator.comparingLong(e -> e.getValue().expiresAt))
+            .limit(excess)
+            .map(Map.Entry::getKey)
+            .toList()
+            .forEach(this::invalidate);
+    }
+
+    private record Entry<V>(V value, long expiresAt) {}
+}
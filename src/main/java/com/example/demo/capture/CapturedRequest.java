@@ -0,0 +1,114 @@
+package com.example.demo.capture;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Одна строка захвата requests.jsonl: запрос, кто его сделал, когда (от начала захвата) и чем он закончился.
+ * Пишут RequestCaptureFilter (рабочий трафик) и LoadHarness (record=), читает LoadHarness (replay=).
+ * principal null - анонимный запрос (вход). Для multipart/form-data в body лежит содержимое файла
+ * из части "file" (импорт CSV). body null - тела не было, оно больше предела захвата или это учетные данные.
+ * status и latencyMicros - ответ той сборки, на которой записан захват.
+ * Файлы с расширением .gz читаются и пишутся сжатыми; каталог читается целиком - файлы по порядку имен.
+ */
+public record CapturedRequest(
+    long offsetMillis,
+    String method,
+    String path,
+    String principal,
+    String contentType,
+    String body,
+    int status,
+    long latencyMicros
+) {
+    private static final ObjectMapper MAPPER = new ObjectMapper()
+        .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    public static List<CapturedRequest> read(Path file) throws IOException {
+        List<CapturedRequest> requests = new ArrayList<>();
+        if (Files.isDirectory(file)) {
+            try (Stream<Path> files = Files.list(file)) {
+                for (Path part : files.filter(CapturedRequest::isCaptureFile).sorted().toList()) {
+                    requests.addAll(read(part));
+                }
+            }
+            return requests;
+        }
+        try (InputStream in = open(file);
+             BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.isBlank()) {
+                    requests.add(MAPPER.readValue(line, CapturedRequest.class));
+                }
+            }
+        }
+        return requests;
+    }
+
+    public static Writer writer(Path file) throws IOException {
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        OutputStream out = Files.newOutputStream(file);
+        if (file.toString().endsWith(".gz")) {
+            out = new GZIPOutputStream(out);
+        }
+        return new Writer(new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8)));
+    }
+
+    public CapturedRequest withResult(int status, long latencyMicros) {
+        return new CapturedRequest(offsetMillis, method, path, principal, contentType, body, status, latencyMicros);
+    }
+
+    private static boolean isCaptureFile(Path file) {
+        String name = file.getFileName().toString();
+        return name.endsWith(".jsonl") || name.endsWith(".jsonl.gz");
+    }
+
+    private static InputStream open(Path file) throws IOException {
+        InputStream in = Files.newInputStream(file);
+        return file.toString().endsWith(".gz") ? new GZIPInputStream(in) : in;
+    }
+
+    // Пишут обработчики ответов HttpClient из разных потоков - строки не должны перемешиваться
+    public static final class Writer implements Closeable {
+        private final BufferedWriter out;
+
+        private Writer(BufferedWriter out) {
+            this.out = out;
+        }
+
+        public synchronized void write(CapturedRequest request) {
+            try {
+                out.write(MAPPER.writeValueAsString(request));
+                out.newLine();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public synchronized void close() throws IOException {
+            out.close();
+        }
+    }
+}
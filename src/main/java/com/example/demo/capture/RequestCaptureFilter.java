@@ -0,0 +1,122 @@
+package com.example.demo.capture;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingRequestWrapper;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.Part;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Запись запросов к /api/** в активный сеанс RequestCaptureService.
+ * Стоит в цепочке Spring Security после RateLimitFilter: пользователь уже известен, отказы 429 тоже попадают в захват.
+ * Вне сеанса (и для запросов, не попавших в выборку) запрос не оборачивается - стоимость одна проверка.
+ * Тела с учетными данными (вход, создание и изменение пользователей - в UserCreateDto пароль открытым текстом)
+ * не записываются; тело больше MAX_BODY_BYTES записывается как null.
+ */
+@Slf4j
+@Component
+public class RequestCaptureFilter extends OncePerRequestFilter {
+    private static final Logger logger = LoggerFactory.getLogger(RequestCaptureFilter.class);
+    private static final int MAX_BODY_BYTES = 64 * 1024;
+    private static final String[] CREDENTIAL_PATHS = {"/api/auth/", "/api/users"};
+
+    private final RequestCaptureService captureService;
+
+    public RequestCaptureFilter(RequestCaptureService captureService) {
+        this.captureService = captureService;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String path = request.getServletPath();
+        RequestCaptureService.Session session = isCaptured(path) ? captureService.sample() : null;
+        if (session == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        long start = System.nanoTime();
+        ContentCachingRequestWrapper wrapped = new ContentCachingRequestWrapper(request, MAX_BODY_BYTES);
+        try {
+            filterChain.doFilter(wrapped, response);
+        } finally {
+            long latencyMicros = (System.nanoTime() - start) / 1_000;
+            String query = request.getQueryString();
+            captureService.offer(session, new CapturedRequest(
+                session.offsetMillis(start),
+                request.getMethod(),
+                query != null ? path + "?" + query : path,
+                authenticatedUsername(),
+                request.getContentType(),
+                hasCredentials(path) ? null : body(wrapped),
+                response.getStatus(),
+                latencyMicros));
+        }
+    }
+
+    // Сам захват и поток событий (SSE держит соединение минутами) не записываются
+    private static boolean isCaptured(String path) {
+        return path.startsWith("/api/") && !path.startsWith("/api/capture") && !path.equals("/api/devices/stream");
+    }
+
+    private static boolean hasCredentials(String path) {
+        for (String prefix : CREDENTIAL_PATHS) {
+            if (path.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private String body(ContentCachingRequestWrapper request) {
+        String contentType = request.getContentType();
+        if (contentType != null && contentType.startsWith("multipart/form-data")) {
+            return filePart(request);
+        }
+        byte[] content = request.getContentAsByteArray();
+        if (content.length == 0 || content.length >= MAX_BODY_BYTES) {
+            return null;
+        }
+        return new String(content, StandardCharsets.UTF_8);
+    }
+
+    // Части multipart уже разобраны DispatcherServlet и живут до конца запроса
+    private String filePart(HttpServletRequest request) {
+        try {
+            Part part = request.getPart("file");
+            if (part == null || part.getSize() >= MAX_BODY_BYTES) {
+                return null;
+            }
+            try (InputStream in = part.getInputStream()) {
+                return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            }
+        } catch (IOException | ServletException | IllegalStateException e) {
+            logger.debug("Multipart body of {} not captured: {}", request.getServletPath(), e.getMessage());
+            return null;
+        }
+    }
+
+    private static String authenticatedUsername() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !authentication.isAuthenticated()
+                || authentication instanceof AnonymousAuthenticationToken) {
+            return null;
+        }
+        return authentication.getName();
+    }
+}
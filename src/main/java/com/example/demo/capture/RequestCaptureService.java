@@ -0,0 +1,227 @@
+package com.example.demo.capture;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import com.example.demo.dto.CaptureStatusDto;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Сеанс захвата запросов для воспроизведения в LoadHarness.
+ * Сеанс ограничен по времени (не дольше MAX_SECONDS) и может брать только долю запросов (sampleRate).
+ * Поток запроса лишь кладет запись в ограниченный буфер (offer, без ожидания); если буфер полон,
+ * запись теряется и учитывается в dropped. Фоновый поток capture-writer выгружает буфер в
+ * captures/requests-<сеанс>-<часть>.jsonl.gz, начиная новую часть каждые RECORDS_PER_FILE записей.
+ * Часть дописывается (и становится читаемой) при ротации, остановке или истечении сеанса.
+ */
+@Slf4j
+@Service
+public class RequestCaptureService {
+    private static final Logger logger = LoggerFactory.getLogger(RequestCaptureService.class);
+    private static final int BUFFER_CAPACITY = 10_000;
+    private static final int RECORDS_PER_FILE = 50_000;
+    private static final int MAX_SECONDS = 3_600;
+    private static final long POLL_MILLIS = 250;
+    private static final Path CAPTURE_DIR = Path.of("captures");
+    private static final DateTimeFormatter SESSION_ID = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss-SSS");
+
+    private final BlockingQueue<Entry> buffer = new ArrayBlockingQueue<>(BUFFER_CAPACITY);
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "capture-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private volatile Session session;
+    private volatile boolean running = true;
+
+    @PostConstruct
+    public void startWriter() {
+        writer.execute(this::drain);
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        Session current = session;
+        if (current != null) {
+            current.stopped = true;
+        }
+        running = false;
+        writer.shutdown();
+        writer.awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+    public synchronized CaptureStatusDto start(int seconds, double sampleRate) {
+        if (seconds < 1 || seconds > MAX_SECONDS) {
+            throw new IllegalArgumentException("seconds must be between 1 and " + MAX_SECONDS);
+        }
+        if (!(sampleRate > 0 && sampleRate <= 1)) {
+            throw new IllegalArgumentException("sampleRate must be in (0, 1]");
+        }
+        Session current = session;
+        if (current != null && current.isActive(System.nanoTime())) {
+            throw new IllegalStateException("Capture " + current.id + " is already running");
+        }
+        session = new Session(LocalDateTime.now().format(SESSION_ID), seconds, sampleRate);
+        logger.info("Request capture {} started: {} s, sample rate {}", session.id, seconds, sampleRate);
+        return status();
+    }
+
+    public synchronized CaptureStatusDto stop() {
+        Session current = session;
+        if (current != null && !current.stopped) {
+            current.stopped = true;
+            logger.info("Request capture {} stopped: {} captured, {} dropped", current.id,
+                current.captured.sum(), current.dropped.sum());
+        }
+        return status();
+    }
+
+    public CaptureStatusDto status() {
+        Session current = session;
+        if (current == null) {
+            return new CaptureStatusDto(false, null, 0, null, null, 0, 0, 0, List.of());
+        }
+        return new CaptureStatusDto(current.isActive(System.nanoTime()), current.id, current.sampleRate,
+            current.startedAt, current.endsAt, current.captured.sum(), current.dropped.sum(),
+            current.written.sum(), List.copyOf(current.files));
+    }
+
+    // Вызывается фильтром на каждый запрос: сеанс, если запрос попал в выборку, иначе null
+    Session sample() {
+        Session current = session;
+        if (current == null || !current.isActive(System.nanoTime())) {
+            return null;
+        }
+        if (current.sampleRate < 1 && ThreadLocalRandom.current().nextDouble() >= current.sampleRate) {
+            return null;
+        }
+        return current;
+    }
+
+    void offer(Session session, CapturedRequest request) {
+        if (buffer.offer(new Entry(session, request))) {
+            session.captured.increment();
+        } else {
+            session.dropped.increment();
+        }
+    }
+
+    private void drain() {
+        Part part = null;
+        List<Entry> batch = new ArrayList<>();
+        while (running || !buffer.isEmpty()) {
+            try {
+                Entry first = buffer.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (first != null) {
+                    batch.add(first);
+                    buffer.drainTo(batch);
+                }
+                for (Entry entry : batch) {
+                    if (part == null || part.session != entry.session() || part.records == RECORDS_PER_FILE) {
+                        close(part);
+                        part = open(entry.session());
+                    }
+                    part.writer.write(entry.request());
+                    part.records++;
+                    entry.session().written.increment();
+                }
+                batch.clear();
+                if (part != null && buffer.isEmpty() && !part.session.isActive(System.nanoTime())) {
+                    close(part);
+                    part = null;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (IOException | RuntimeException e) {
+                // Захват - вспомогательная функция: ошибку записи логируем, часть бросаем, сеанс продолжается
+                logger.warn("Request capture write failed: {}", e.getMessage());
+                batch.clear();
+                close(part);
+                part = null;
+            }
+        }
+        close(part);
+    }
+
+    private Part open(Session session) throws IOException {
+        Path file = CAPTURE_DIR.resolve(String.format("requests-%s-%03d.jsonl.gz", session.id, session.files.size()));
+        session.files.add(file.toString());
+        return new Part(session, CapturedRequest.writer(file));
+    }
+
+    private void close(Part part) {
+        if (part == null) {
+            return;
+        }
+        try {
+            part.writer.close();
+        } catch (IOException e) {
+            logger.warn("Request capture file could not be closed: {}", e.getMessage());
+        }
+    }
+
+    private record Entry(Session session, CapturedRequest request) {}
+
+    // Открытая часть захвата; используется только потоком capture-writer
+    private static final class Part {
+        private final Session session;
+        private final CapturedRequest.Writer writer;
+        private int records;
+
+        Part(Session session, CapturedRequest.Writer writer) {
+            this.session = session;
+            this.writer = writer;
+        }
+    }
+
+    static final class Session {
+        private final String id;
+        private final long startNanos = System.nanoTime();
+        private final long endNanos;
+        private final double sampleRate;
+        private final LocalDateTime startedAt = LocalDateTime.now();
+        private final LocalDateTime endsAt;
+        private final LongAdder captured = new LongAdder();
+        private final LongAdder dropped = new LongAdder();
+        private final LongAdder written = new LongAdder();
+        private final List<String> files = new CopyOnWriteArrayList<>();
+        private volatile boolean stopped;
+
+        Session(String id, int seconds, double sampleRate) {
+            this.id = id;
+            this.endNanos = startNanos + TimeUnit.SECONDS.toNanos(seconds);
+            this.sampleRate = sampleRate;
+            this.endsAt = LocalDateTime.ofInstant(Instant.now().plusSeconds(seconds), ZoneId.systemDefault());
+        }
+
+        boolean isActive(long now) {
+            return !stopped && now - endNanos < 0;
+        }
+
+        long offsetMillis(long nanos) {
+            return TimeUnit.NANOSECONDS.toMillis(nanos - startNanos);
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.demo.config;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Метрики, которых нет в автоконфигурации Actuator. HTTP, Hikari и hibernate_* (запросы, загрузки
+ * сущностей) регистрирует сам Spring Boot; доменные счетчики живут в своих сервисах.
+ * Кэш второго уровня hibernate-micrometer показывает только по регионам, а регионов пока нет -
+ * общий счетчик попаданий нужен, чтобы включение кэша было видно на тех же графиках.
+ * Статистика Hibernate собирается только в профиле metrics; без нее счетчики не регистрируются.
+ */
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    MeterBinder secondLevelCacheMetrics(EntityManagerFactory entityManagerFactory) {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        if (!statistics.isStatisticsEnabled()) {
+            return registry -> { };
+        }
+        return registry -> {
+            FunctionCounter.builder("hibernate.l2.cache.requests", statistics, Statistics::getSecondLevelCacheHitCount)
+                .description("Second-level cache lookups across all regions")
+                .tag("result", "hit")
+                .register(registry);
+            FunctionCounter.builder("hibernate.l2.cache.requests", statistics, Statistics::getSecondLevelCacheMissCount)
+                .description("Second-level cache lookups across all regions")
+                .tag("result", "miss")
+                .register(registry);
+            FunctionCounter.builder("hibernate.l2.cache.puts", statistics, Statistics::getSecondLevelCachePutCount)
+                .description("Entries put into the second-level cache")
+                .register(registry);
+        };
+    }
+}
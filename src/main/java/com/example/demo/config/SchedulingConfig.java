@@ -0,0 +1,10 @@
+package com.example.demo.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+// Фоновые задачи: сверка журнала энергопотребления и т.п.
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -9,13 +9,19 @@ import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
 import org.springframework.security.config.http.SessionCreationPolicy;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
+import org.springframework.security.web.servlet.util.matcher.PathPatternRequestMatcher;
+import org.springframework.security.web.util.matcher.AndRequestMatcher;
+import org.springframework.security.web.util.matcher.DispatcherTypeRequestMatcher;
+import org.springframework.security.web.util.matcher.RequestMatcher;
 import com.example.demo.service.UserService;
 import com.example.demo.jwt.JwtAuthEntryPoint;
 import com.example.demo.jwt.JwtAuthFilter;
+import com.example.demo.ratelimit.RateLimitFilter;
+import com.example.demo.capture.RequestCaptureFilter;
+
+import jakarta.servlet.DispatcherType;
 
 import lombok.RequiredArgsConstructor;
 
@@ -30,9 +36,17 @@ public class SecurityConfig {
         "/api/auth/**", "/api/users/create-first", "/test/**"
     }; 
 
+    private static final RequestMatcher DEVICE_STREAM_ASYNC = new AndRequestMatcher(
+        new DispatcherTypeRequestMatcher(DispatcherType.ASYNC),
+        PathPatternRequestMatcher.withDefaults().matcher(HttpMethod.GET, "/api/devices/stream"));
+
     private final JwtAuthFilter jFilter;
     private final JwtAuthEntryPoint jPoint;
+    private final RateLimitFilter rateLimitFilter;
+    private final RequestCaptureFilter requestCaptureFilter;
 
+    // Провайдер собирается из бинов: PasswordEncoder - PasswordHashingService,
+    // UserDetailsPasswordService - UserDetailsServiceImpl (пересчет устаревшего хеша при входе)
     @Bean
     AuthenticationManager authenticationManager(AuthenticationConfiguration configuration) throws Exception {
         return configuration.getAuthenticationManager(); 
@@ -44,6 +58,11 @@ public class SecurityConfig {
         httpSecurity.authorizeHttpRequests(authorize -> {
             // ✅ ПУБЛИЧНЫЕ ЭНДПОИНТЫ (без авторизации):
             authorize.requestMatchers(ALLOWED_URLS).permitAll();
+            // Проверка живости - без токена
+            authorize.requestMatchers(HttpMethod.GET, "/actuator/health").permitAll();
+            // Завершение SSE-потока - повторная диспетчеризация уже проверенного запроса; JwtAuthFilter
+            // в ней не выполняется, поэтому разрешение только для этого пути, а не для всех ASYNC
+            authorize.requestMatchers(DEVICE_STREAM_ASYNC).permitAll();
             
             // ✅ ПРАВА ДОСТУПА:
             // Devices - USER может только читать, ADMIN - все
@@ -69,6 +88,13 @@ public class SecurityConfig {
             // Users - только админ (кроме /create-first)
             authorize.requestMatchers("/api/users/**").hasAuthority("USER:WRITE");
             
+            // Захват запросов для нагрузочного стенда - только админ
+            authorize.requestMatchers("/api/capture/**").hasAuthority("USER:WRITE");
+            
+            // Метрики (задержки маршрутов, счетчики, внутренности Hikari и Hibernate) - только админ,
+            // сборщик Prometheus передает токен в Authorization: Bearer
+            authorize.requestMatchers(HttpMethod.GET, "/actuator/prometheus").hasAuthority("USER:WRITE");
+            
             // Mode rules - только админ
             authorize.requestMatchers("/api/mode-rules/**").hasAuthority("DEVICE:WRITE");
             
@@ -89,6 +115,10 @@ public class SecurityConfig {
         ));
         httpSecurity.exceptionHandling(exception -> exception.authenticationEntryPoint(jPoint));
         httpSecurity.addFilterBefore(jFilter, UsernamePasswordAuthenticationFilter.class);
+        // После JwtAuthFilter: лимит считается по пользователю, а для входа - по IP
+        httpSecurity.addFilterAfter(rateLimitFilter, JwtAuthFilter.class);
+        // После RateLimitFilter: в захват попадают и пользователь, и отказы 429
+        httpSecurity.addFilterAfter(requestCaptureFilter, RateLimitFilter.class);
         
         // Разрешаем фреймы для H2 Console
         httpSecurity.headers(headers -> headers
@@ -97,9 +127,4 @@ public class SecurityConfig {
         
         return httpSecurity.build();
     }
-
-    @Bean
-    static PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
-    }
 }
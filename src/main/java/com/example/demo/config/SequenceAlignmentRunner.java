@@ -0,0 +1,93 @@
+package com.example.demo.config;
+
+import java.lang.reflect.Field;
+
+import org.hibernate.dialect.Dialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Id;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.metamodel.EntityType;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Перевод существующей базы с IDENTITY на последовательности.
+ * Таблицы уже содержат id, выданные автоинкрементом, а новые последовательности начинаются с 1,
+ * поэтому до первой вставки каждую последовательность сдвигаем за максимальный id ее таблицы.
+ * Для пустой или уже согласованной базы ничего не меняется.
+ */
+@Slf4j
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class SequenceAlignmentRunner implements ApplicationRunner {
+    private static final Logger logger = LoggerFactory.getLogger(SequenceAlignmentRunner.class);
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final TransactionTemplate transactionTemplate;
+
+    public SequenceAlignmentRunner(TransactionTemplate transactionTemplate) {
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    // Выполняется раньше DemoApplication.run, который создает начальные данные
+    @Override
+    public void run(ApplicationArguments args) {
+        Dialect dialect = entityManager.getEntityManagerFactory()
+            .unwrap(SessionFactoryImplementor.class)
+            .getJdbcServices()
+            .getDialect();
+        for (EntityType<?> entity : entityManager.getMetamodel().getEntities()) {
+            SequenceGenerator generator = findSequenceGenerator(entity.getJavaType());
+            if (generator != null) {
+                transactionTemplate.executeWithoutResult(status -> align(entity, generator, dialect));
+            }
+        }
+    }
+
+    private void align(EntityType<?> entity, SequenceGenerator generator, Dialect dialect) {
+        Number maxId = (Number) entityManager
+            .createQuery("SELECT MAX(e.id) FROM " + entity.getName() + " e")
+            .getSingleResult();
+        if (maxId == null) {
+            return;
+        }
+        String sequence = generator.sequenceName();
+        int allocationSize = generator.allocationSize();
+        // pooled-оптимизатор считает значение последовательности верхней границей выданного блока
+        long next = ((Number) entityManager
+            .createNativeQuery(dialect.getSequenceSupport().getSequenceNextValString(sequence))
+            .getSingleResult()).longValue();
+        if (next - allocationSize + 1 > maxId.longValue()) {
+            return;
+        }
+        long restartWith = maxId.longValue() + allocationSize;
+        entityManager.createNativeQuery("ALTER SEQUENCE " + sequence + " RESTART WITH " + restartWith)
+            .executeUpdate();
+        logger.info("Sequence {} moved past max id {} of {} (restart with {})",
+            sequence, maxId, entity.getName(), restartWith);
+    }
+
+    private static SequenceGenerator findSequenceGenerator(Class<?> type) {
+        for (Class<?> current = type; current != null; current = current.getSuperclass()) {
+            for (Field field : current.getDeclaredFields()) {
+                if (field.isAnnotationPresent(Id.class)) {
+                    return field.getAnnotation(SequenceGenerator.class);
+                }
+            }
+        }
+        return null;
+    }
+}
@@ -72,6 +72,10 @@ public class AuthenticationController {
             responseCode = "401",
             description = "Неверный или просроченный токен"
         ),
+        @ApiResponse(
+            responseCode = "503",
+            description = "Очередь проверки паролей заполнена, повторите после Retry-After"
+        ),
         @ApiResponse(
             responseCode = "500",
             description = "Внутренняя ошибка сервера"
@@ -221,6 +225,10 @@ public class AuthenticationController {
         @ApiResponse(
             responseCode = "403",
             description = "Недостаточно прав для выполнения операции"
+        ),
+        @ApiResponse(
+            responseCode = "503",
+            description = "Очередь хеширования паролей заполнена, повторите после Retry-After"
         )
     })
     @PostMapping("/change-password")
@@ -0,0 +1,181 @@
+package com.example.demo.controller;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.example.demo.capture.RequestCaptureService;
+import com.example.demo.dto.CaptureStatusDto;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+@RestController
+@RequestMapping("/api/capture")
+@Tag(name = "capture-controller", description = """
+    Захват рабочих запросов в requests.jsonl для воспроизведения нагрузочным стендом (LoadHarness replay=).
+    """)
+public class CaptureController {
+    private static final Logger logger = LoggerFactory.getLogger(CaptureController.class);
+    private final RequestCaptureService captureService;
+
+    public CaptureController(RequestCaptureService captureService) {
+        this.captureService = captureService;
+    }
+
+    @Operation(
+        summary = "Начать захват запросов",
+        description = """
+            Начинает сеанс записи запросов к /api/** в файлы captures/requests-<сеанс>-<часть>.jsonl.gz.
+
+            ### Что записывается:
+            - метод, путь с параметрами, тело (для импорта CSV - содержимое файла), пользователь
+            - смещение от начала сеанса, код ответа и время обработки
+            - тела /api/auth/** (пароли) не записываются; тела больше 64 КБ записываются как null
+
+            ### Ограничения:
+            - сеанс завершается сам через **seconds** секунд (не больше 3600)
+            - **sampleRate** - доля записываемых запросов, от 0 (не включая) до 1
+            - запись не блокирует запросы: при переполнении буфера записи теряются (счетчик dropped)
+
+            ### Права доступа:
+            - Требуется право `USER:WRITE`
+            """,
+        tags = {"capture-controller", "admin-operations"}
+    )
+    @ApiResponses(value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Сеанс начат",
+            content = @Content(
+                mediaType = "application/json",
+                schema = @Schema(implementation = CaptureStatusDto.class)
+            )
+        ),
+        @ApiResponse(
+            responseCode = "400",
+            description = "Недопустимые seconds или sampleRate"
+        ),
+        @ApiResponse(
+            responseCode = "401",
+            description = "Пользователь не аутентифицирован"
+        ),
+        @ApiResponse(
+            responseCode = "403",
+            description = "Недостаточно прав (требуется право USER:WRITE)"
+        ),
+        @ApiResponse(
+            responseCode = "409",
+            description = "Сеанс захвата уже идет"
+        )
+    })
+    @PostMapping("/start")
+    public ResponseEntity<CaptureStatusDto> startCapture(
+            @Parameter(description = "Длительность сеанса в секундах (1-3600)", example = "300")
+            @RequestParam(defaultValue = "300") int seconds,
+
+            @Parameter(description = "Доля записываемых запросов (0-1]", example = "1.0")
+            @RequestParam(defaultValue = "1.0") double sampleRate) {
+
+        logger.debug("POST /api/capture/start - {} s, sample rate {}", seconds, sampleRate);
+        try {
+            return ResponseEntity.ok(captureService.start(seconds, sampleRate));
+        } catch (IllegalArgumentException e) {
+            logger.debug("Capture not started: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        } catch (IllegalStateException e) {
+            logger.debug("Capture not started: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(captureService.status());
+        }
+    }
+
+    @Operation(
+        summary = "Остановить захват запросов",
+        description = """
+            Завершает текущий сеанс досрочно. Записи, уже лежащие в буфере, дописываются в файл,
+            после чего файл закрывается и становится читаемым.
+
+            ### Права доступа:
+            - Требуется право `USER:WRITE`
+            """,
+        tags = {"capture-controller", "admin-operations"}
+    )
+    @ApiResponses(value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Сеанс остановлен (или не был запущен)",
+            content = @Content(
+                mediaType = "application/json",
+                schema = @Schema(implementation = CaptureStatusDto.class)
+            )
+        ),
+        @ApiResponse(
+            responseCode = "401",
+            description = "Пользователь не аутентифицирован"
+        ),
+        @ApiResponse(
+            responseCode = "403",
+            description = "Недостаточно прав (требуется право USER:WRITE)"
+        )
+    })
+    @PostMapping("/stop")
+    public ResponseEntity<CaptureStatusDto> stopCapture() {
+        logger.debug("POST /api/capture/stop");
+        return ResponseEntity.ok(captureService.stop());
+    }
+
+    @Operation(
+        summary = "Состояние захвата запросов",
+        description = """
+            Возвращает состояние последнего сеанса захвата.
+
+            ### Возвращаемая информация:
+            - **active** - идет ли запись сейчас
+            - **sessionId / startedAt / endsAt / sampleRate** - параметры сеанса
+            - **captured** - записей принято в буфер
+            - **dropped** - записей потеряно из-за переполнения буфера
+            - **written** - записей выгружено в файлы
+            - **files** - файлы сеанса
+
+            ### Права доступа:
+            - Требуется право `USER:WRITE`
+            """,
+        tags = {"capture-controller", "admin-operations"}
+    )
+    @ApiResponses(value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Состояние успешно получено",
+            content = @Content(
+                mediaType = "application/json",
+                schema = @Schema(implementation = CaptureStatusDto.class)
+            )
+        ),
+        @ApiResponse(
+            responseCode = "401",
+            description = "Пользователь не аутентифицирован"
+        ),
+        @ApiResponse(
+            responseCode = "403",
+            description = "Недостаточно прав (требуется право USER:WRITE)"
+        )
+    })
+    @GetMapping("/status")
+    public ResponseEntity<CaptureStatusDto> captureStatus() {
+        logger.debug("GET /api/capture/status");
+        return ResponseEntity.ok(captureService.status());
+    }
+}
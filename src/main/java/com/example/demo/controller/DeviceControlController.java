@@ -7,6 +7,7 @@ import lombok.extern.slf4j.Slf4j;
 
 import com.example.demo.dto.DeviceResponseDto;
 import com.example.demo.dto.DeviceToggleDto;
+import com.example.demo.dto.PowerBreakdownDto;
 import com.example.demo.mapper.DeviceMapper;
 import com.example.demo.model.Device;
 import com.example.demo.model.DeviceType;
@@ -256,16 +257,15 @@ public class DeviceControlController {
             Рассчитывает суммарное энергопотребление всех активных устройств.
             
             ### Метод расчета:
-            1. Получает список всех активных устройств
-            2. Суммирует их текущую потребляемую мощность
-            3. При необходимости конвертирует единицы измерения
-            4. Возвращает общее значение в ваттах (Вт)
+            1. Берет сумму мощности активных устройств из журнала энергопотребления
+            2. Журнал обновляется при каждом изменении устройства и не читает таблицу на запрос
+            3. Возвращает общее значение в ваттах (Вт)
             
             ### Учет потребления:
             - Учитываются только активные (включенные) устройства
             - Мощность берется из настроек каждого устройства
             - Для некоторых устройств мощность может динамически меняться
-            - Результат кэшируется на короткое время для производительности
+            - Сумма ведется в журнале энергопотребления в памяти и сверяется с БД по расписанию
             
             ### Пример использования:
             - Мониторинг энергопотребления дома/офиса
@@ -302,6 +302,40 @@ public class DeviceControlController {
         return ResponseEntity.ok(Map.of("totalPower", totalPower));
     }
 
+    @Operation(
+        summary = "Энергопотребление в разрезе комнат, типов и менеджеров",
+        description = """
+            Возвращает суммарную мощность активных устройств и ее разбивку.
+            
+            ### Разрезы:
+            - **byRoom** - по идентификатору комнаты
+            - **byType** - по типу устройства
+            - **byManager** - по идентификатору менеджера комнаты
+            
+            Данные берутся из журнала энергопотребления в памяти, запрос не читает таблицу устройств.
+            """,
+        tags = {"device-control-controller", "monitoring"}
+    )
+    @ApiResponses(value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Разбивка энергопотребления успешно получена",
+            content = @Content(
+                mediaType = "application/json",
+                schema = @Schema(implementation = PowerBreakdownDto.class)
+            )
+        ),
+        @ApiResponse(
+            responseCode = "401",
+            description = "Пользователь не аутентифицирован"
+        )
+    })
+    @GetMapping("/power/breakdown")
+    public ResponseEntity<PowerBreakdownDto> getPowerBreakdown() {
+        logger.debug("GET /api/control/power/breakdown");
+        return ResponseEntity.ok(deviceControlService.getPowerBreakdown());
+    }
+
     @Operation(
         summary = "Групповое управление устройствами по типу",
         description = """
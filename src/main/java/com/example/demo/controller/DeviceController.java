@@ -1,6 +1,7 @@
 package com.example.demo.controller;
 
 import com.example.demo.dto.CsvImportDto;
+import com.example.demo.dto.CursorPage;
 import com.example.demo.dto.DeviceRequestDto;
 import com.example.demo.dto.DeviceResponseDto;
 import com.example.demo.mapper.DeviceMapper;
@@ -8,22 +9,21 @@ import com.example.demo.model.Device;
 import com.example.demo.model.DeviceType;
 import com.example.demo.model.Room;
 import com.example.demo.model.User;
-import com.example.demo.repository.DeviceRepository;
-import com.example.demo.service.CsvParserUtil;
+import com.example.demo.service.CsvImportService;
+import com.example.demo.service.DeviceEventService;
 import com.example.demo.service.DeviceService;
 import com.example.demo.service.RoomService;
 import com.example.demo.service.UserService;
 
 import lombok.extern.slf4j.Slf4j;
 
-import java.util.ArrayList;
 import java.util.List;
 
-import org.apache.commons.csv.CSVRecord;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.web.PageableDefault;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
@@ -31,6 +31,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -53,17 +54,17 @@ public class DeviceController {
     private static final Logger logger = LoggerFactory.getLogger(DeviceController.class);
     private final DeviceService deviceService;
     private final UserService userService;
-    private final DeviceRepository deviceRepository;
     private final RoomService roomService;
-    private final CsvParserUtil csvParserUtil;
+    private final CsvImportService csvImportService;
+    private final DeviceEventService deviceEventService;
     
     public DeviceController(DeviceService deviceService, UserService userService, 
-    DeviceRepository deviceRepository, RoomService roomService, CsvParserUtil csvParserUtil) {
+    RoomService roomService, CsvImportService csvImportService, DeviceEventService deviceEventService) {
         this.deviceService = deviceService;
         this.userService = userService;
-        this.deviceRepository = deviceRepository;
         this.roomService = roomService;
-        this.csvParserUtil = csvParserUtil;
+        this.csvImportService = csvImportService;
+        this.deviceEventService = deviceEventService;
     }
     
     @Operation(
@@ -157,20 +158,162 @@ public class DeviceController {
 
         String username = authentication.getName();
         User user = userService.getUserByUsername(username);
+        Long managerId = user.getRole().getName().equals("USER") ? user.getId() : null;
         
-        Page<Device> devices;
-        
-        if (user.getRole().getName().equals("USER")) {
-            devices = deviceService.getDevicesByUserRoomsWithFilter(
-                user.getId(), title, type, minPower, maxPower, active, pageable);
-        } else {
-            devices = deviceRepository.findAll(pageable);
-        }
+        Page<Device> devices = deviceService.getDevicesByFilter(
+            managerId, title, type, minPower, maxPower, active, pageable);
         
         Page<DeviceResponseDto> deviceDtos = devices.map(DeviceMapper::toDto);
         return ResponseEntity.ok(deviceDtos);
     }
     
+    @Operation(
+        summary = "Получить устройства курсорной (keyset) пагинацией",
+        description = """
+            Возвращает страницу устройств без подсчета общего количества и без OFFSET.
+            Следующая страница запрашивается по непрозрачному курсору **after** из предыдущего ответа,
+            поэтому время ответа не растет при проходе по всему списку устройств.
+            
+            ### Параметры:
+            - **sort** - ключ сортировки: title (по умолчанию), power, id; при равенстве ключа порядок по id
+            - **direction** - ASC (по умолчанию) или DESC
+            - **after** - курсор nextCursor из предыдущей страницы (для первой страницы не указывается)
+            - **size** - размер страницы (по умолчанию 20, максимум 200)
+            - Фильтры title, type, minPower, maxPower, active - как в `/api/devices`
+            
+            ### Права доступа:
+            - **USER**: видит только устройства в своих комнатах
+            - **ADMIN**: видит все устройства системы
+            
+            ### Пример:
+            1. `/api/devices/seek?sort=power&size=50`
+            2. `/api/devices/seek?sort=power&size=50&after=<nextCursor>` - пока hasNext = true
+            """,
+        tags = {"device-management-controller", "read-operations"}
+    )
+    @ApiResponses(value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Страница устройств успешно получена",
+            content = @Content(
+                mediaType = "application/json",
+                schema = @Schema(implementation = CursorPage.class)
+            )
+        ),
+        @ApiResponse(
+            responseCode = "400",
+            description = "Неизвестный ключ сортировки или некорректный курсор"
+        ),
+        @ApiResponse(
+            responseCode = "401",
+            description = "Пользователь не аутентифицирован"
+        )
+    })
+    @GetMapping("/seek")
+    public ResponseEntity<CursorPage<DeviceResponseDto>> seekDevices(
+            @Parameter(description = "Название устройства (частичное совпадение)", example = "свет")
+            @RequestParam(required = false) String title,
+            
+            @Parameter(description = "Тип устройства", schema = @Schema(implementation = DeviceType.class))
+            @RequestParam(required = false) DeviceType type,
+            
+            @Parameter(description = "Минимальная мощность (Вт)", example = "100.0")
+            @RequestParam(required = false) Double minPower,
+            
+            @Parameter(description = "Максимальная мощность (Вт)", example = "1000.0")
+            @RequestParam(required = false) Double maxPower,
+            
+            @Parameter(description = "Статус активности", example = "true")
+            @RequestParam(required = false) Boolean active,
+            
+            @Parameter(description = "Ключ сортировки: title, power, id", example = "title")
+            @RequestParam(defaultValue = "title") String sort,
+            
+            @Parameter(description = "Направление сортировки", example = "ASC")
+            @RequestParam(defaultValue = "ASC") Sort.Direction direction,
+            
+            @Parameter(description = "Курсор следующей страницы (nextCursor из предыдущего ответа)")
+            @RequestParam(required = false) String after,
+            
+            @Parameter(description = "Размер страницы", example = "20")
+            @RequestParam(required = false) Integer size,
+            
+            @Parameter(hidden = true)
+            Authentication authentication) {
+
+        logger.debug("GET /api/devices/seek");
+        User user = userService.getUserByUsername(authentication.getName());
+        Long managerId = user.getRole().getName().equals("USER") ? user.getId() : null;
+        try {
+            CursorPage<Device> devices = deviceService.seekDevices(
+                managerId, title, type, minPower, maxPower, active, sort, direction, after, size);
+            return ResponseEntity.ok(devices.map(DeviceMapper::toDto));
+        } catch (IllegalArgumentException e) {
+            logger.warn("Invalid seek request: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+    }
+    
+    @Operation(
+        summary = "Поток изменений устройств (Server-Sent Events)",
+        description = """
+            Открывает поток событий text/event-stream вместо периодического опроса списков устройств.
+            Событие приходит после каждого изменения, выполненного через сервисы устройств:
+            создание, обновление, включение/выключение, удаление, массовые переключения
+            (режимы, правила режимов, /api/control) и управление по температуре.
+            
+            ### События (поле event):
+            - **created**, **updated** - id, title, deviceType, power, active, roomId устройства
+            - **deleted** - deviceId и roomId удаленного устройства
+            - **bulk** - active и deviceIds (не более 1000 id в одном событии)
+            - **resync** - часть событий потеряна (буфер повтора переполнен или сервер перезапущен),
+              клиенту нужно перечитать состояние через `/api/devices` или `/api/devices/seek`
+            
+            ### Переподключение:
+            У каждого события есть id. Браузерный EventSource при обрыве сам переподключается
+            с заголовком **Last-Event-ID** и получает пропущенные события из буфера последних 1024 событий.
+            
+            ### Права доступа:
+            - **USER**: получает события только по устройствам в своих комнатах
+            - **ADMIN**: получает события по всем устройствам
+            """,
+        tags = {"device-management-controller", "read-operations"}
+    )
+    @ApiResponses(value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Поток событий открыт",
+            content = @Content(
+                mediaType = "text/event-stream",
+                examples = @ExampleObject(
+                    name = "Пример события",
+                    value = """
+                        id:42
+                        event:updated
+                        data:{"type":"updated","deviceId":5,"title":"Лампа","deviceType":"LIGHT","power":0.06,"active":true,"roomId":1}
+                        """
+                )
+            )
+        ),
+        @ApiResponse(
+            responseCode = "401",
+            description = "Пользователь не аутентифицирован"
+        )
+    })
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamDeviceEvents(
+            @Parameter(in = ParameterIn.HEADER, description = "Id последнего полученного события", example = "42")
+            @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId,
+            
+            @Parameter(hidden = true)
+            Authentication authentication) {
+
+        logger.debug("GET /api/devices/stream, Last-Event-ID: {}", lastEventId);
+        User user = userService.getUserByUsername(authentication.getName());
+        Long managerId = user.getRole().getName().equals("USER") ? user.getId() : null;
+        return deviceEventService.subscribe(managerId, lastEventId);
+    }
+    
     @Operation(
         summary = "Получить устройство по ID",
         description = """
@@ -524,13 +667,15 @@ public class DeviceController {
             
             ### Обработка ошибок:
             - Валидация каждой строки CSV
+            - Файл читается потоково, строки сохраняются порциями по batchSize в отдельных транзакциях
+            - Если порция не сохранилась, она повторяется построчно с указанием номеров ошибочных строк
             - Продолжение импорта после ошибок
             - Детальный отчет об успешных и неуспешных операциях
             - Поддержка частичного импорта
             
             ### Лимиты:
-            - Максимальный размер файла: 10MB
-            - Максимальное количество строк: 1000
+            - Максимальный размер файла: 256MB
+            - В отчет попадают первые 1000 ошибок, errorCount учитывает все
             - Поддерживаемые форматы: .csv, text/csv
             
             ### Возвращаемый отчет:
@@ -584,7 +729,7 @@ public class DeviceController {
         ),
         @ApiResponse(
             responseCode = "413",
-            description = "Файл слишком большой (> 10MB)"
+            description = "Файл слишком большой (> 256MB)"
         ),
         @ApiResponse(
             responseCode = "415",
@@ -600,6 +745,12 @@ public class DeviceController {
             )
             @RequestParam("file") MultipartFile file,
             
+            @Parameter(
+                description = "Количество строк в одной транзакции (по умолчанию 500, максимум 5000)",
+                example = "500"
+            )
+            @RequestParam(required = false) Integer batchSize,
+            
             @Parameter(hidden = true)
             Authentication authentication) {
         
@@ -612,45 +763,7 @@ public class DeviceController {
         }
 
         try {
-            CsvParserUtil.CsvParseResult<Device> parseResult = csvParserUtil.parseCsvFile(
-                file, this::mapCsvRecordToDevice
-            );
-
-            List<Device> savedDevices = new ArrayList<>();
-            List<String> saveErrors = new ArrayList<>(parseResult.getErrors());
-
-            for (int i = 0; i < parseResult.getRecords().size(); i++) {
-                try {
-                    Device device = parseResult.getRecords().get(i);
-                    Device savedDevice = deviceService.createDevice(device);
-                    savedDevices.add(savedDevice);
-                } catch (Exception e) {
-                    String error = String.format("Device %d '%s': %s", 
-                        i + 1, parseResult.getRecords().get(i).getTitle(), e.getMessage());
-                    saveErrors.add(error);
-                }
-            }
-
-            boolean hasErrors = !saveErrors.isEmpty() || parseResult.isHasErrors();
-            
-            if (hasErrors) {
-                return ResponseEntity.ok(new CsvImportDto(
-                    "Import completed with errors",
-                    savedDevices.size(),
-                    saveErrors.size(),
-                    saveErrors,
-                    true
-                ));
-            } else {
-                return ResponseEntity.ok(new CsvImportDto(
-                    "Import completed successfully",
-                    savedDevices.size(),
-                    0,
-                    List.of(),
-                    false
-                ));
-            }
-
+            return ResponseEntity.ok(csvImportService.importDevices(file, batchSize));
         } catch (Exception e) {
             log.error("CSV import failed: {}", e.getMessage());
             return ResponseEntity.internalServerError().body(new CsvImportDto(
@@ -659,67 +772,6 @@ public class DeviceController {
         }
     }
 
-    private Device mapCsvRecordToDevice(CSVRecord record) {
-        String title = record.get("title");
-        String typeStr = record.get("type");
-        String powerStr = record.get("power");
-        String activeStr = record.get("active");
-        String roomBus = record.get("roomBus");
-
-        if (title == null || title.trim().isEmpty()) {
-            throw new IllegalArgumentException("Title is required");
-        }
-        if (typeStr == null || typeStr.trim().isEmpty()) {
-            throw new IllegalArgumentException("Type is required");
-        }
-
-        DeviceType type;
-        try {
-            type = DeviceType.valueOf(typeStr.trim().toUpperCase());
-        } catch (IllegalArgumentException e) {
-            throw new IllegalArgumentException("Invalid device type: " + typeStr);
-        }
-
-        double power = 0.0;
-        if (powerStr != null && !powerStr.trim().isEmpty()) {
-            try {
-                power = Double.parseDouble(powerStr.trim());
-                if (power < 0) {
-                    throw new IllegalArgumentException("Power cannot be negative");
-                }
-            } catch (NumberFormatException e) {
-                throw new IllegalArgumentException("Invalid power value: " + powerStr);
-            }
-        }
-
-        boolean active = false;
-        if (activeStr != null && !activeStr.trim().isEmpty()) {
-            String activeLower = activeStr.trim().toLowerCase();
-            if ("true".equals(activeLower) || "1".equals(activeLower) || "yes".equals(activeLower)) {
-                active = true;
-            } else if (!"false".equals(activeLower) && !"0".equals(activeLower) && !"no".equals(activeLower)) {
-                throw new IllegalArgumentException("Invalid active value: " + activeStr);
-            }
-        }
-
-        Device device = new Device();
-        device.setTitle(title.trim());
-        device.setType(type);
-        device.setPower(power);
-        device.setActive(active);
-
-        if (roomBus != null && !roomBus.trim().isEmpty()) {
-            List<Room> rooms = roomService.getRoomByBus(roomBus.trim());
-            if (!rooms.isEmpty()) {
-                device.setRoom(rooms.get(0));
-            } else {
-                throw new IllegalArgumentException("Room not found with bus: " + roomBus);
-            }
-        }
-
-        return device;
-    }
-
     private boolean isCsvFile(MultipartFile file) {
         String contentType = file.getContentType();
         String fileName = file.getOriginalFilename();
@@ -1,11 +1,11 @@
 package com.example.demo.controller;
 
+import com.example.demo.dto.FileDownloadDto;
 import com.example.demo.dto.FileUploadResponseDto;
 import com.example.demo.mapper.FileMapper;
 import com.example.demo.model.File;
 import com.example.demo.service.FileStorageService;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.core.io.ByteArrayResource;
 import org.springframework.core.io.Resource;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
@@ -69,15 +69,15 @@ public class FileUploadController {
         }
     }
 
+    // Range/206, If-None-Match/If-Modified-Since/304 и Content-Length обрабатывает Spring MVC
+    // по ETag и Last-Modified ответа, файл копируется в ответ потоком без загрузки в память
     @GetMapping("/{fileId}")
     public ResponseEntity<Resource> downloadFile(@PathVariable Long fileId) {
         log.debug("GET /api/files/{} - downloading file", fileId);
         
         try {
-            File file = fileStorageService.getFile(fileId);
-            byte[] fileContent = fileStorageService.loadFileAsBytes(fileId);
-            
-            ByteArrayResource resource = new ByteArrayResource(fileContent);
+            FileDownloadDto download = fileStorageService.openForDownload(fileId);
+            File file = download.file();
             
             //Content-Type правильный
             MediaType mediaType;
@@ -89,9 +89,11 @@ public class FileUploadController {
             
             return ResponseEntity.ok()
                     .contentType(mediaType)
+                    .eTag(download.eTag())
+                    .lastModified(download.lastModified())
                     .header(HttpHeaders.CONTENT_DISPOSITION, 
                         "attachment; filename=\"" + encodeFilename(file.getOriginalFileName()) + "\"")
-                    .body(resource);
+                    .body(download.resource());
                     
         } catch (IOException e) {
             log.error("Error downloading file: {}", e.getMessage());
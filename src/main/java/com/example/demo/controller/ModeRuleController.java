@@ -3,6 +3,7 @@ package com.example.demo.controller;
 import com.example.demo.model.ModeRule;
 import com.example.demo.model.ModeType;
 import com.example.demo.repository.ModeRuleRepository;
+import com.example.demo.service.ModeRuleCache;
 
 import lombok.extern.slf4j.Slf4j;
 
@@ -31,9 +32,11 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 public class ModeRuleController {
     private static final Logger logger = LoggerFactory.getLogger(ModeRuleController.class);
     private final ModeRuleRepository modeRuleRepository;
+    private final ModeRuleCache modeRuleCache;
 
-    public ModeRuleController(ModeRuleRepository modeRuleRepository) {
+    public ModeRuleController(ModeRuleRepository modeRuleRepository, ModeRuleCache modeRuleCache) {
         this.modeRuleRepository = modeRuleRepository;
+        this.modeRuleCache = modeRuleCache;
     }
 
     @Operation(
@@ -174,6 +177,7 @@ public class ModeRuleController {
         
         logger.debug("POST/api/mode-rules");
         ModeRule savedRule = modeRuleRepository.save(rule);
+        modeRuleCache.invalidate(savedRule.getModeType());
         return ResponseEntity.ok(savedRule);
     }
 
@@ -392,7 +396,10 @@ public class ModeRuleController {
                 existingRule.setMaxPower(ruleDetails.getMaxPower());
                 existingRule.setShouldBeActive(ruleDetails.getShouldBeActive());
                 existingRule.setPriority(ruleDetails.getPriority());
-                return ResponseEntity.ok(modeRuleRepository.save(existingRule));
+                ModeRule savedRule = modeRuleRepository.save(existingRule);
+                // правило могло перейти в другой режим
+                modeRuleCache.invalidateAll();
+                return ResponseEntity.ok(savedRule);
             })
             .orElse(ResponseEntity.notFound().build());
     }
@@ -461,6 +468,7 @@ public class ModeRuleController {
         logger.debug("DELETE/api/mode-rules/{}", id);
         if (modeRuleRepository.existsById(id)) {
             modeRuleRepository.deleteById(id);
+            modeRuleCache.invalidateAll();
             return ResponseEntity.noContent().build();
         } else {
             logger.warn("Rule with id {} not found", id);
@@ -2,19 +2,20 @@ package com.example.demo.controller;
 
 import com.example.demo.dto.RoomDto;
 import com.example.demo.dto.CsvImportDto;
+import com.example.demo.dto.CursorPage;
 import com.example.demo.dto.RoomCreateDto;
 import com.example.demo.mapper.RoomMapper;
 import com.example.demo.model.Room;
 import com.example.demo.model.User;
-import com.example.demo.service.CsvParserUtil;
+import com.example.demo.service.CsvImportService;
 import com.example.demo.service.RoomService;
 import com.example.demo.service.UserService;
 
 import lombok.extern.slf4j.Slf4j;
 
-import org.apache.commons.csv.CSVRecord;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
@@ -22,7 +23,6 @@ import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
-import java.util.ArrayList;
 import java.util.List;
 
 import io.swagger.v3.oas.annotations.Operation;
@@ -46,12 +46,12 @@ public class RoomController {
     private static final Logger logger = LoggerFactory.getLogger(RoomController.class);
     private final RoomService roomService;
     private final UserService userService;
-    private final CsvParserUtil csvParserUtil;
+    private final CsvImportService csvImportService;
 
-    public RoomController(RoomService roomService, UserService userService, CsvParserUtil csvParserUtil)  {
+    public RoomController(RoomService roomService, UserService userService, CsvImportService csvImportService)  {
         this.roomService = roomService;
         this.userService = userService;
-        this.csvParserUtil = csvParserUtil;
+        this.csvImportService = csvImportService;
     }
 
     @Operation(
@@ -151,18 +151,80 @@ public class RoomController {
         String username = authentication.getName();
         User user = userService.getUserByUsername(username);
         
-        List<Room> rooms;
         if (user.getRole().getName().equals("USER")) {
             logger.debug("GET /api/rooms - USER");
-            rooms = roomService.getRoomsByManager(user.getId());
-        } else {
-            logger.debug("GET /api/rooms - ADMIN");
-            rooms = roomService.getAllRooms();
+            return roomService.getRoomsByManager(user.getId());
         }
+        logger.debug("GET /api/rooms - ADMIN");
+        return roomService.getAllRooms();
+    }
+
+    @Operation(
+        summary = "Получить комнаты курсорной (keyset) пагинацией",
+        description = """
+            Возвращает страницу комнат без подсчета общего количества и без OFFSET.
+            В отличие от `/api/rooms` список ограничен размером страницы.
+            
+            ### Параметры:
+            - **bus** - поиск по названию комнаты (регистронезависимый, частичное совпадение)
+            - **sort** - ключ сортировки: id (по умолчанию) или bus; при равенстве ключа порядок по id
+            - **direction** - ASC (по умолчанию) или DESC
+            - **after** - курсор nextCursor из предыдущей страницы (для первой страницы не указывается)
+            - **size** - размер страницы (по умолчанию 20, максимум 200)
+            
+            ### Права доступа:
+            - **USER**: видит только комнаты, где он менеджер
+            - **ADMIN**: видит все комнаты
+            """,
+        tags = {"room-controller", "read-operations"}
+    )
+    @ApiResponses(value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Страница комнат успешно получена",
+            content = @Content(
+                mediaType = "application/json",
+                schema = @Schema(implementation = CursorPage.class)
+            )
+        ),
+        @ApiResponse(
+            responseCode = "400",
+            description = "Неизвестный ключ сортировки или некорректный курсор"
+        ),
+        @ApiResponse(
+            responseCode = "401",
+            description = "Пользователь не аутентифицирован"
+        )
+    })
+    @GetMapping("/seek")
+    public ResponseEntity<CursorPage<RoomDto>> seekRooms(
+            @Parameter(description = "Часть названия комнаты (bus)", example = "KAM")
+            @RequestParam(required = false) String bus,
+            
+            @Parameter(description = "Ключ сортировки: id, bus", example = "id")
+            @RequestParam(defaultValue = "id") String sort,
+            
+            @Parameter(description = "Направление сортировки", example = "ASC")
+            @RequestParam(defaultValue = "ASC") Sort.Direction direction,
+            
+            @Parameter(description = "Курсор следующей страницы (nextCursor из предыдущего ответа)")
+            @RequestParam(required = false) String after,
+            
+            @Parameter(description = "Размер страницы", example = "20")
+            @RequestParam(required = false) Integer size,
+            
+            @Parameter(hidden = true)
+            Authentication authentication) {
         
-        return rooms.stream()
-                .map(RoomMapper::toDto)
-                .toList();
+        logger.debug("GET /api/rooms/seek");
+        User user = userService.getUserByUsername(authentication.getName());
+        Long managerId = user.getRole().getName().equals("USER") ? user.getId() : null;
+        try {
+            return ResponseEntity.ok(roomService.seekRooms(managerId, bus, sort, direction, after, size));
+        } catch (IllegalArgumentException e) {
+            logger.warn("Invalid seek request: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
     }
 
     @Operation(
@@ -651,8 +713,9 @@ public class RoomController {
             ```
             
             ### Ограничения:
-            - Максимальный размер файла: 5MB
-            - Максимальное количество строк: 500
+            - Максимальный размер файла: 256MB
+            - Файл читается потоково, строки сохраняются порциями по batchSize в отдельных транзакциях
+            - В отчет попадают первые 1000 ошибок, errorCount учитывает все
             - Формат файла: только .csv
             - Кодировка: UTF-8
             """,
@@ -677,7 +740,7 @@ public class RoomController {
         ),
         @ApiResponse(
             responseCode = "413",
-            description = "Файл слишком большой (> 5MB)"
+            description = "Файл слишком большой (> 256MB)"
         ),
         @ApiResponse(
             responseCode = "415",
@@ -693,6 +756,12 @@ public class RoomController {
             )
             @RequestParam("file") MultipartFile file,
             
+            @Parameter(
+                description = "Количество строк в одной транзакции (по умолчанию 500, максимум 5000)",
+                example = "500"
+            )
+            @RequestParam(required = false) Integer batchSize,
+            
             @Parameter(hidden = true)
             Authentication authentication) {
         
@@ -707,36 +776,7 @@ public class RoomController {
         try {
             String username = authentication.getName();
             User currentUser = userService.getUserByUsername(username);
-
-            CsvParserUtil.CsvParseResult<Room> parseResult = csvParserUtil.parseCsvFile(
-                file, record -> mapCsvRecordToRoom(record, currentUser)
-            );
-
-            List<Room> savedRooms = new ArrayList<>();
-            List<String> saveErrors = new ArrayList<>(parseResult.getErrors());
-
-            for (int i = 0; i < parseResult.getRecords().size(); i++) {
-                try {
-                    Room room = parseResult.getRecords().get(i);
-                    Room savedRoom = roomService.createRoom(room);
-                    savedRooms.add(savedRoom);
-                } catch (Exception e) {
-                    String error = String.format("Room %d '%s': %s", 
-                        i + 1, parseResult.getRecords().get(i).getBus(), e.getMessage());
-                    saveErrors.add(error);
-                }
-            }
-
-            boolean hasErrors = !saveErrors.isEmpty() || parseResult.isHasErrors();
-            
-            return ResponseEntity.ok(new CsvImportDto(
-                hasErrors ? "Import completed with errors" : "Import completed successfully",
-                savedRooms.size(),
-                saveErrors.size(),
-                saveErrors,
-                hasErrors
-            ));
-
+            return ResponseEntity.ok(csvImportService.importRooms(file, currentUser, batchSize));
         } catch (Exception e) {
             log.error("CSV import failed: {}", e.getMessage());
             return ResponseEntity.internalServerError().body(new CsvImportDto(
@@ -745,31 +785,6 @@ public class RoomController {
         }
     }
 
-    private Room mapCsvRecordToRoom(CSVRecord record, User currentUser) {
-        String bus = record.get("bus");
-        String managerUsername = record.get("managerUsername");
-
-        if (bus == null || bus.trim().isEmpty()) {
-            throw new IllegalArgumentException("Location is required");
-        }
-
-        Room room = new Room();
-        room.setBus(bus.trim());
-
-        if (managerUsername != null && !managerUsername.trim().isEmpty()) {
-            User manager = userService.getUserByUsername(managerUsername.trim());
-            if (manager != null) {
-                room.setManager(manager);
-            } else {
-                throw new IllegalArgumentException("Manager not found: " + managerUsername);
-            }
-        } else {
-            room.setManager(currentUser);
-        }
-
-        return room;
-    }
-
     private boolean isCsvFile(MultipartFile file) {
         String contentType = file.getContentType();
         String fileName = file.getOriginalFilename();
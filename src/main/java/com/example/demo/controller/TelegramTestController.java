@@ -2,11 +2,17 @@ package com.example.demo.controller;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RestController;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 
+import com.example.demo.dto.TelegramAlertStatsDto;
+import com.example.demo.loggingTele.TelegramAppender;
+
+import ch.qos.logback.classic.LoggerContext;
+
 
 @RestController
 @Tag(name = "telegram-controller", description = "Контроллер для работы с телеграмм ботом")
@@ -108,4 +114,31 @@ public class TelegramTestController {
         log.debug("🔍 Тестовое отладочное сообщение");
         return "Отладочное сообщение отправлено";
     }
-}
\ No newline at end of file
+
+    @Operation(
+        summary = "Статистика отправки в Telegram",
+        description = """
+            Возвращает счетчики TelegramAppender.
+            
+            ### Поля:
+            - **received** - принято событий WARN/ERROR
+            - **coalesced** - событий, склеенных с уже ожидающим таким же сообщением ("N× repeated")
+            - **dropped** - событий потеряно: очередь ожидающих заполнена или отправка не удалась
+            - **sent** / **eventsSent** - отправлено сообщений Telegram и событий в них
+            - **failed** - неудачных запросов к Telegram API
+            - **pending** - различных сообщений ждут отправки
+            - **circuit** - состояние circuit breaker: CLOSED, OPEN (отправка приостановлена) или HALF_OPEN
+            
+            Если appender TELEGRAM не подключен в logback-spring.xml, возвращается 404.
+            """,
+        tags = {"telegram-controller"}
+    )
+    @GetMapping("/test/telegram-stats")
+    public ResponseEntity<TelegramAlertStatsDto> telegramStats() {
+        LoggerContext context = (LoggerContext) LoggerFactory.getILoggerFactory();
+        if (context.getLogger(Logger.ROOT_LOGGER_NAME).getAppender("TELEGRAM") instanceof TelegramAppender appender) {
+            return ResponseEntity.ok(appender.stats());
+        }
+        return ResponseEntity.notFound().build();
+    }
+}
@@ -16,8 +16,11 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.example.demo.dto.CacheStatsDto;
+import com.example.demo.dto.HashingStatsDto;
 import com.example.demo.dto.UserCreateDto;
 import com.example.demo.dto.UserResponseDto;
+import com.example.demo.exception.PasswordHashingBusyException;
 import com.example.demo.mapper.UserMapper;
 import com.example.demo.model.User;
 import com.example.demo.service.UserService;
@@ -320,6 +323,10 @@ public class UserController {
             responseCode = "403",
             description = "Недостаточно прав для создания пользователей"
         ),
+        @ApiResponse(
+            responseCode = "503",
+            description = "Очередь хеширования паролей заполнена, повторите после Retry-After"
+        ),
         @ApiResponse(
             responseCode = "500",
             description = "Внутренняя ошибка при создании пользователя"
@@ -368,6 +375,9 @@ public class UserController {
         } catch (IllegalArgumentException e) {
             logger.error("Error creating user: {}", e.getMessage());
             return ResponseEntity.badRequest().build();
+        } catch (PasswordHashingBusyException e) {
+            logger.warn("Password hashing is busy, creating user rejected");
+            return ResponseEntity.status(e.getStatusCode()).headers(e.getHeaders()).build();
         } catch (Exception e) {
             logger.error("Unexpected error creating user: {}", e.getMessage());
             return ResponseEntity.internalServerError().build();
@@ -457,6 +467,10 @@ public class UserController {
             responseCode = "403",
             description = "Пользователи уже существуют в системе"
         ),
+        @ApiResponse(
+            responseCode = "503",
+            description = "Очередь хеширования паролей заполнена, повторите после Retry-After"
+        ),
         @ApiResponse(
             responseCode = "500",
             description = "Ошибка при создании пользователя"
@@ -507,6 +521,9 @@ public class UserController {
         } catch (IllegalArgumentException e) {
             logger.error("Error creating first user: {}", e.getMessage());
             return ResponseEntity.badRequest().build();
+        } catch (PasswordHashingBusyException e) {
+            logger.warn("Password hashing is busy, creating first user rejected");
+            return ResponseEntity.status(e.getStatusCode()).headers(e.getHeaders()).build();
         } catch (Exception e) {
             logger.error("Unexpected error creating first user: {}", e.getMessage());
             return ResponseEntity.internalServerError().build();
@@ -591,6 +608,10 @@ public class UserController {
         @ApiResponse(
             responseCode = "403",
             description = "Недостаточно прав для обновления пользователя"
+        ),
+        @ApiResponse(
+            responseCode = "503",
+            description = "Очередь хеширования паролей заполнена, повторите после Retry-After"
         )
     })
     @PutMapping("/{id}")
@@ -626,6 +647,9 @@ public class UserController {
                 logger.warn("User with id {} not found for update", id);
                 return ResponseEntity.notFound().build();
             }
+        } catch (PasswordHashingBusyException e) {
+            logger.warn("Password hashing is busy, update of user {} rejected", id);
+            return ResponseEntity.status(e.getStatusCode()).headers(e.getHeaders()).build();
         } catch (Exception e) {
             logger.error("Error updating user {}: {}", id, e.getMessage());
             return ResponseEntity.internalServerError().build();
@@ -726,6 +750,92 @@ public class UserController {
         }
     }
 
+    @Operation(
+        summary = "Статистика кэша аутентифицированных пользователей",
+        description = """
+            Возвращает счетчики кэша, через который JwtAuthFilter получает пользователя и его права
+            без обращения к БД на каждом запросе.
+            
+            ### Возвращаемая информация:
+            - **hits / misses** - попадания и промахи с момента запуска
+            - **evictions** - удаленные записи (сброс, переполнение, истечение срока)
+            - **size / maxSize** - текущий и максимальный размер кэша
+            - **hitRate** - доля попаданий
+            
+            ### Права доступа:
+            - Требуется право `USER:WRITE`
+            """,
+        tags = {"user-controller", "admin-operations"}
+    )
+    @ApiResponses(value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Статистика успешно получена",
+            content = @Content(
+                mediaType = "application/json",
+                schema = @Schema(implementation = CacheStatsDto.class)
+            )
+        ),
+        @ApiResponse(
+            responseCode = "401",
+            description = "Пользователь не аутентифицирован"
+        ),
+        @ApiResponse(
+            responseCode = "403",
+            description = "Недостаточно прав (требуется право USER:WRITE)"
+        )
+    })
+    @GetMapping("/principal-cache/stats")
+    @PreAuthorize("hasAuthority('USER:WRITE')")
+    public ResponseEntity<CacheStatsDto> getPrincipalCacheStats() {
+        logger.debug("GET /api/users/principal-cache/stats");
+        return ResponseEntity.ok(userService.getPrincipalCacheStats());
+    }
+
+    @Operation(
+        summary = "Статистика хеширования паролей",
+        description = """
+            Возвращает счетчики пула, на котором выполняется BCrypt при входе, создании пользователей и смене пароля.
+            
+            ### Возвращаемая информация:
+            - **cost** - стоимость BCrypt для новых хешей
+            - **encodes / verifications** - число вычисленных хешей и проверок пароля
+            - **avgEncodeMillis / avgVerifyMillis / maxHashMillis** - время одного хеша
+            - **avgQueueWaitMillis** - среднее ожидание в очереди пула
+            - **rejected / timedOut** - запросы, получившие 503 (очередь заполнена или ожидание истекло)
+            - **upgradesRequested** - хеши с устаревшей стоимостью, пересчитанные при входе
+            - **active / queued / poolSize / queueCapacity** - текущая загрузка и размеры пула
+            
+            ### Права доступа:
+            - Требуется право `USER:WRITE`
+            """,
+        tags = {"user-controller", "admin-operations"}
+    )
+    @ApiResponses(value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Статистика успешно получена",
+            content = @Content(
+                mediaType = "application/json",
+                schema = @Schema(implementation = HashingStatsDto.class)
+            )
+        ),
+        @ApiResponse(
+            responseCode = "401",
+            description = "Пользователь не аутентифицирован"
+        ),
+        @ApiResponse(
+            responseCode = "403",
+            description = "Недостаточно прав (требуется право USER:WRITE)"
+        )
+    })
+    @GetMapping("/password-hashing/stats")
+    @PreAuthorize("hasAuthority('USER:WRITE')")
+    public ResponseEntity<HashingStatsDto> getPasswordHashingStats() {
+        logger.debug("GET /api/users/password-hashing/stats");
+        return ResponseEntity.ok(userService.getPasswordHashingStats());
+    }
+
     @Operation(
         summary = "Найти пользователя по имени",
         description = """
@@ -0,0 +1,296 @@
+package com.example.demo.dataset;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.demo.jwt.JwtTokenProvider;
+import com.example.demo.model.Device;
+import com.example.demo.model.DeviceType;
+import com.example.demo.model.File;
+import com.example.demo.model.ModeRule;
+import com.example.demo.model.ModeType;
+import com.example.demo.model.Role;
+import com.example.demo.model.Room;
+import com.example.demo.model.Token;
+import com.example.demo.model.TokenType;
+import com.example.demo.model.User;
+import com.example.demo.repository.RoleRepository;
+import com.example.demo.repository.UserRepository;
+import com.example.demo.service.ModeRuleCache;
+import com.example.demo.service.PowerLedgerService;
+import com.example.demo.service.TitleSearchService;
+import com.example.demo.service.TokenService;
+
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Синтетический набор данных заданного размера (DatasetScale), детерминированный от seed:
+ * при одинаковых размере и seed строки совпадают до символа (кроме id и сроков токенов, отсчитанных от текущего времени).
+ *
+ * Распределения:
+ * - каждый пятый пользователь - только чтение (роль USER, без комнат), остальные - менеджеры с ролью ADMIN;
+ * - комнаты достаются менеджерам неравномерно: немногие управляют десятками комнат, большинство - несколькими;
+ * - устройства распределены по комнатам тоже с перекосом, типы - по весам (освещения больше всего),
+ *   мощность - в типичном для типа диапазоне (кВт) с пиком посередине, включена примерно треть;
+ * - правила режимов покрывают все типы, шаблоны названий - от ".*" до чередований, якорей и \d{n};
+ * - по четыре токена на пользователя (в основном истекшие, часть отозванных) и по два файла (только метаданные).
+ *
+ * Запись идет порциями по CHUNK_SIZE строк в отдельных транзакциях через пакетные вставки Hibernate
+ * (последовательности с allocationSize 50, hibernate.jdbc.batch_size) с очисткой контекста после порции.
+ * Записи идут мимо сервисов, поэтому в конце пересобираются индексы в памяти и сбрасываются кэши.
+ */
+@Slf4j
+@Service
+public class DatasetGenerator {
+    private static final Logger logger = LoggerFactory.getLogger(DatasetGenerator.class);
+    public static final String PASSWORD = "dataset";
+    private static final String USERNAME_PREFIX = "ds-user-";
+    private static final int CHUNK_SIZE = 1_000;
+    private static final int TOKENS_PER_USER = 4;
+    private static final int FILES_PER_USER = 2;
+    private static final LocalDateTime EPOCH = LocalDateTime.of(2025, 1, 1, 0, 0);
+    private static final String[] WORDS = {"Main", "Kitchen", "Bedroom", "Office", "Hall", "Night", "LivingRoom",
+        "Garage", "Lab", "Lobby"};
+    private static final String[][] FILE_TYPES = {
+        {"pdf", "application/pdf"}, {"png", "image/png"}, {"jpg", "image/jpeg"},
+        {"txt", "text/plain"}, {"docx", "application/vnd.openxmlformats-officedocument.wordprocessingml.document"}
+    };
+    // Вес типа в парке и диапазон мощности, кВт
+    private static final List<TypeProfile> TYPES = List.of(
+        new TypeProfile(DeviceType.LIGHT, "Light", 30, 0.005, 0.1),
+        new TypeProfile(DeviceType.COFFEE_MACHINE, "Coffee", 5, 0.8, 1.5),
+        new TypeProfile(DeviceType.SPEAKERS, "Speakers", 8, 0.01, 0.2),
+        new TypeProfile(DeviceType.KETTLE, "Kettle", 6, 1.5, 2.4),
+        new TypeProfile(DeviceType.MICROWAVE, "Microwave", 5, 0.6, 1.2),
+        new TypeProfile(DeviceType.CONDITIONER, "Conditioner", 8, 0.8, 3.5),
+        new TypeProfile(DeviceType.TELEVISION, "TV", 10, 0.05, 0.4),
+        new TypeProfile(DeviceType.AC, "AC", 8, 0.8, 3.5),
+        new TypeProfile(DeviceType.HEATER, "Heater", 10, 0.5, 2.5),
+        new TypeProfile(DeviceType.FAN, "Fan", 10, 0.02, 0.15));
+    private static final int TYPE_WEIGHT = TYPES.stream().mapToInt(TypeProfile::weight).sum();
+
+    private final UserRepository userRepository;
+    private final RoleRepository roleRepository;
+    private final PasswordEncoder passwordEncoder;
+    private final PowerLedgerService powerLedgerService;
+    private final TitleSearchService titleSearchService;
+    private final ModeRuleCache modeRuleCache;
+    private final TokenService tokenService;
+    private final TransactionTemplate transactionTemplate;
+    private final EntityManager entityManager;
+
+    public DatasetGenerator(UserRepository userRepository, RoleRepository roleRepository,
+                            PasswordEncoder passwordEncoder, PowerLedgerService powerLedgerService,
+                            TitleSearchService titleSearchService, ModeRuleCache modeRuleCache,
+                            TokenService tokenService, PlatformTransactionManager transactionManager,
+                            EntityManager entityManager) {
+        this.userRepository = userRepository;
+        this.roleRepository = roleRepository;
+        this.passwordEncoder = passwordEncoder;
+        this.powerLedgerService = powerLedgerService;
+        this.titleSearchService = titleSearchService;
+        this.modeRuleCache = modeRuleCache;
+        this.tokenService = tokenService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.entityManager = entityManager;
+    }
+
+    public GeneratedDataset generate(DatasetScale scale, long seed) {
+        if (userRepository.findByUsername(USERNAME_PREFIX + 0).isPresent()) {
+            throw new IllegalStateException("Dataset is already generated in this database");
+        }
+        Role admin = roleRepository.findByName("ADMIN");
+        Role reader = roleRepository.findByName("USER");
+        if (admin == null || reader == null) {
+            throw new IllegalStateException("Roles ADMIN and USER must exist before generating a dataset");
+        }
+        logger.info("Generating dataset {} with seed {}", scale.label(), seed);
+        long start = System.nanoTime();
+        Random random = new Random(seed);
+        // Пароль у всех один: BCrypt считается один раз, а не на каждого пользователя
+        String hash = passwordEncoder.encode(PASSWORD);
+
+        long[] userIds = new long[scale.users()];
+        List<String> managers = new ArrayList<>();
+        List<Long> managerIds = new ArrayList<>();
+        int[] nextUser = {0};
+        persistInChunks(scale.users(), i -> {
+            boolean manager = i % 5 != 4;
+            return User.builder()
+                .username(USERNAME_PREFIX + i)
+                .password(hash)
+                .role(entityManager.getReference(Role.class, (manager ? admin : reader).getId()))
+                .managedRooms(new ArrayList<>())
+                .build();
+        }, user -> {
+            int index = nextUser[0]++;
+            userIds[index] = user.getId();
+            if (index % 5 != 4) {
+                managers.add(user.getUsername());
+                managerIds.add(user.getId());
+            }
+        });
+
+        long[] roomIds = new long[scale.rooms()];
+        List<String> buses = new ArrayList<>(scale.rooms());
+        int[] nextRoom = {0};
+        persistInChunks(scale.rooms(), r -> {
+            Room room = new Room();
+            room.setBus(WORDS[random.nextInt(WORDS.length)] + "-" + r);
+            room.setManager(entityManager.getReference(User.class, managerIds.get(skewed(random, managerIds.size(), 2.0))));
+            return room;
+        }, room -> {
+            roomIds[nextRoom[0]++] = room.getId();
+            buses.add(room.getBus());
+        });
+
+        long[] deviceIds = new long[scale.devices()];
+        int[] nextDevice = {0};
+        persistInChunks(scale.devices(), d -> {
+            TypeProfile type = pickType(random);
+            Device device = new Device();
+            device.setTitle(WORDS[random.nextInt(WORDS.length)] + " " + type.label() + " " + d);
+            device.setType(type.type());
+            device.setPower(type.power(random));
+            device.setActive(random.nextInt(3) == 0);
+            device.setRoom(entityManager.getReference(Room.class, roomIds[skewed(random, roomIds.length, 1.5)]));
+            return device;
+        }, device -> deviceIds[nextDevice[0]++] = device.getId());
+
+        persistInChunks(scale.rules(), i -> rule(random), rule -> {});
+
+        LocalDateTime now = LocalDateTime.now();
+        int tokens = scale.users() * TOKENS_PER_USER;
+        persistInChunks(tokens, i -> token(random, seed, i, now,
+            entityManager.getReference(User.class, userIds[i / TOKENS_PER_USER])), token -> {});
+
+        Path uploadDir = Path.of("uploads").toAbsolutePath().normalize();
+        int files = scale.users() * FILES_PER_USER;
+        persistInChunks(files, i -> file(random, uploadDir,
+            entityManager.getReference(User.class, userIds[i / FILES_PER_USER])), file -> {});
+
+        // Индексы и кэши в памяти заполняются сервисами; после вставок в обход сервисов пересобираем их
+        powerLedgerService.load();
+        titleSearchService.rebuild();
+        modeRuleCache.invalidateAll();
+        tokenService.loadRevoked();
+
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        logger.info("Dataset {} generated in {} ms: {} users, {} rooms, {} devices, {} rules, {} tokens, {} files",
+            scale.label(), elapsed, scale.users(), scale.rooms(), scale.devices(), scale.rules(), tokens, files);
+        return new GeneratedDataset(scale, seed, PASSWORD, List.copyOf(managers), roomIds, List.copyOf(buses),
+            deviceIds, scale.users(), scale.rules(), tokens, files, elapsed);
+    }
+
+    // Порция - одна транзакция; созданные сущности отдаются в saved уже с id, контекст после порции пуст
+    private <T> void persistInChunks(int count, IntFunction<T> create, Consumer<T> saved) {
+        for (int from = 0; from < count; from += CHUNK_SIZE) {
+            int first = from;
+            int last = Math.min(count, from + CHUNK_SIZE);
+            List<T> chunk = transactionTemplate.execute(status -> {
+                List<T> entities = new ArrayList<>(last - first);
+                for (int i = first; i < last; i++) {
+                    T entity = create.apply(i);
+                    entityManager.persist(entity);
+                    entities.add(entity);
+                }
+                entityManager.flush();
+                entityManager.clear();
+                return entities;
+            });
+            chunk.forEach(saved);
+        }
+    }
+
+    // Индекс в [0, size) с перекосом к началу: exponent 1 - равномерно, 2 - квадратичный перекос
+    private static int skewed(Random random, int size, double exponent) {
+        return Math.min(size - 1, (int) (size * Math.pow(random.nextDouble(), exponent)));
+    }
+
+    private static TypeProfile pickType(Random random) {
+        int value = random.nextInt(TYPE_WEIGHT);
+        for (TypeProfile type : TYPES) {
+            value -= type.weight();
+            if (value < 0) {
+                return type;
+            }
+        }
+        return TYPES.get(TYPES.size() - 1);
+    }
+
+    private static ModeRule rule(Random random) {
+        TypeProfile type = pickType(random);
+        ModeRule rule = new ModeRule();
+        rule.setModeType(ModeType.values()[random.nextInt(ModeType.values().length)]);
+        rule.setDeviceType(type.type());
+        rule.setTitlePattern(titlePattern(random, type));
+        if (random.nextBoolean()) {
+            double low = type.power(random);
+            double high = type.power(random);
+            rule.setMinPower(Math.min(low, high));
+            rule.setMaxPower(Math.max(low, high));
+        }
+        rule.setShouldBeActive(random.nextBoolean());
+        rule.setPriority(1 + random.nextInt(10));
+        return rule;
+    }
+
+    // Те же формы шаблонов, что встречаются в правилах вручную: префикс, подстрока, якорь, чередование, \d{n}
+    private static String titlePattern(Random random, TypeProfile type) {
+        String word = WORDS[random.nextInt(WORDS.length)];
+        return switch (random.nextInt(8)) {
+            case 0 -> ".*";
+            case 1 -> word + ".*";
+            case 2 -> ".*" + type.label() + ".*";
+            case 3 -> "^" + word + " " + type.label();
+            case 4 -> "(" + word + "|" + WORDS[random.nextInt(WORDS.length)] + ") .*";
+            case 5 -> ".*\\d{3}$";
+            case 6 -> word + " " + type.label() + " \\d+";
+            default -> null;
+        };
+    }
+
+    // Токены - только строки БД (хэш синтетической строки): проверку не проходят, но нагружают отзыв и очистку
+    private static Token token(Random random, long seed, int index, LocalDateTime now, User user) {
+        TokenType type = index % 2 == 0 ? TokenType.ACCESS : TokenType.REFRESH;
+        String hash = JwtTokenProvider.digest("dataset:" + seed + ":" + index);
+        int state = random.nextInt(20);
+        if (state < 12) {
+            return new Token(type, null, hash, now.minusMinutes(1 + random.nextInt(60 * 24 * 7)), random.nextBoolean(), user);
+        }
+        return new Token(type, null, hash, now.plusMinutes(1 + random.nextInt(60 * 24 * 7)), state >= 17, user);
+    }
+
+    // Только метаданные: файлов на диске нет, скачивание таких записей вернет 404
+    private static File file(Random random, Path uploadDir, User user) {
+        String[] fileType = FILE_TYPES[random.nextInt(FILE_TYPES.length)];
+        String fileName = new UUID(random.nextLong(), random.nextLong()) + "." + fileType[0];
+        long size = Math.min(10L * 1024 * 1024, Math.max(1, (long) Math.exp(10 + 1.5 * random.nextGaussian())));
+        return new File(fileName, WORDS[random.nextInt(WORDS.length)].toLowerCase() + "-" + random.nextInt(1_000)
+            + "." + fileType[0], fileType[1], fileType[0], size, uploadDir.resolve(fileName).toString(),
+            EPOCH.plusMinutes(random.nextInt(60 * 24 * 365)), user);
+    }
+
+    private record TypeProfile(DeviceType type, String label, int weight, double minPower, double maxPower) {
+        // Среднее двух равномерных - пик посередине диапазона; три знака после запятой
+        double power(Random random) {
+            double position = (random.nextDouble() + random.nextDouble()) / 2;
+            return Math.round((minPower + (maxPower - minPower) * position) * 1_000) / 1_000.0;
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.demo.dataset;
+
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Заполнение базы синтетическими данными при старте с профилем dataset:
+ *   java -jar demo.jar --spring.profiles.active=dataset --dataset.scale=100k --dataset.seed=42
+ * Запускается после всех ApplicationRunner (DemoApplication к этому времени создал роли),
+ * приложение после генерации продолжает работать на заполненной базе.
+ */
+@Slf4j
+@Component
+@Profile("dataset")
+public class DatasetRunner {
+    private static final Logger logger = LoggerFactory.getLogger(DatasetRunner.class);
+    private static final DatasetScale DEFAULT_SCALE = DatasetScale.SMALL;
+    private static final long DEFAULT_SEED = 42;
+
+    private final DatasetGenerator datasetGenerator;
+    private final ApplicationArguments arguments;
+
+    public DatasetRunner(DatasetGenerator datasetGenerator, ApplicationArguments arguments) {
+        this.datasetGenerator = datasetGenerator;
+        this.arguments = arguments;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void generate() {
+        DatasetScale scale = option("dataset.scale") != null
+            ? DatasetScale.parse(option("dataset.scale")) : DEFAULT_SCALE;
+        long seed = option("dataset.seed") != null ? Long.parseLong(option("dataset.seed")) : DEFAULT_SEED;
+        try {
+            GeneratedDataset dataset = datasetGenerator.generate(scale, seed);
+            logger.info("Dataset {} (seed {}) ready: log in as {} / {}", scale.label(), seed,
+                dataset.managers().get(0), dataset.password());
+        } catch (IllegalStateException e) {
+            logger.warn("Dataset not generated: {}", e.getMessage());
+        }
+    }
+
+    private String option(String name) {
+        List<String> values = arguments.getOptionValues(name);
+        return values == null || values.isEmpty() ? null : values.get(values.size() - 1);
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.demo.dataset;
+
+import java.util.Locale;
+
+/**
+ * Именованные размеры синтетического набора данных. Все стенды (LoadHarness scale=, профиль dataset)
+ * ссылаются на размер по имени, чтобы измерения разных инструментов были на одних и тех же данных.
+ * Пользователей, комнат и правил становится больше вместе с устройствами, но медленнее: на комнату
+ * в среднем 10-20 устройств, на менеджера - 5-10 комнат.
+ */
+public enum DatasetScale {
+    SMALL("1k", 1_000, 25, 100, 30),
+    MEDIUM("100k", 100_000, 1_000, 5_000, 300),
+    LARGE("1m", 1_000_000, 5_000, 50_000, 1_000);
+
+    private final String label;
+    private final int devices;
+    private final int users;
+    private final int rooms;
+    private final int rules;
+
+    DatasetScale(String label, int devices, int users, int rooms, int rules) {
+        this.label = label;
+        this.devices = devices;
+        this.users = users;
+        this.rooms = rooms;
+        this.rules = rules;
+    }
+
+    // Принимает и метку (1k, 100k, 1m), и имя константы (SMALL, medium)
+    public static DatasetScale parse(String value) {
+        String normalized = value.trim().toLowerCase(Locale.ROOT);
+        for (DatasetScale scale : values()) {
+            if (scale.label.equals(normalized) || scale.name().toLowerCase(Locale.ROOT).equals(normalized)) {
+                return scale;
+            }
+        }
+        throw new IllegalArgumentException("Unknown dataset scale " + value + ", expected 1k, 100k or 1m");
+    }
+
+    public String label() {
+        return label;
+    }
+
+    public int devices() {
+        return devices;
+    }
+
+    public int users() {
+        return users;
+    }
+
+    public int rooms() {
+        return rooms;
+    }
+
+    public int rules() {
+        return rules;
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.demo.dataset;
+
+import java.util.List;
+
+/**
+ * Итог DatasetGenerator.generate: счетчики и идентификаторы созданных строк для стендов.
+ * managers - имена менеджеров комнат (роль ADMIN), у всех пользователей набора пароль password.
+ */
+public record GeneratedDataset(
+    DatasetScale scale,
+    long seed,
+    String password,
+    List<String> managers,
+    long[] roomIds,
+    List<String> buses,
+    long[] deviceIds,
+    int users,
+    int rules,
+    int tokens,
+    int files,
+    long elapsedMillis
+) {}
@@ -0,0 +1,12 @@
+package com.example.demo.dto;
+
+import java.util.List;
+
+public record BulkToggleResult(
+    boolean active,
+    List<Long> deviceIds
+) {
+    public int count() {
+        return deviceIds.size();
+    }
+}
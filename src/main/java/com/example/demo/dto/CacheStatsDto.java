@@ -0,0 +1,10 @@
+package com.example.demo.dto;
+
+public record CacheStatsDto(
+    long hits,
+    long misses,
+    long evictions,
+    int size,
+    int maxSize,
+    double hitRate
+) {}
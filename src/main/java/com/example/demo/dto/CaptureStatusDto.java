@@ -0,0 +1,16 @@
+package com.example.demo.dto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public record CaptureStatusDto(
+    boolean active,
+    String sessionId,
+    double sampleRate,
+    LocalDateTime startedAt,
+    LocalDateTime endsAt,
+    long captured,
+    long dropped,
+    long written,
+    List<String> files
+) {}
@@ -0,0 +1,18 @@
+package com.example.demo.dto;
+
+import java.util.List;
+import java.util.function.Function;
+
+// Страница курсорной пагинации: без общего количества, только признак продолжения и курсор на следующую.
+// Не Slice: его nextPageable() - номер страницы и смещение, а продолжение здесь задает курсор after,
+// которого в Slice нет; SliceImpl к тому же сериализуется в JSON вместе с полями Pageable
+public record CursorPage<T>(
+    List<T> content,
+    int size,
+    boolean hasNext,
+    String nextCursor
+) {
+    public <R> CursorPage<R> map(Function<? super T, ? extends R> mapper) {
+        return new CursorPage<>(content.stream().<R>map(mapper).toList(), size, hasNext, nextCursor);
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.demo.dto;
+
+import java.util.List;
+
+import com.example.demo.model.DeviceType;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+// Событие потока /api/devices/stream; для массовых переключений заполнены только active и deviceIds
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record DeviceEventDto(
+    String type,
+    Long deviceId,
+    String title,
+    DeviceType deviceType,
+    Double power,
+    Boolean active,
+    Long roomId,
+    List<Long> deviceIds
+) {
+    public static final String CREATED = "created";
+    public static final String UPDATED = "updated";
+    public static final String DELETED = "deleted";
+    public static final String BULK = "bulk";
+}
@@ -0,0 +1,12 @@
+package com.example.demo.dto;
+
+import com.example.demo.model.DeviceType;
+
+public record DevicePowerSnapshot(
+    Long deviceId,
+    DeviceType type,
+    double power,
+    boolean active,
+    Long roomId,
+    Long managerId
+) {}
@@ -0,0 +1,11 @@
+package com.example.demo.dto;
+
+import com.example.demo.model.DeviceType;
+
+public record DeviceStateSnapshot(
+    Long deviceId,
+    DeviceType type,
+    String title,
+    double power,
+    boolean active
+) {}
@@ -0,0 +1,15 @@
+package com.example.demo.dto;
+
+import java.time.Instant;
+
+import org.springframework.core.io.Resource;
+
+import com.example.demo.model.File;
+
+public record FileDownloadDto(
+    File file,
+    Resource resource,
+    long contentLength,
+    Instant lastModified,
+    String eTag
+) {}
@@ -0,0 +1,18 @@
+package com.example.demo.dto;
+
+public record HashingStatsDto(
+    int cost,
+    long encodes,
+    long verifications,
+    double avgEncodeMillis,
+    double avgVerifyMillis,
+    double maxHashMillis,
+    double avgQueueWaitMillis,
+    long rejected,
+    long timedOut,
+    long upgradesRequested,
+    int active,
+    int queued,
+    int poolSize,
+    int queueCapacity
+) {}
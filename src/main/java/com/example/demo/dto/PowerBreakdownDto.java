@@ -0,0 +1,12 @@
+package com.example.demo.dto;
+
+import java.util.Map;
+
+import com.example.demo.model.DeviceType;
+
+public record PowerBreakdownDto(
+    double totalPower,
+    Map<Long, Double> byRoom,
+    Map<DeviceType, Double> byType,
+    Map<Long, Double> byManager
+) {}
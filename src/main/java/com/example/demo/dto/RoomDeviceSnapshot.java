@@ -0,0 +1,12 @@
+package com.example.demo.dto;
+
+import com.example.demo.model.DeviceType;
+
+public record RoomDeviceSnapshot(
+    Long roomId,
+    Long id,
+    String title,
+    DeviceType type,
+    double power,
+    boolean active
+) {}
@@ -0,0 +1,9 @@
+package com.example.demo.dto;
+
+public record RoomSnapshot(
+    Long id,
+    String bus,
+    Long managerId,
+    String managerUsername,
+    String managerRole
+) {}
@@ -0,0 +1,33 @@
+package com.example.demo.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import org.springframework.data.domain.Sort;
+
+// Позиция курсорной пагинации: ключ сортировки, направление, значение ключа и id последней записи.
+// Клиенту отдается непрозрачной base64url-строкой.
+public record SeekCursor(
+    String sortKey,
+    Sort.Direction direction,
+    String value,
+    Long id
+) {
+    public String encode() {
+        String raw = sortKey + ":" + direction + ":" + id + ":" + value;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static SeekCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split(":", 4);
+            if (parts.length != 4) {
+                throw new IllegalArgumentException("Malformed cursor");
+            }
+            return new SeekCursor(parts[0], Sort.Direction.valueOf(parts[1]), parts[3], Long.valueOf(parts[2]));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor, e);
+        }
+    }
+}
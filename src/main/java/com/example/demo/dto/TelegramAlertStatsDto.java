@@ -0,0 +1,12 @@
+package com.example.demo.dto;
+
+public record TelegramAlertStatsDto(
+    long received,
+    long coalesced,
+    long dropped,
+    long sent,
+    long eventsSent,
+    long failed,
+    int pending,
+    String circuit
+) {}
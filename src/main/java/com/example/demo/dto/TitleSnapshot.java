@@ -0,0 +1,7 @@
+package com.example.demo.dto;
+
+// Название устройства или комнаты (bus) для триграммного индекса TitleSearchService
+public record TitleSnapshot(
+    Long id,
+    String title
+) {}
@@ -0,0 +1,9 @@
+package com.example.demo.dto;
+
+import java.time.LocalDateTime;
+
+// Хеш токена и срок его действия - для списка отозванных токенов
+public record TokenExpirySnapshot(
+    String tokenHash,
+    LocalDateTime expiryDate
+) {}
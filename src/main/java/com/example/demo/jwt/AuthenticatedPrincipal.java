@@ -0,0 +1,43 @@
+package com.example.demo.jwt;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import com.example.demo.model.User;
+
+// Неизменяемый снимок аутентифицированного пользователя для SecurityContext.
+// Права вычисляются один раз при загрузке, пароль не хранится.
+public record AuthenticatedPrincipal(
+    Long id,
+    String username,
+    String role,
+    Set<GrantedAuthority> authorities
+) implements UserDetails {
+
+    public static AuthenticatedPrincipal of(User user) {
+        Set<GrantedAuthority> authorities = new HashSet<>();
+        user.getAuthorities().forEach(authority -> authorities.add(new SimpleGrantedAuthority(authority.getAuthority())));
+        String role = user.getRole() != null ? user.getRole().getName() : null;
+        return new AuthenticatedPrincipal(user.getId(), user.getUsername(), role, Set.copyOf(authorities));
+    }
+
+    @Override
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return authorities;
+    }
+
+    @Override
+    public String getPassword() {
+        return null;
+    }
+
+    @Override
+    public String getUsername() {
+        return username;
+    }
+}
@@ -1,26 +1,29 @@
 package com.example.demo.jwt;
 
 import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
+import com.example.demo.service.PrincipalCache;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.Cookie;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
-import lombok.RequiredArgsConstructor;
 
 @Component
-@RequiredArgsConstructor
 public class JwtAuthFilter extends OncePerRequestFilter {
 
     private static final Logger logger = LoggerFactory.getLogger(JwtAuthFilter.class);
@@ -29,7 +32,26 @@ public class JwtAuthFilter extends OncePerRequestFilter {
     private final String accessCookieName = "access_token";
     
     private final JwtTokenProvider tokenProvider;
-    private final UserDetailsService userDetailsService;
+    private final PrincipalCache principalCache;
+    // Время проверки токена (подпись или кэш, отзыв) по результату: valid / invalid
+    private final Timer validTokenTimer;
+    private final Timer invalidTokenTimer;
+
+    public JwtAuthFilter(JwtTokenProvider tokenProvider, PrincipalCache principalCache, MeterRegistry meterRegistry) {
+        this.tokenProvider = tokenProvider;
+        this.principalCache = principalCache;
+        this.validTokenTimer = validationTimer(meterRegistry, "valid");
+        this.invalidTokenTimer = validationTimer(meterRegistry, "invalid");
+    }
+
+    private static Timer validationTimer(MeterRegistry meterRegistry, String result) {
+        return Timer.builder("jwt.validation")
+            .description("JWT verification time in the authentication filter")
+            .tag("result", result)
+            .publishPercentileHistogram()
+            .maximumExpectedValue(Duration.ofMillis(100))
+            .register(meterRegistry);
+    }
     
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
@@ -37,13 +59,14 @@ public class JwtAuthFilter extends OncePerRequestFilter {
         
         String token = extractTokenFromRequest(request);
         
-        if(token == null || token.isEmpty() || !tokenProvider.validateToken(token)) {
+        VerifiedToken verified = verify(token);
+        if(verified == null) {
             logger.debug("JWT token not found for: {}", request.getRequestURI());
             filterChain.doFilter(request, response);
             return;
         }
 
-        String username = tokenProvider.getUsername(token);
+        String username = verified.subject();
 
         if(username == null) {
             logger.warn("Couldn't extract username from token");
@@ -51,7 +74,7 @@ public class JwtAuthFilter extends OncePerRequestFilter {
             return;
         }
 
-        UserDetails user = userDetailsService.loadUserByUsername(username);
+        UserDetails user = principalCache.get(username);
         UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
             user, null, user.getAuthorities()
         );
@@ -62,6 +85,17 @@ public class JwtAuthFilter extends OncePerRequestFilter {
         filterChain.doFilter(request, response);
     }
 
+    // Запросы без токена не измеряются - они ничего не проверяют
+    private VerifiedToken verify(String token) {
+        if (token == null) {
+            return null;
+        }
+        long started = System.nanoTime();
+        VerifiedToken verified = tokenProvider.verify(token);
+        (verified != null ? validTokenTimer : invalidTokenTimer).record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        return verified;
+    }
+
     private String extractTokenFromRequest(HttpServletRequest request) {
         // 1. Проверяем Cookies
         Cookie[] cookies = request.getCookies();
@@ -5,25 +5,44 @@ import io.jsonwebtoken.security.Keys;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 
+import com.example.demo.cache.BoundedTtlCache;
 import com.example.demo.model.TokenType;
 import com.example.demo.model.Token;
 
 import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.ZoneOffset;
 import java.time.temporal.TemporalUnit;
 import java.util.Base64;
 import java.util.Date;
 import java.util.Map;
-import java.util.function.Function;
+import java.util.UUID;
 
 @Service
 public class JwtTokenProvider {
     
     private final String secret = "66546A555E5A7234753778214123222A472D4B614E645262356B587032733576";
     private final long jwtExpiration = 86400000L;
+    // Недавно проверенные токены: ключ - SHA-256 токена, запись живет не дольше самого токена
+    private static final int VERIFIED_CACHE_SIZE = 10_000;
+    private static final long VERIFIED_CACHE_TTL_MILLIS = 300_000;
 
+    // Ключ и парсер неизменяемы и потокобезопасны - строим один раз
+    private final Key signingKey = Keys.hmacShaKeyFor(hexStringToByteArray(secret));
+    private final JwtParser jwtParser = Jwts.parserBuilder().setSigningKey(signingKey).build();
+    private final BoundedTtlCache<String, VerifiedToken> verifiedTokens =
+        new BoundedTtlCache<>(VERIFIED_CACHE_SIZE, VERIFIED_CACHE_TTL_MILLIS);
+    private final RevokedTokens revokedTokens;
+
+    public JwtTokenProvider(RevokedTokens revokedTokens) {
+        this.revokedTokens = revokedTokens;
+    }
+
+    // jti делает строку токена уникальной: иначе два входа за одну секунду дают один и тот же токен (и хеш)
     public Token generateAccessToken(
         Map<String, Object> extractClaims,
         Long duration,
@@ -34,12 +53,13 @@ public class JwtTokenProvider {
         LocalDateTime expiryDate = now.plus(duration, durationType);
         String token = Jwts.builder()
                 .setClaims(extractClaims)
+                .setId(UUID.randomUUID().toString())
                 .setSubject(user.getUsername())
                 .setIssuedAt(toDate(now))
                 .setExpiration(toDate(expiryDate))
                 .signWith(getSigningKey(), SignatureAlgorithm.HS256)
                 .compact();
-        return new Token(TokenType.ACCESS, token, expiryDate, false, null);
+        return new Token(TokenType.ACCESS, token, digest(token), expiryDate, false, null);
     }
 
     public Token generateRefreshToken(
@@ -50,24 +70,57 @@ public class JwtTokenProvider {
         LocalDateTime now = LocalDateTime.now();
         LocalDateTime expiryDate = now.plus(duration, durationType);
         String token = Jwts.builder()
+                .setId(UUID.randomUUID().toString())
                 .setSubject(user.getUsername())
                 .setIssuedAt(toDate(now))
                 .setExpiration(toDate(expiryDate))
                 .signWith(getSigningKey(), SignatureAlgorithm.HS256)
                 .compact();
-        return new Token(TokenType.REFRESH, token, expiryDate, false, null);
+        return new Token(TokenType.REFRESH, token, digest(token), expiryDate, false, null);
+    }
+
+    // Одна проверка подписи, срока и отзыва: subject, роль и срок действия; null - токен недействителен
+    public VerifiedToken verify(String token) {
+        if (token == null || token.isEmpty()) return null;
+        String tokenHash = digest(token);
+        VerifiedToken verified = verifiedTokens.get(tokenHash, key -> parse(token));
+        if (verified != null && verified.isExpired(Instant.now())) {
+            verifiedTokens.invalidate(tokenHash);
+            return null;
+        }
+        if (verified != null && revokedTokens.isRevoked(tokenHash)) {
+            return null;
+        }
+        return verified;
+    }
+
+    // Разбор без кэша; видимость пакетная для JwtVerificationBenchmark
+    VerifiedToken parse(String token) {
+        try {
+            Claims claims = jwtParser.parseClaimsJws(token).getBody();
+            return new VerifiedToken(claims.getSubject(), claims.get("role", String.class),
+                claims.getExpiration().toInstant());
+        } catch (JwtException | IllegalArgumentException e) {
+            return null;
+        }
     }
 
-    private <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
-        return claimsResolver.apply(extractAllClaims(token));
+    private VerifiedToken requireVerified(String token) {
+        VerifiedToken verified = verify(token);
+        if (verified == null) {
+            throw new MalformedJwtException("Invalid JWT token");
+        }
+        return verified;
     }
 
-    private Claims extractAllClaims(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+    // SHA-256 строки токена в Base64 - под этим ключом токен хранится в БД и в списке отозванных
+    public static String digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
     }
 
     private Date toDate(LocalDateTime time) {
@@ -75,12 +128,11 @@ public class JwtTokenProvider {
     }
 
     private Key getSigningKey() {
-        // Ваш секрет в HEX формате - преобразуем его в байты
-        byte[] keyBytes = hexStringToByteArray(secret);
-        return Keys.hmacShaKeyFor(keyBytes);
+        return signingKey;
     }
     
-    private byte[] hexStringToByteArray(String hex) {
+    // Секрет в HEX формате - преобразуем его в байты
+    private static byte[] hexStringToByteArray(String hex) {
         int len = hex.length();
         byte[] data = new byte[len / 2];
         for (int i = 0; i < len; i += 2) {
@@ -91,27 +143,14 @@ public class JwtTokenProvider {
     }
 
     public LocalDateTime getExpiryDate(String token) {
-        return toLocalDateTime(extractClaim(token, Claims::getExpiration));
-    }
-
-    private LocalDateTime toLocalDateTime(Date date) {
-        return date.toInstant().atOffset(ZoneOffset.UTC).toLocalDateTime();
+        return requireVerified(token).expiresAt().atOffset(ZoneOffset.UTC).toLocalDateTime();
     }
 
     public String getUsername(String token) {
-        return extractClaim(token, Claims::getSubject);
+        return requireVerified(token).subject();
     }
 
     public boolean validateToken(String token) {
-        if (token == null) return false;
-        try {
-            Jwts.parserBuilder()
-                    .setSigningKey(getSigningKey())
-                    .build()
-                    .parseClaimsJws(token);
-            return true;
-        } catch (JwtException e) {
-            return false;
-        }
+        return verify(token) != null;
     }
 }
\ No newline at end of file
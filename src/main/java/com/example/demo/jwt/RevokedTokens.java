@@ -0,0 +1,35 @@
+package com.example.demo.jwt;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.stereotype.Component;
+
+/**
+ * Отозванные, но еще не истекшие токены: ключ - SHA-256 токена, значение - срок действия.
+ * JwtTokenProvider.verify сверяется с ним на каждом запросе вместо обращения к БД.
+ * Запись нужна только до истечения токена - после этого его отвергает проверка срока; такие записи удаляет TokenService.
+ */
+@Component
+public class RevokedTokens {
+    private final Map<String, LocalDateTime> revoked = new ConcurrentHashMap<>();
+
+    public void revoke(String tokenHash, LocalDateTime expiryDate) {
+        revoked.put(tokenHash, expiryDate);
+    }
+
+    public boolean isRevoked(String tokenHash) {
+        return revoked.containsKey(tokenHash);
+    }
+
+    public int purgeExpired(LocalDateTime now) {
+        int before = revoked.size();
+        revoked.values().removeIf(expiryDate -> !expiryDate.isAfter(now));
+        return before - revoked.size();
+    }
+
+    public int size() {
+        return revoked.size();
+    }
+}
@@ -0,0 +1,14 @@
+package com.example.demo.jwt;
+
+import java.time.Instant;
+
+// Результат проверки JWT: подпись и срок уже проверены, claims разобраны один раз
+public record VerifiedToken(
+    String subject,
+    String role,
+    Instant expiresAt
+) {
+    public boolean isExpired(Instant now) {
+        return !expiresAt.isAfter(now);
+    }
+}
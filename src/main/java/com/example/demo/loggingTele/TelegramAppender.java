@@ -2,18 +2,60 @@ package com.example.demo.loggingTele;
 
 import ch.qos.logback.classic.Level;
 import ch.qos.logback.classic.spi.ILoggingEvent;
-import ch.qos.logback.core.AppenderBase;
-import org.springframework.web.client.RestTemplate;
+import ch.qos.logback.core.UnsynchronizedAppenderBase;
 
+import com.example.demo.dto.TelegramAlertStatsDto;
+import com.example.demo.ratelimit.TokenBucketLimiter;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
 import java.util.Arrays;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Отправка WARN и ERROR в Telegram пачками, без ожидания в потоке, который пишет в лог.
+ * append только складывает событие в ограниченную карту ожидающих: одинаковые сообщения (уровень, логгер, текст,
+ * исключение) в пределах окна склеиваются в одно с пометкой "N× repeated".
+ * Фоновый поток раз в TICK_MILLIS собирает созревшие сообщения в одно сообщение Telegram (до 4000 символов)
+ * и отправляет его асинхронным HttpClient - не больше одного запроса в полете и не чаще бюджета сообщений в секунду.
+ * После FAILURE_THRESHOLD неудач подряд отправка приостанавливается на OPEN_MILLIS (circuit breaker);
+ * затем пробуется один запрос. Пачка, отправка которой не удалась, не повторяется и считается потерянной.
+ * При остановке ожидающие события отправляются последней пачкой (не дольше SHUTDOWN_TIMEOUT), остальное - в dropped.
+ * Токен бота и чат задаются в logback-spring.xml из telegram.bot.* в application.properties; без них appender не стартует.
+ */
+public class TelegramAppender extends UnsynchronizedAppenderBase<ILoggingEvent> {
+    private static final long TICK_MILLIS = 250;
+    // Лимит Telegram - 4096 символов; запас на разметку
+    private static final int MAX_MESSAGE_LENGTH = 4000;
+    private static final int FAILURE_THRESHOLD = 3;
+    private static final long OPEN_MILLIS = 60_000;
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(10);
+    private static final long SHUTDOWN_TIMEOUT_MILLIS = 3_000;
+
+    // Настраиваются из logback-spring.xml; в тестах - адрес локальной заглушки и короткое окно
+    private String botToken;
+    private String chatId;
+    private String apiUrl = "https://api.telegram.org";
+    private long windowMillis = 5_000;
+    private int maxMessagesPerSecond = 1;
+    private int maxPending = 256;
 
-public class TelegramAppender extends AppenderBase<ILoggingEvent> {
-    
-    private final String botToken = "8427237335:AAF_lDzXJjUzcEUHdrNbmlkvCYEI5C0GmEQ";
-    private final String chatId = "648084323";
-    private final RestTemplate restTemplate = new RestTemplate();
-    
     // Логгеры, которые мы хотим игнорировать (спам от библиотек)
     private final List<String> IGNORED_LOGGERS = Arrays.asList(
         "org.hibernate",
@@ -21,92 +63,283 @@ public class TelegramAppender extends AppenderBase<ILoggingEvent> {
         "org.apache.catalina",
         "org.apache.coyote"
     );
-    
+
     // Сообщения, которые мы хотим игнорировать
     private final List<String> IGNORED_MESSAGES = Arrays.asList(
         "HHH90000025",
         "spring.jpa.open-in-view is enabled by default"
     );
-    
+
+    private final Map<String, Pending> pending = new ConcurrentHashMap<>();
+    private final AtomicBoolean inFlight = new AtomicBoolean(false);
+    private final CircuitBreaker circuitBreaker = new CircuitBreaker();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final LongAdder received = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder sent = new LongAdder();
+    private final LongAdder eventsSent = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+
+    private HttpClient httpClient;
+    private TokenBucketLimiter budget;
+    private ScheduledExecutorService sender;
+
+    public void setBotToken(String botToken) {
+        this.botToken = botToken;
+    }
+
+    public void setChatId(String chatId) {
+        this.chatId = chatId;
+    }
+
+    public void setApiUrl(String apiUrl) {
+        this.apiUrl = apiUrl;
+    }
+
+    public void setWindowMillis(long windowMillis) {
+        this.windowMillis = windowMillis;
+    }
+
+    public void setMaxMessagesPerSecond(int maxMessagesPerSecond) {
+        this.maxMessagesPerSecond = maxMessagesPerSecond;
+    }
+
+    public void setMaxPending(int maxPending) {
+        this.maxPending = maxPending;
+    }
+
     @Override
     public void start() {
+        if (botToken == null || botToken.isBlank() || chatId == null || chatId.isBlank()) {
+            addWarn("TelegramAppender '" + getName() + "': botToken или chatId не заданы, отправка в Telegram отключена");
+            return;
+        }
         System.out.println("🚀 TelegramAppender запускается...");
-        System.out.println("🤖 Бот: " + botToken.substring(0, Math.min(10, botToken.length())) + "...");
         System.out.println("💬 Chat ID: " + chatId);
+        httpClient = HttpClient.newBuilder().connectTimeout(REQUEST_TIMEOUT).build();
+        budget = new TokenBucketLimiter("telegram", maxMessagesPerSecond, Math.max(1, 1_000L / maxMessagesPerSecond), 1);
+        sender = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "telegram-appender");
+            thread.setDaemon(true);
+            return thread;
+        });
+        sender.scheduleWithFixedDelay(this::flushSafely, TICK_MILLIS, TICK_MILLIS, TimeUnit.MILLISECONDS);
         super.start();
     }
-    
+
+    @Override
+    public void stop() {
+        if (sender != null) {
+            sender.shutdownNow();
+            try {
+                sender.awaitTermination(SHUTDOWN_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+                flushOnStop();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        // Что не ушло последней пачкой, учитывается как потерянное
+        pending.keySet().forEach(key -> {
+            Pending lost = pending.remove(key);
+            if (lost != null) {
+                dropped.add(lost.count());
+            }
+        });
+        super.stop();
+    }
+
     @Override
     protected void append(ILoggingEvent event) {
         // Проверяем, нужно ли игнорировать этот лог
         if (shouldIgnore(event)) {
             return;
         }
-        
+
         // Отправляем только WARN и ERROR от нашего приложения
         if (event.getLevel().isGreaterOrEqual(Level.WARN)) {
-            System.out.println("📨 Отправляю в Telegram: [" + event.getLevel() + "] " + 
-                event.getLoggerName());
-            
-            String message = formatCompactMessage(event);
-            sendToTelegram(message);
+            received.increment();
+            String key = coalescingKey(event);
+            Pending existing = pending.computeIfPresent(key, (k, entry) -> entry.repeated());
+            if (existing != null) {
+                coalesced.increment();
+            } else if (pending.size() >= maxPending) {
+                dropped.increment();
+            } else if (pending.putIfAbsent(key, new Pending(formatCompactMessage(event), System.nanoTime())) != null) {
+                // Параллельный append успел добавить такое же сообщение
+                pending.computeIfPresent(key, (k, entry) -> entry.repeated());
+                coalesced.increment();
+            }
+        }
+    }
+
+    public TelegramAlertStatsDto stats() {
+        return new TelegramAlertStatsDto(received.sum(), coalesced.sum(), dropped.sum(), sent.sum(),
+            eventsSent.sum(), failed.sum(), pending.size(), circuitBreaker.state(System.nanoTime()));
+    }
+
+    // Вызывается только из потока sender; inFlight не дает начать новую пачку, пока не завершилась прежняя
+    private void flush() {
+        long now = System.nanoTime();
+        if (inFlight.get() || !circuitBreaker.allows(now)) {
+            return;
+        }
+        List<Map.Entry<String, Pending>> ready = ready(now - windowMillis * 1_000_000L);
+        if (ready.isEmpty() || !budget.tryAcquire("chat").allowed()) {
+            return;
         }
+        takeAndSend(ready);
     }
-    
+
+    // Последняя пачка при остановке: окно и бюджет не ждем, но ждем запрос, начатый потоком sender
+    private void flushOnStop() throws InterruptedException {
+        long deadline = System.nanoTime() + SHUTDOWN_TIMEOUT_MILLIS * 1_000_000L;
+        while (inFlight.get() && System.nanoTime() - deadline < 0) {
+            Thread.sleep(10);
+        }
+        long now = System.nanoTime();
+        if (inFlight.get() || !circuitBreaker.allows(now)) {
+            return;
+        }
+        CompletableFuture<?> request = takeAndSend(ready(now));
+        try {
+            request.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (ExecutionException | TimeoutException e) {
+            // Неудачу учитывает обработчик ответа; по таймауту пачка остается за ним
+        }
+    }
+
+    private List<Map.Entry<String, Pending>> ready(long seenBefore) {
+        return pending.entrySet().stream()
+            .filter(entry -> seenBefore - entry.getValue().firstSeen() >= 0)
+            .sorted(Comparator.comparingLong(entry -> entry.getValue().firstSeen()))
+            .toList();
+    }
+
+    private CompletableFuture<?> takeAndSend(List<Map.Entry<String, Pending>> ready) {
+
+        StringBuilder message = new StringBuilder();
+        int events = 0;
+        for (Map.Entry<String, Pending> entry : ready) {
+            String text = entry.getValue().format();
+            if (message.length() > 0 && message.length() + text.length() + 2 > MAX_MESSAGE_LENGTH) {
+                break;
+            }
+            // После remove новые такие же события начнут новую запись, счетчик снятой уже не изменится
+            Pending taken = pending.remove(entry.getKey());
+            if (taken == null) {
+                continue;
+            }
+            text = taken.format();
+            if (message.length() > 0) {
+                message.append("\n\n");
+            }
+            message.append(text);
+            events += taken.count();
+        }
+        return events > 0 ? send(message.toString(), events) : CompletableFuture.completedFuture(null);
+    }
+
+    private void flushSafely() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            addError("Telegram flush failed", e);
+        }
+    }
+
+    private CompletableFuture<?> send(String message, int events) {
+        HttpRequest request;
+        try {
+            request = HttpRequest.newBuilder(URI.create(apiUrl + "/bot" + botToken + "/sendMessage"))
+                .timeout(REQUEST_TIMEOUT)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(
+                    Map.of("chat_id", chatId, "text", message, "parse_mode", "HTML"))))
+                .build();
+        } catch (JsonProcessingException | IllegalArgumentException e) {
+            dropped.add(events);
+            addError("Telegram request could not be built", e);
+            return CompletableFuture.completedFuture(null);
+        }
+        inFlight.set(true);
+        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.discarding()).whenComplete((response, error) -> {
+            long now = System.nanoTime();
+            if (error == null && response.statusCode() == 200) {
+                sent.increment();
+                eventsSent.add(events);
+                circuitBreaker.success();
+            } else {
+                failed.increment();
+                dropped.add(events);
+                circuitBreaker.failure(now);
+                // В консоль, а не в лог: иначе ошибка отправки сама станет сообщением для Telegram
+                System.out.println("❌ Ошибка отправки в Telegram: "
+                    + (error != null ? error.getMessage() : "HTTP " + response.statusCode()));
+            }
+            inFlight.set(false);
+        });
+    }
+
     private boolean shouldIgnore(ILoggingEvent event) {
         String loggerName = event.getLoggerName();
         String message = event.getFormattedMessage();
-        
+
         // Игнорируем логгеры из списка
         if (IGNORED_LOGGERS.stream().anyMatch(loggerName::startsWith)) {
             return true;
         }
-        
+
         // Игнорируем сообщения из списка
         if (IGNORED_MESSAGES.stream().anyMatch(message::contains)) {
             return true;
         }
-        
+
         // Игнорируем INFO и DEBUG уровни
-        if (event.getLevel().isGreaterOrEqual(Level.INFO) && 
+        if (event.getLevel().isGreaterOrEqual(Level.INFO) &&
             !event.getLevel().isGreaterOrEqual(Level.WARN)) {
             return true;
         }
-        
+
         return false;
     }
-    
+
+    private static String coalescingKey(ILoggingEvent event) {
+        String exception = event.getThrowableProxy() != null ? event.getThrowableProxy().getClassName() : "";
+        return event.getLevel() + "|" + event.getLoggerName() + "|" + event.getFormattedMessage() + "|" + exception;
+    }
+
     private String formatCompactMessage(ILoggingEvent event) {
         String icon = getIconForLevel(event.getLevel());
         String appName = extractAppName(event.getLoggerName());
-        
+
         // Компактный формат
         StringBuilder sb = new StringBuilder();
         sb.append(icon).append(" <b>").append(event.getLevel()).append("</b>\n");
         sb.append("├─ <i>").append(appName).append("</i>\n");
-        
+
         String message = event.getFormattedMessage();
         if (message.length() > 200) {
             message = message.substring(0, 197) + "...";
         }
         sb.append("└─ ").append(escapeHtml(message));
-        
+
         // Добавляем информацию об ошибке если есть
         if (event.getThrowableProxy() != null) {
             String exception = event.getThrowableProxy().getClassName();
             sb.append("\n\n💥 <code>").append(exception).append("</code>");
         }
-        
+
         return sb.toString();
     }
-    
+
     private String extractAppName(String loggerName) {
         if (loggerName.startsWith("com.example.demo")) {
             return loggerName.substring("com.example.demo".length());
         }
         return loggerName;
     }
-    
+
     private String getIconForLevel(Level level) {
         switch (level.toInt()) {
             case Level.ERROR_INT: return "🔴";
@@ -114,27 +347,55 @@ public class TelegramAppender extends AppenderBase<ILoggingEvent> {
             default: return "📝";
         }
     }
-    
+
+    // & заменяется первым, иначе &lt; превратился бы в &amp;lt;
     private String escapeHtml(String text) {
         if (text == null) return "";
-        return text.replace("<", "&lt;")
-                   .replace(">", "&gt;")
-                   .replace("&", "&amp;");
+        return text.replace("&", "&amp;")
+                   .replace("<", "&lt;")
+                   .replace(">", "&gt;");
     }
-    
-    private void sendToTelegram(String message) {
-        try {
-            String url = "https://api.telegram.org/bot" + botToken + "/sendMessage";
-            
-            java.util.Map<String, Object> params = new java.util.HashMap<>();
-            params.put("chat_id", chatId);
-            params.put("text", message);
-            params.put("parse_mode", "HTML");
-            
-            restTemplate.postForObject(url, params, String.class);
-            
-        } catch (Exception e) {
-            System.out.println("❌ Ошибка отправки в Telegram: " + e.getMessage());
-        }
-    }
-}
\ No newline at end of file
+
+    // Изменяется только внутри compute карты pending - под блокировкой ее ячейки
+    private record Pending(String text, long firstSeen, int count) {
+        Pending(String text, long firstSeen) {
+            this(text, firstSeen, 1);
+        }
+
+        Pending repeated() {
+            return new Pending(text, firstSeen, count + 1);
+        }
+
+        String format() {
+            return count > 1 ? text + "\n🔁 " + count + "× repeated" : text;
+        }
+    }
+
+    // CLOSED - отправка разрешена; OPEN - пауза после серии неудач; HALF_OPEN - пауза истекла, пробуем один запрос
+    private static class CircuitBreaker {
+        private int consecutiveFailures;
+        private long openUntil;
+
+        synchronized boolean allows(long now) {
+            return consecutiveFailures < FAILURE_THRESHOLD || now - openUntil >= 0;
+        }
+
+        synchronized void success() {
+            consecutiveFailures = 0;
+        }
+
+        synchronized void failure(long now) {
+            consecutiveFailures++;
+            if (consecutiveFailures >= FAILURE_THRESHOLD) {
+                openUntil = now + OPEN_MILLIS * 1_000_000L;
+            }
+        }
+
+        synchronized String state(long now) {
+            if (consecutiveFailures < FAILURE_THRESHOLD) {
+                return "CLOSED";
+            }
+            return now - openUntil >= 0 ? "HALF_OPEN" : "OPEN";
+        }
+    }
+}
@@ -1,9 +1,14 @@
 package com.example.demo.mapper;
 
+import com.example.demo.dto.RoomDeviceSnapshot;
 import com.example.demo.dto.RoomDto;
+import com.example.demo.dto.RoomSnapshot;
 import com.example.demo.dto.UserSimpleDto;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import com.example.demo.dto.DeviceSimpleDto;
 import com.example.demo.model.Room;
@@ -16,6 +21,15 @@ public class RoomMapper {
             return null;
         }
         
+        return toDto(room, room.getDevices() != null ? 
+                room.getDevices().stream()
+                    .map(RoomMapper::toDeviceSimpleDto)
+                    .toList() : 
+                List.of());
+    }
+
+    // Устройства уже загружены отдельным запросом-проекцией, коллекция room.getDevices() не трогается
+    public static RoomDto toDto(Room room, List<DeviceSimpleDto> devices) {
         return new RoomDto(
             room.getId(),
             room.getBus(),
@@ -25,13 +39,32 @@ public class RoomMapper {
                     room.getManager().getUsername(),
                     room.getManager().getRole() != null ? room.getManager().getRole().getName() : null
                 ) : null,
-            room.getDevices() != null ? 
-                room.getDevices().stream()
-                    .map(RoomMapper::toDeviceSimpleDto)
-                    .toList() : 
-                List.of()
+            devices
         );
     }
+
+    // Сборка списка комнат из двух проекций без загрузки сущностей
+    public static List<RoomDto> toDtos(List<RoomSnapshot> rooms, List<RoomDeviceSnapshot> devices) {
+        Map<Long, List<DeviceSimpleDto>> devicesByRoom = groupByRoom(devices);
+        return rooms.stream()
+            .map(room -> new RoomDto(
+                room.id(),
+                room.bus(),
+                room.managerId() != null ?
+                    new UserSimpleDto(room.managerId(), room.managerUsername(), room.managerRole()) : null,
+                devicesByRoom.getOrDefault(room.id(), List.of())
+            ))
+            .toList();
+    }
+
+    public static Map<Long, List<DeviceSimpleDto>> groupByRoom(List<RoomDeviceSnapshot> devices) {
+        Map<Long, List<DeviceSimpleDto>> devicesByRoom = new HashMap<>();
+        for (RoomDeviceSnapshot device : devices) {
+            devicesByRoom.computeIfAbsent(device.roomId(), key -> new ArrayList<>())
+                .add(new DeviceSimpleDto(device.id(), device.title(), device.type(), device.power(), device.active()));
+        }
+        return devicesByRoom;
+    }
     
     private static DeviceSimpleDto toDeviceSimpleDto(Device device) {
         return new DeviceSimpleDto(
@@ -42,4 +75,4 @@ public class RoomMapper {
             device.isActive()
         );
     }
-}
\ No newline at end of file
+}
@@ -15,7 +15,8 @@ import java.time.LocalDateTime;
 public class File {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "files_seq")
+    @SequenceGenerator(name = "files_seq", sequenceName = "files_seq", allocationSize = 50)
     private Long id;
     
     @Column(nullable = false)
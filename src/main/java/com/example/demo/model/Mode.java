@@ -10,7 +10,8 @@ import java.util.List;
 public class Mode {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "mode_seq")
+    @SequenceGenerator(name = "mode_seq", sequenceName = "mode_seq", allocationSize = 50)
     private Long id;
 
     @Enumerated(EnumType.STRING)
@@ -7,7 +7,8 @@ import lombok.Data;
 @Data
 public class ModeRule {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "mode_rule_seq")
+    @SequenceGenerator(name = "mode_rule_seq", sequenceName = "mode_rule_seq", allocationSize = 50)
     private Long id;
 
     @Enumerated(EnumType.STRING)
@@ -1,32 +1,44 @@
 package com.example.demo.model;
 
+import com.example.demo.service.PrincipalCacheInvalidator;
+
 import java.util.Set;
 
 import org.springframework.security.core.GrantedAuthority;
 
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.ManyToMany;
+import jakarta.persistence.SequenceGenerator;
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 
 @Entity
+@EntityListeners(PrincipalCacheInvalidator.class)
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class Permission implements GrantedAuthority{
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "permission_seq")
+    @SequenceGenerator(name = "permission_seq", sequenceName = "permission_seq", allocationSize = 50)
     private Long id;
 
     private String resource;
 
     private String operation;
 
+    // Обратная сторона связи: в equals/hashCode и toString не участвует, иначе каждое право
+    // в HashSet прав роли догружало бы свои роли отдельным SELECT
     @ManyToMany
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
     private Set<Role> roles;
 
     @Override
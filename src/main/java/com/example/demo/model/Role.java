@@ -1,34 +1,47 @@
 package com.example.demo.model;
 
+import com.example.demo.service.PrincipalCacheInvalidator;
+
 import java.util.Set;
 
 import org.springframework.security.core.GrantedAuthority;
 
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.ManyToMany;
 import jakarta.persistence.OneToMany;
+import jakarta.persistence.SequenceGenerator;
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 
 @Entity
+@EntityListeners(PrincipalCacheInvalidator.class)
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class Role implements GrantedAuthority{
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "role_seq")
+    @SequenceGenerator(name = "role_seq", sequenceName = "role_seq", allocationSize = 50)
     private Long id;
 
     private String name;
 
+    // Коллекции не участвуют в equals/hashCode и toString: это догрузка по SELECT на вызов
     @OneToMany
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
     private Set<User> users;
 
     @ManyToMany
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
     private Set<Permission> permissions;
 
     @Override
@@ -12,9 +12,12 @@ import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.OneToMany;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
 import jakarta.validation.constraints.NotBlank;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -24,6 +27,8 @@ import lombok.Setter;
 import lombok.ToString;
 
 @Entity
+// Комнаты менеджера и проверка владения устройствами
+@Table(indexes = @Index(name = "idx_room_manager", columnList = "manager_id"))
 @Getter
 @Setter
 @NoArgsConstructor
@@ -32,7 +37,8 @@ import lombok.ToString;
 public class Room {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "room_seq")
+    @SequenceGenerator(name = "room_seq", sequenceName = "room_seq", allocationSize = 50)
     @ToString.Include
     private Long id;
 
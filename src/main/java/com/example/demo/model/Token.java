@@ -2,40 +2,64 @@ package com.example.demo.model;
 
 import java.time.LocalDateTime;
 
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
+
 import com.example.demo.model.TokenType;
 
+import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+import jakarta.persistence.Transient;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
 @Entity
+// Отзыв всех токенов пользователя - по (user_id, disabled); очистка истекших - по expiry_date
+@Table(indexes = {
+    @Index(name = "idx_token_user_disabled", columnList = "user_id, disabled"),
+    @Index(name = "idx_token_expiry", columnList = "expiry_date")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class Token {
 
-    public Token(TokenType type, String tokenValue, LocalDateTime expiryDate, boolean disabled, User user) {
+    public Token(TokenType type, String tokenValue, String tokenHash, LocalDateTime expiryDate, boolean disabled,
+                 User user) {
         this.type = type;
         this.tokenValue = tokenValue;
+        this.tokenHash = tokenHash;
         this.expiryDate = expiryDate;
         this.disabled = disabled;
         this.user = user;
     }
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "token_seq")
+    @SequenceGenerator(name = "token_seq", sequenceName = "token_seq", allocationSize = 50)
     private Long id;
-    
+
     private TokenType type;
+
+    // Сама строка JWT в БД не хранится - только ее SHA-256 (Base64); строка нужна лишь для cookie при выдаче
+    @Transient
     private String tokenValue;
+
+    @Column(nullable = false, unique = true, length = 44)
+    private String tokenHash;
+
     private LocalDateTime expiryDate;
     private boolean disabled;
 
     @ManyToOne
+    @OnDelete(action = OnDeleteAction.CASCADE)
     private User user;
-}
\ No newline at end of file
+}
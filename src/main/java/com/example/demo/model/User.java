@@ -36,7 +36,8 @@ import com.fasterxml.jackson.annotation.JsonManagedReference;
 public class User implements UserDetails{
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "users_seq")
+    @SequenceGenerator(name = "users_seq", sequenceName = "users_seq", allocationSize = 50)
     @ToString.Include
     private Long id;
 
@@ -57,7 +58,8 @@ public class User implements UserDetails{
     @ManyToOne
     private Role role;
 
-    @OneToMany
+    // Без mappedBy Hibernate вел отдельную таблицу users_tokens, которую никто не заполнял
+    @OneToMany(mappedBy = "user")
     private Set<Token> tokens;
 
     @Override
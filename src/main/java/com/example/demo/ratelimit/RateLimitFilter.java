@@ -0,0 +1,144 @@
+package com.example.demo.ratelimit;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Ограничение частоты запросов к дорогим адресам: вход и смена пароля (BCrypt),
+ * управление устройствами и режимы (массовые записи в БД).
+ * Стоит в цепочке Spring Security сразу после JwtAuthFilter: ключ - имя аутентифицированного пользователя,
+ * для анонимных запросов (вход) - IP клиента. У каждого семейства адресов своя корзина и свои лимиты;
+ * состояние корзины возвращается в заголовках RateLimit-*, при превышении - 429 с Retry-After.
+ */
+@Slf4j
+@Component
+public class RateLimitFilter extends OncePerRequestFilter {
+    private static final Logger logger = LoggerFactory.getLogger(RateLimitFilter.class);
+    private static final int MAX_BUCKETS = 100_000;
+
+    // Всплеск и время восстановления одного запроса для каждого семейства; "/**" в конце - все вложенные пути
+    private final List<Family> families = List.of(
+        new Family(List.of("/api/auth/login", "/api/auth/change-password"),
+            new TokenBucketLimiter("auth", 20, 500, MAX_BUCKETS)),
+        new Family(List.of("/api/control/**"),
+            new TokenBucketLimiter("control", 20, 200, MAX_BUCKETS)),
+        new Family(List.of("/api/modes/**"),
+            new TokenBucketLimiter("modes", 5, 1_000, MAX_BUCKETS))
+    );
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        TokenBucketLimiter limiter = limiterFor(request.getMethod(), request.getServletPath());
+        if (limiter == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        String username = authenticatedUsername();
+        String key = username != null ? "user:" + username : "ip:" + request.getRemoteAddr();
+        TokenBucketLimiter.Decision decision = limiter.tryAcquire(key);
+        response.setHeader("RateLimit-Policy", limiter.getCapacity() + ";w=" + limiter.getWindowSeconds());
+        response.setHeader("RateLimit-Limit", String.valueOf(decision.limit()));
+        response.setHeader("RateLimit-Remaining", String.valueOf(decision.remaining()));
+        response.setHeader("RateLimit-Reset", String.valueOf(toSeconds(decision.resetNanos())));
+        if (decision.allowed()) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        logger.debug("Rate limit '{}' exceeded by {} on {}", limiter.getName(), key, request.getRequestURI());
+        long retryAfter = toSeconds(decision.retryAfterNanos());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfter));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        final Map<String, Object> body = new HashMap<>();
+        body.put("timestamp", LocalDateTime.now().toString());
+        body.put("status", HttpStatus.TOO_MANY_REQUESTS.value());
+        body.put("message", "Rate limit exceeded, retry after " + retryAfter + " s");
+        body.put("details", request.getServletPath());
+        body.put("error", HttpStatus.TOO_MANY_REQUESTS.getReasonPhrase());
+        objectMapper.writeValue(response.getOutputStream(), body);
+    }
+
+    // Простаивающая корзина равна новой - удаляем, чтобы карта не росла от разовых IP
+    @Scheduled(fixedDelay = 60_000)
+    public void evictIdleBuckets() {
+        for (Family family : families) {
+            int evicted = family.limiter().evictIdle();
+            if (evicted > 0) {
+                logger.debug("Rate limit '{}': {} idle buckets evicted, {} left",
+                    family.limiter().getName(), evicted, family.limiter().size());
+            }
+        }
+    }
+
+    // Ограничиваются только изменяющие запросы; GET (например, /api/control/power) проходит без счета.
+    // Видимость пакетная для RateLimiterBenchmark
+    TokenBucketLimiter limiterFor(String method, String path) {
+        if (!HttpMethod.POST.matches(method)) {
+            return null;
+        }
+        for (Family family : families) {
+            if (family.matches(path)) {
+                return family.limiter();
+            }
+        }
+        return null;
+    }
+
+    private static String authenticatedUsername() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !authentication.isAuthenticated()
+                || authentication instanceof AnonymousAuthenticationToken) {
+            return null;
+        }
+        return authentication.getName();
+    }
+
+    // Вверх до целой секунды: Retry-After: 0 клиент понял бы как "повторить сразу"
+    private static long toSeconds(long nanos) {
+        return (nanos + 999_999_999L) / 1_000_000_000L;
+    }
+
+    // Сравнение строк вместо AntPathMatcher: тот разбирает шаблон на каждом запросе, это сотни наносекунд
+    private record Family(List<String> patterns, TokenBucketLimiter limiter) {
+        boolean matches(String path) {
+            for (String pattern : patterns) {
+                boolean matched = pattern.endsWith("/**")
+                    ? path.startsWith(pattern.substring(0, pattern.length() - 2))
+                    : path.equals(pattern);
+                if (matched) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
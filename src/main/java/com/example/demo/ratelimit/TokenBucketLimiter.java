@@ -0,0 +1,104 @@
+package com.example.demo.ratelimit;
+
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token bucket на ключ (пользователь или IP) без блокировок.
+ * Состояние корзины - одно число: момент, когда она снова станет полной (GCRA, "theoretical arrival time").
+ * Запрос сдвигает этот момент на интервал пополнения через compareAndSet и проходит, если корзина
+ * не опустела бы раньше, чем через capacity интервалов. Корзины лежат в ConcurrentHashMap (блокировки по ячейкам),
+ * поиск существующей корзины не блокируется вовсе.
+ * Корзина, момент заполнения которой уже прошел, неотличима от отсутствующей - такие удаляет evictIdle.
+ */
+public class TokenBucketLimiter {
+    private final String name;
+    private final int capacity;
+    private final long refillNanos;
+    private final long capacityNanos;
+    private final int maxBuckets;
+    private final Map<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+
+    // capacity - размер всплеска; refillMillis - время восстановления одного запроса
+    public TokenBucketLimiter(String name, int capacity, long refillMillis, int maxBuckets) {
+        this.name = name;
+        this.capacity = capacity;
+        this.refillNanos = refillMillis * 1_000_000L;
+        this.capacityNanos = capacity * refillNanos;
+        this.maxBuckets = maxBuckets;
+    }
+
+    public Decision tryAcquire(String key) {
+        return tryAcquire(key, System.nanoTime());
+    }
+
+    Decision tryAcquire(String key, long now) {
+        AtomicLong bucket = buckets.get(key);
+        if (bucket == null) {
+            bucket = buckets.computeIfAbsent(key, k -> new AtomicLong(now));
+            if (buckets.size() > maxBuckets) {
+                shrink(now);
+            }
+        }
+        while (true) {
+            long fullAt = bucket.get();
+            // Сравнение через разность: nanoTime может быть отрицательным
+            long next = (fullAt - now > 0 ? fullAt : now) + refillNanos;
+            long used = next - now;
+            if (used > capacityNanos) {
+                return new Decision(false, capacity, 0, fullAt - now, used - capacityNanos);
+            }
+            if (bucket.compareAndSet(fullAt, next)) {
+                return new Decision(true, capacity, (capacityNanos - used) / refillNanos, used, 0);
+            }
+        }
+    }
+
+    // Гонка с запросом к удаляемой корзине стоит не больше одного лишнего пропущенного запроса
+    public int evictIdle() {
+        long now = System.nanoTime();
+        int before = buckets.size();
+        buckets.values().removeIf(bucket -> bucket.get() - now <= 0);
+        return before - buckets.size();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    // Окно, за которое корзина восстанавливается полностью
+    public long getWindowSeconds() {
+        return Math.max(1, capacityNanos / 1_000_000_000L);
+    }
+
+    public int size() {
+        return buckets.size();
+    }
+
+    // Переполнение (например, перебор IP): сначала простаивающие корзины, затем самые полные до 90% от лимита
+    private synchronized void shrink(long now) {
+        if (buckets.size() <= maxBuckets) {
+            return;
+        }
+        buckets.values().removeIf(bucket -> bucket.get() - now <= 0);
+        int excess = buckets.size() - maxBuckets * 9 / 10;
+        if (excess <= 0) {
+            return;
+        }
+        buckets.entrySet().stream()
+            .sorted(Comparator.comparingLong(e -> e.getValue().get() - now))
+            .limit(excess)
+            .map(Map.Entry::getKey)
+            .toList()
+            .forEach(buckets::remove);
+    }
+
+    // resetNanos - через сколько корзина снова полна; retryAfterNanos - когда пройдет следующий запрос
+    public record Decision(boolean allowed, int limit, long remaining, long resetNanos, long retryAfterNanos) {}
+}
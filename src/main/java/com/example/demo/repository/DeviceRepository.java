@@ -1,43 +1,95 @@
 package com.example.demo.repository;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import jakarta.persistence.LockModeType;
+
+import com.example.demo.dto.DevicePowerSnapshot;
+import com.example.demo.dto.DeviceStateSnapshot;
+import com.example.demo.dto.TitleSnapshot;
 import com.example.demo.model.Device;
 import com.example.demo.model.DeviceType;
 
 @Repository
 public interface DeviceRepository extends JpaRepository<Device, Long>, JpaSpecificationExecutor<Device>{
+    // Комната устройства и ее менеджер (оба EAGER) для списков: одним JOIN вместо SELECT на каждую комнату
+    String[] ROOM_GRAPH = {"room", "room.manager", "room.manager.role"};
+
+    @Override
+    @EntityGraph(attributePaths = {"room", "room.manager", "room.manager.role"})
+    Page<Device> findAll(Specification<Device> spec, Pageable pageable);
+
     // Найти все устройства по типу
+    @EntityGraph(attributePaths = {"room", "room.manager", "room.manager.role"})
     List<Device> findByType(DeviceType type);
     
-    // Найти все устройства по названию (игнорируя регистр)
-    List<Device> findByTitleContainingIgnoreCase(String title);
-    
     // Найти все включенные устройства
     List<Device> findByActiveTrue();
     
     // Найти устройства в определенной комнате (по id комнаты)
     List<Device> findByRoomId(Long roomId);
 
+    // Первое устройство заданного типа в комнате (индекс idx_device_room_type)
+    Optional<Device> findFirstByRoomIdAndTypeOrderByIdAsc(Long roomId, DeviceType type);
+
 
     
     @Query("SELECT d FROM Device d WHERE d.room.manager.id = :managerId")
     Page<Device> findByRoomManagerId(@Param("managerId") Long managerId, Pageable pageable);
-    
-    
-    @Query("SELECT d FROM Device d WHERE d.room.manager.id = :managerId " +
-           "AND (:type IS NULL OR d.type = :type) " +
-           "AND (:active IS NULL OR d.active = :active)")
-    Page<Device> findByManagerIdWithFilter(@Param("managerId") Long managerId,
-                                         @Param("type") DeviceType type,
-                                         @Param("active") Boolean active,
-                                         Pageable pageable);
-}
\ No newline at end of file
+
+
+    // Снимок мощности включенных устройств для PowerLedgerService
+    @Query("SELECT new com.example.demo.dto.DevicePowerSnapshot(d.id, d.type, d.power, d.active, r.id, m.id) " +
+           "FROM Device d LEFT JOIN d.room r LEFT JOIN r.manager m WHERE d.active = true")
+    List<DevicePowerSnapshot> findActivePowerSnapshots();
+
+    @Query("SELECT COALESCE(SUM(d.power), 0) FROM Device d WHERE d.active = true")
+    double sumActivePower();
+
+    @Query("SELECT new com.example.demo.dto.DevicePowerSnapshot(d.id, d.type, d.power, d.active, r.id, m.id) " +
+           "FROM Device d LEFT JOIN d.room r LEFT JOIN r.manager m WHERE d.id IN :ids")
+    List<DevicePowerSnapshot> findPowerSnapshotsByIds(@Param("ids") Collection<Long> ids);
+
+    // Массовое переключение: сначала блокируем и запоминаем затронутые строки, затем UPDATE по их id
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT d.id FROM Device d WHERE d.active <> :active")
+    List<Long> lockIdsByActiveNot(@Param("active") boolean active);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT d.id FROM Device d WHERE d.type = :type AND d.active <> :active")
+    List<Long> lockIdsByTypeAndActiveNot(@Param("type") DeviceType type, @Param("active") boolean active);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT d.id FROM Device d WHERE d.type <> :type AND d.active <> :active")
+    List<Long> lockIdsByTypeNotAndActiveNot(@Param("type") DeviceType type, @Param("active") boolean active);
+
+    // Названия всех устройств для построения триграммного индекса
+    @Query("SELECT new com.example.demo.dto.TitleSnapshot(d.id, d.title) FROM Device d")
+    List<TitleSnapshot> findAllTitleSnapshots();
+
+    // Поля, по которым проверяются правила режимов, без загрузки комнат и менеджеров
+    @Query("SELECT new com.example.demo.dto.DeviceStateSnapshot(d.id, d.type, d.title, d.power, d.active) FROM Device d")
+    List<DeviceStateSnapshot> findAllStateSnapshots();
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT d.id FROM Device d WHERE d.id IN :ids AND d.active <> :active")
+    List<Long> lockIdsByIdInAndActiveNot(@Param("ids") Collection<Long> ids, @Param("active") boolean active);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Device d SET d.active = :active WHERE d.id IN :ids AND d.active <> :active")
+    int updateActiveByIdIn(@Param("ids") Collection<Long> ids, @Param("active") boolean active);
+}
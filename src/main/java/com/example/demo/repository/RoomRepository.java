@@ -1,18 +1,48 @@
 package com.example.demo.repository;
 
+import java.util.Collection;
 import java.util.List;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import com.example.demo.dto.RoomDeviceSnapshot;
+import com.example.demo.dto.RoomSnapshot;
+import com.example.demo.dto.TitleSnapshot;
 import com.example.demo.model.Room;
 
 @Repository
-public interface RoomRepository extends JpaRepository<Room, Long>{
+public interface RoomRepository extends JpaRepository<Room, Long>, JpaSpecificationExecutor<Room>{
     List<Room> findByBusIgnoreCase(String bus);
 
+    // Названия всех комнат для построения триграммного индекса
+    @Query("SELECT new com.example.demo.dto.TitleSnapshot(r.id, r.bus) FROM Room r")
+    List<TitleSnapshot> findAllTitleSnapshots();
+
     @Query("SELECT r FROM Room r WHERE r.manager.id = :managerId")
     List<Room> findByManagerId(@Param("managerId") Long managerId);
+
+    // Проекции для списка комнат: комнаты с менеджером и ролью одним запросом, устройства - вторым
+    @Query("SELECT new com.example.demo.dto.RoomSnapshot(r.id, r.bus, m.id, m.username, mr.name) " +
+           "FROM Room r LEFT JOIN r.manager m LEFT JOIN m.role mr ORDER BY r.id")
+    List<RoomSnapshot> findAllSnapshots();
+
+    @Query("SELECT new com.example.demo.dto.RoomSnapshot(r.id, r.bus, m.id, m.username, mr.name) " +
+           "FROM Room r JOIN r.manager m LEFT JOIN m.role mr WHERE m.id = :managerId ORDER BY r.id")
+    List<RoomSnapshot> findSnapshotsByManagerId(@Param("managerId") Long managerId);
+
+    @Query("SELECT new com.example.demo.dto.RoomDeviceSnapshot(r.id, d.id, d.title, d.type, d.power, d.active) " +
+           "FROM Device d JOIN d.room r ORDER BY d.id")
+    List<RoomDeviceSnapshot> findAllDeviceSnapshots();
+
+    @Query("SELECT new com.example.demo.dto.RoomDeviceSnapshot(r.id, d.id, d.title, d.type, d.power, d.active) " +
+           "FROM Device d JOIN d.room r WHERE r.manager.id = :managerId ORDER BY d.id")
+    List<RoomDeviceSnapshot> findDeviceSnapshotsByManagerId(@Param("managerId") Long managerId);
+
+    @Query("SELECT new com.example.demo.dto.RoomDeviceSnapshot(r.id, d.id, d.title, d.type, d.power, d.active) " +
+           "FROM Device d JOIN d.room r WHERE r.id IN :roomIds ORDER BY d.id")
+    List<RoomDeviceSnapshot> findDeviceSnapshotsByRoomIdIn(@Param("roomIds") Collection<Long> roomIds);
 }
\ No newline at end of file
@@ -1,17 +1,39 @@
 package com.example.demo.repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
-import java.util.Optional;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import com.example.demo.dto.TokenExpirySnapshot;
 import com.example.demo.model.Token;
-import com.example.demo.model.User;
 
 @Repository
 public interface TokenRepository extends JpaRepository<Token, Long>{
-    List<Token> findByUser(User user);
-    List<Token> findByUserAndDisabledFalse(User user);
-    Optional<Token> findByTokenValueAndDisabledFalse(String tokenValue);
-}
\ No newline at end of file
+    // Действующие токены пользователя, кроме keepHash (null - все)
+    @Query("SELECT new com.example.demo.dto.TokenExpirySnapshot(t.tokenHash, t.expiryDate) FROM Token t "
+        + "WHERE t.user.id = :userId AND t.disabled = false AND t.expiryDate > :now "
+        + "AND (:keepHash IS NULL OR t.tokenHash <> :keepHash)")
+    List<TokenExpirySnapshot> findLiveByUserId(@Param("userId") Long userId, @Param("now") LocalDateTime now,
+                                               @Param("keepHash") String keepHash);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Token t SET t.disabled = true "
+        + "WHERE t.user.id = :userId AND t.disabled = false AND t.expiryDate > :now "
+        + "AND (:keepHash IS NULL OR t.tokenHash <> :keepHash)")
+    int disableLiveByUserId(@Param("userId") Long userId, @Param("now") LocalDateTime now,
+                            @Param("keepHash") String keepHash);
+
+    // Отозванные, но еще не истекшие токены - для восстановления списка отзыва при запуске
+    @Query("SELECT new com.example.demo.dto.TokenExpirySnapshot(t.tokenHash, t.expiryDate) FROM Token t "
+        + "WHERE t.disabled = true AND t.expiryDate > :now")
+    List<TokenExpirySnapshot> findRevokedLive(@Param("now") LocalDateTime now);
+
+    @Query("SELECT t.id FROM Token t WHERE t.expiryDate <= :now")
+    List<Long> findExpiredIds(@Param("now") LocalDateTime now, Pageable pageable);
+}
@@ -1,12 +1,21 @@
 package com.example.demo.repository;
 
 import com.example.demo.model.User;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
+    // Роль и ее права нужны почти каждому вызову (getAuthorities, мапперы) - загружаем одним JOIN
+    @EntityGraph(attributePaths = {"role", "role.permissions"})
     Optional<User> findByUsername(String username);
+
+    @Override
+    @EntityGraph(attributePaths = {"role", "role.permissions"})
+    List<User> findAll();
+
     boolean existsByUsername(String username);
 }
\ No newline at end of file
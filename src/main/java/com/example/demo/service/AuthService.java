@@ -1,6 +1,5 @@
 package com.example.demo.service;
 
-import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
 import java.util.Map;
 
@@ -19,11 +18,12 @@ import org.springframework.stereotype.Service;
 import com.example.demo.dto.ChangePasswordDto;
 import com.example.demo.dto.LoginRequest;
 import com.example.demo.dto.LoginResponse;
+import com.example.demo.exception.PasswordHashingBusyException;
 import com.example.demo.jwt.CookieUtil;
 import com.example.demo.jwt.JwtTokenProvider;
+import com.example.demo.jwt.VerifiedToken;
 import com.example.demo.model.Token;
 import com.example.demo.model.User;
-import com.example.demo.repository.TokenRepository;
 import lombok.RequiredArgsConstructor;
 
 @Service
@@ -38,11 +38,12 @@ public class AuthService {
     private final long refreshTokenDurationDay = 7L;       // 7 дней
 
     private final UserService userService;
-    private final TokenRepository tokenRepository;
+    private final TokenService tokenService;
     private final JwtTokenProvider jwtTokenProvider;
     private final CookieUtil cookieUtil;
     private final AuthenticationManager authenticationManager;
     private final PasswordEncoder passwordEncoder;
+    private final PrincipalCache principalCache;
 
     private void addAccessTokenCookie(HttpHeaders headers, Token token) {
         headers.add(HttpHeaders.SET_COOKIE, 
@@ -54,15 +55,9 @@ public class AuthService {
             cookieUtil.createRefreshTokenCookie(token.getTokenValue(), refreshTokenDurationSecond).toString()); 
     }
 
-    private void revokeAllTokensOfUser(User user) {
-        user.getTokens().forEach(t -> {
-            if (t.getExpiryDate().isBefore(LocalDateTime.now())) {
-                tokenRepository.delete(t);
-            } else if (!t.isDisabled()) {
-                t.setDisabled(true);
-                tokenRepository.save(t);
-            }
-        });
+    private boolean issuedTo(String token, String username) {
+        VerifiedToken verified = jwtTokenProvider.verify(token);
+        return verified != null && username.equals(verified.subject());
     }
 
     public ResponseEntity<LoginResponse> login(LoginRequest loginRequest, String access, String refresh) {
@@ -73,11 +68,14 @@ public class AuthService {
             );
             String username = loginRequest.username();
             User user = userService.getUserByUsername(username);
-            boolean accessTokenValid = jwtTokenProvider.validateToken(access);
-            boolean refreshTokenValid = jwtTokenProvider.validateToken(refresh);
+            // Токены из cookie считаются, только если выданы этому же пользователю
+            boolean accessTokenValid = issuedTo(access, username);
+            boolean refreshTokenValid = issuedTo(refresh, username);
             HttpHeaders headers = new HttpHeaders();
             
-            revokeAllTokensOfUser(user);
+            // Токен, который остается у клиента без замены, не отзываем: access, а если он истек - refresh
+            String keptToken = accessTokenValid ? access : refreshTokenValid ? refresh : null;
+            tokenService.revokeAllOfUser(user, keptToken);
             
             if(!accessTokenValid) {
                 Token newAccess = jwtTokenProvider.generateAccessToken(
@@ -86,6 +84,7 @@ public class AuthService {
                 );
                 newAccess.setUser(user);
                 addAccessTokenCookie(headers, newAccess);
+                tokenService.save(newAccess);
             }
             
             if(!refreshTokenValid || accessTokenValid) {
@@ -94,7 +93,7 @@ public class AuthService {
                 );
                 newRefresh.setUser(user);
                 addRefreshTokenCookie(headers, newRefresh);
-                tokenRepository.save(newRefresh);
+                tokenService.save(newRefresh);
             }
             
             SecurityContextHolder.getContext().setAuthentication(authentication);
@@ -105,6 +104,10 @@ public class AuthService {
         } catch (AuthenticationException e) {
             logger.warn("Authentication error for the user: {}", loginRequest.username());
             throw e;
+        } catch (PasswordHashingBusyException e) {
+            // Пробрасывается как есть: ResponseStatusExceptionResolver отдаст 503 с Retry-After
+            logger.debug("Password hashing is busy, login rejected for the user: {}", loginRequest.username());
+            throw e;
         }
     }
 
@@ -120,7 +123,9 @@ public class AuthService {
             Map.of("role", user.getRole().getAuthority()),
             accessTokenDurationMinute, ChronoUnit.MINUTES, user
         );
+        newAccess.setUser(user);
         addAccessTokenCookie(headers, newAccess);
+        tokenService.save(newAccess);
         logger.info("The token has been updated for the user: {}", user.getUsername());
         return ResponseEntity.ok()
             .headers(headers)
@@ -132,7 +137,8 @@ public class AuthService {
         logger.info("User Output: {}", username);
         SecurityContextHolder.clearContext();
         User user = userService.getUserByUsername(jwtTokenProvider.getUsername(accessToken));
-        revokeAllTokensOfUser(user);
+        tokenService.revokeAllOfUser(user, null);
+        principalCache.invalidate(username);
         HttpHeaders headers = new HttpHeaders();
         headers.add(HttpHeaders.SET_COOKIE, cookieUtil.deleteAccessTokenCookie().toString());
         headers.add(HttpHeaders.SET_COOKIE, cookieUtil.deleteRefreshTokenCookie().toString());
@@ -161,17 +167,23 @@ public class AuthService {
                 return ResponseEntity.badRequest().body("Current password is incorrect");
             }
             
-            if (passwordEncoder.matches(changePasswordDto.newPassword(), user.getPassword())) {
+            // Текущий пароль уже сверен с хешем - второй BCrypt для сравнения с новым не нужен
+            if (changePasswordDto.newPassword().equals(changePasswordDto.currentPassword())) {
                 logger.warn("New password cannot be the same as current password for user: {}", username);
                 return ResponseEntity.badRequest().body("New password must be different from current password");
             }
             
-            user.setPassword(passwordEncoder.encode(changePasswordDto.newPassword()));
-            userService.updateUser(user.getId(), user); 
+            // updateUser хеширует сам; user в контексте сохранения - тот же объект, поэтому его не трогаем
+            User passwordChange = new User();
+            passwordChange.setPassword(changePasswordDto.newPassword());
+            userService.updateUser(user.getId(), passwordChange);
             
             logger.info("Password successfully changed for user: {}", username);
             return ResponseEntity.ok("Password changed successfully");
             
+        } catch (PasswordHashingBusyException e) {
+            logger.warn("Password hashing is busy, password change rejected for user: {}", username);
+            return ResponseEntity.status(e.getStatusCode()).headers(e.getHeaders()).body(e.getReason());
         } catch (Exception e) {
             logger.error("Error changing password for user {}: {}", username, e.getMessage());
             return ResponseEntity.internalServerError().body("Error changing password");
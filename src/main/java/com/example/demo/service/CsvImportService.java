@@ -0,0 +1,262 @@
+package com.example.demo.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import org.apache.commons.csv.CSVRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+
+import com.example.demo.dto.CsvImportDto;
+import com.example.demo.model.Device;
+import com.example.demo.model.DeviceType;
+import com.example.demo.model.Room;
+import com.example.demo.model.User;
+import com.example.demo.repository.DeviceRepository;
+import com.example.demo.repository.RoomRepository;
+import com.example.demo.repository.UserRepository;
+import com.example.demo.service.CsvParserUtil.CsvRow;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Потоковый импорт устройств и комнат из CSV.
+ * Строки сохраняются порциями, каждая порция - одна транзакция, после которой контекст
+ * персистентности очищается. Поиск комнат и менеджеров кэшируется на время одного импорта.
+ * Если порция не сохранилась целиком, она повторяется построчно, чтобы указать ошибочные строки.
+ * Метрики по entity: csv.import.rows (outcome imported - после каждой порции, чтобы rate() давал
+ * строки в секунду по ходу импорта, failed - по итогу) и csv.import - длительность всего файла.
+ */
+@Slf4j
+@Service
+public class CsvImportService {
+    private static final Logger logger = LoggerFactory.getLogger(CsvImportService.class);
+    public static final int DEFAULT_BATCH_SIZE = 500;
+    public static final int MAX_BATCH_SIZE = 5000;
+
+    private final CsvParserUtil csvParserUtil;
+    private final DeviceRepository deviceRepository;
+    private final RoomRepository roomRepository;
+    private final UserRepository userRepository;
+    private final PowerLedgerService powerLedgerService;
+    private final TitleSearchService titleSearchService;
+    private final TransactionTemplate transactionTemplate;
+    private final EntityManager entityManager;
+    private final ImportMeters deviceMeters;
+    private final ImportMeters roomMeters;
+
+    public CsvImportService(CsvParserUtil csvParserUtil, DeviceRepository deviceRepository,
+                            RoomRepository roomRepository, UserRepository userRepository,
+                            PowerLedgerService powerLedgerService, TitleSearchService titleSearchService,
+                            PlatformTransactionManager transactionManager, EntityManager entityManager,
+                            MeterRegistry meterRegistry) {
+        this.csvParserUtil = csvParserUtil;
+        this.deviceRepository = deviceRepository;
+        this.roomRepository = roomRepository;
+        this.userRepository = userRepository;
+        this.powerLedgerService = powerLedgerService;
+        this.titleSearchService = titleSearchService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.entityManager = entityManager;
+        this.deviceMeters = new ImportMeters(meterRegistry, "device");
+        this.roomMeters = new ImportMeters(meterRegistry, "room");
+    }
+
+    public CsvImportDto importDevices(MultipartFile file, Integer batchSize) {
+        int size = batchSize(batchSize);
+        logger.debug("Streaming device import: batch size {}", size);
+        Map<String, Optional<Room>> roomsByBus = new HashMap<>();
+        return deviceMeters.measure(() -> csvParserUtil.streamCsvFile(file, size,
+            record -> mapDevice(record, roomsByBus),
+            batch -> saveBatch(batch, deviceRepository, Device::getTitle, device -> device.setId(null),
+                saved -> {
+                    saved.forEach(device -> {
+                        powerLedgerService.record(device);
+                        titleSearchService.indexDevice(device);
+                    });
+                    deviceMeters.imported.increment(saved.size());
+                })));
+    }
+
+    public CsvImportDto importRooms(MultipartFile file, User currentUser, Integer batchSize) {
+        int size = batchSize(batchSize);
+        logger.debug("Streaming room import: batch size {}", size);
+        Map<String, Optional<User>> managers = new HashMap<>();
+        return roomMeters.measure(() -> csvParserUtil.streamCsvFile(file, size,
+            record -> mapRoom(record, currentUser, managers),
+            batch -> saveBatch(batch, roomRepository, Room::getBus, room -> room.setId(null),
+                saved -> {
+                    saved.forEach(titleSearchService::indexRoom);
+                    roomMeters.imported.increment(saved.size());
+                })));
+    }
+
+    // Счетчики одного вида импорта; ошибочные строки известны только в итоговом отчете
+    private static final class ImportMeters {
+        private final Counter imported;
+        private final Counter failed;
+        private final Timer duration;
+
+        ImportMeters(MeterRegistry meterRegistry, String entity) {
+            this.imported = Counter.builder("csv.import.rows")
+                .tag("entity", entity).tag("outcome", "imported")
+                .register(meterRegistry);
+            this.failed = Counter.builder("csv.import.rows")
+                .tag("entity", entity).tag("outcome", "failed")
+                .register(meterRegistry);
+            this.duration = Timer.builder("csv.import")
+                .description("Whole CSV file import time")
+                .tag("entity", entity)
+                .register(meterRegistry);
+        }
+
+        CsvImportDto measure(Supplier<CsvImportDto> importer) {
+            CsvImportDto result = duration.record(importer);
+            failed.increment(result.errorCount());
+            return result;
+        }
+    }
+
+    private static int batchSize(Integer requested) {
+        if (requested == null) {
+            return DEFAULT_BATCH_SIZE;
+        }
+        return Math.max(1, Math.min(requested, MAX_BATCH_SIZE));
+    }
+
+    private <T> List<String> saveBatch(List<CsvRow<T>> batch, JpaRepository<T, Long> repository,
+                                       Function<T, String> label, Consumer<T> resetId,
+                                       Consumer<List<T>> afterCommit) {
+        List<T> values = batch.stream().map(CsvRow::value).toList();
+        try {
+            List<T> saved = transactionTemplate.execute(status -> {
+                List<T> result = repository.saveAll(values);
+                entityManager.flush();
+                entityManager.clear();
+                return result;
+            });
+            afterCommit.accept(saved);
+            return List.of();
+        } catch (RuntimeException e) {
+            entityManager.clear();
+            logger.warn("CSV batch of {} rows failed, retrying row by row: {}", batch.size(), e.getMessage());
+        }
+
+        List<String> errors = new ArrayList<>();
+        for (CsvRow<T> row : batch) {
+            T value = row.value();
+            resetId.accept(value);
+            try {
+                T saved = transactionTemplate.execute(status -> {
+                    T result = repository.save(value);
+                    entityManager.flush();
+                    return result;
+                });
+                afterCommit.accept(List.of(saved));
+            } catch (RuntimeException e) {
+                errors.add(String.format("Line %d '%s': %s", row.lineNumber(), label.apply(value), e.getMessage()));
+            } finally {
+                entityManager.clear();
+            }
+        }
+        return errors;
+    }
+
+    private Device mapDevice(CSVRecord record, Map<String, Optional<Room>> roomsByBus) {
+        String title = record.get("title");
+        String typeStr = record.get("type");
+        String powerStr = record.get("power");
+        String activeStr = record.get("active");
+        String roomBus = record.get("roomBus");
+
+        if (title == null || title.trim().isEmpty()) {
+            throw new IllegalArgumentException("Title is required");
+        }
+        if (typeStr == null || typeStr.trim().isEmpty()) {
+            throw new IllegalArgumentException("Type is required");
+        }
+
+        DeviceType type;
+        try {
+            type = DeviceType.valueOf(typeStr.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid device type: " + typeStr);
+        }
+
+        double power = 0.0;
+        if (powerStr != null && !powerStr.trim().isEmpty()) {
+            try {
+                power = Double.parseDouble(powerStr.trim());
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid power value: " + powerStr);
+            }
+            if (power < 0) {
+                throw new IllegalArgumentException("Power cannot be negative");
+            }
+        }
+
+        boolean active = false;
+        if (activeStr != null && !activeStr.trim().isEmpty()) {
+            String activeLower = activeStr.trim().toLowerCase();
+            if ("true".equals(activeLower) || "1".equals(activeLower) || "yes".equals(activeLower)) {
+                active = true;
+            } else if (!"false".equals(activeLower) && !"0".equals(activeLower) && !"no".equals(activeLower)) {
+                throw new IllegalArgumentException("Invalid active value: " + activeStr);
+            }
+        }
+
+        Device device = new Device();
+        device.setTitle(title.trim());
+        device.setType(type);
+        device.setPower(power);
+        device.setActive(active);
+
+        if (roomBus != null && !roomBus.trim().isEmpty()) {
+            String bus = roomBus.trim();
+            // findByBusIgnoreCase - поэтому ключ кэша в нижнем регистре
+            Room room = roomsByBus.computeIfAbsent(bus.toLowerCase(),
+                    key -> roomRepository.findByBusIgnoreCase(bus).stream().findFirst())
+                .orElseThrow(() -> new IllegalArgumentException("Room not found with bus: " + roomBus));
+            device.setRoom(room);
+        }
+
+        return device;
+    }
+
+    private Room mapRoom(CSVRecord record, User currentUser, Map<String, Optional<User>> managers) {
+        String bus = record.get("bus");
+        String managerUsername = record.get("managerUsername");
+
+        if (bus == null || bus.trim().isEmpty()) {
+            throw new IllegalArgumentException("Location is required");
+        }
+
+        Room room = new Room();
+        room.setBus(bus.trim());
+
+        if (managerUsername != null && !managerUsername.trim().isEmpty()) {
+            User manager = managers.computeIfAbsent(managerUsername.trim(), userRepository::findByUsername)
+                .orElseThrow(() -> new IllegalArgumentException("Manager not found: " + managerUsername));
+            room.setManager(manager);
+        } else {
+            room.setManager(currentUser);
+        }
+
+        return room;
+    }
+}
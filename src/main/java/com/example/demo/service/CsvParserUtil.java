@@ -1,5 +1,7 @@
 package com.example.demo.service;
 
+import com.example.demo.dto.CsvImportDto;
+
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.csv.CSVFormat;
 import org.apache.commons.csv.CSVParser;
@@ -10,6 +12,7 @@ import org.springframework.web.multipart.MultipartFile;
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
@@ -18,60 +21,81 @@ import java.util.function.Function;
 @Slf4j
 @Component
 public class CsvParserUtil {
+    private static final int MAX_REPORTED_ERRORS = 1000;
+    private static final CSVFormat CSV_FORMAT = CSVFormat.DEFAULT.builder()
+            .setHeader()
+            .setSkipHeaderRecord(true)
+            .setIgnoreHeaderCase(true)
+            .setTrim(true)
+            .build();
 
-    public <T> CsvParseResult<T> parseCsvFile(MultipartFile file, Function<CSVRecord, T> recordMapper) {
-        List<T> parsedRecords = new ArrayList<>();
-        List<String> errors = new ArrayList<>();
+    // Потоковый разбор: записи читаются по одной и передаются в batchHandler порциями по batchSize,
+    // в памяти держится только текущая порция. batchHandler возвращает ошибки сохранения по строкам.
+    public <T> CsvImportDto streamCsvFile(MultipartFile file, int batchSize, Function<CSVRecord, T> recordMapper,
+                                          Function<List<CsvRow<T>>, List<String>> batchHandler) {
+        ImportReport report = new ImportReport();
+        List<CsvRow<T>> batch = new ArrayList<>(batchSize);
 
         try (BufferedReader reader = new BufferedReader(
-                new InputStreamReader(file.getInputStream(), StandardCharsets.UTF_8))) {
-            
-            CSVParser csvParser = CSVFormat.DEFAULT.builder()
-                    .setHeader()
-                    .setSkipHeaderRecord(true)
-                    .setIgnoreHeaderCase(true)
-                    .setTrim(true)
-                    .build()
-                    .parse(reader);
+                new InputStreamReader(file.getInputStream(), StandardCharsets.UTF_8));
+             CSVParser csvParser = CSV_FORMAT.parse(reader)) {
 
             int lineNumber = 1;
             for (CSVRecord record : csvParser) {
+                lineNumber++;
                 try {
-                    lineNumber++;
                     T mappedRecord = recordMapper.apply(record);
                     if (mappedRecord != null) {
-                        parsedRecords.add(mappedRecord);
+                        batch.add(new CsvRow<>(lineNumber, mappedRecord));
                     }
                 } catch (Exception e) {
-                    String error = String.format("Line %d: %s", lineNumber, e.getMessage());
-                    errors.add(error);
-                    log.warn("Error parsing CSV line {}: {}", lineNumber, e.getMessage());
+                    report.error(String.format("Line %d: %s", lineNumber, e.getMessage()));
+                    log.debug("Error parsing CSV line {}: {}", lineNumber, e.getMessage());
+                }
+                if (batch.size() >= batchSize) {
+                    report.batch(batch.size(), batchHandler.apply(batch));
+                    batch.clear();
                 }
             }
+            if (!batch.isEmpty()) {
+                report.batch(batch.size(), batchHandler.apply(batch));
+            }
+            log.info("CSV import finished: {} imported, {} errors", report.imported, report.errorCount);
+            return report.toDto(null);
 
-            return new CsvParseResult<>(parsedRecords, errors, !errors.isEmpty());
-
-        } catch (IOException e) {
-            String error = "Error reading CSV file: " + e.getMessage();
-            errors.add(error);
+        } catch (IOException | UncheckedIOException e) {
+            report.error("Error reading CSV file: " + e.getMessage());
             log.error("CSV parsing failed: {}", e.getMessage());
-            return new CsvParseResult<>(List.of(), errors, true);
+            return report.toDto("Import failed: " + e.getMessage());
         }
     }
 
-    public static class CsvParseResult<T> {
-        private final List<T> records;
-        private final List<String> errors;
-        private final boolean hasErrors;
+    // Строка CSV с номером строки в файле для отчета об ошибках
+    public record CsvRow<T>(int lineNumber, T value) {}
+
+    // Счетчики импорта; тексты ошибок храним не больше MAX_REPORTED_ERRORS, счетчик ведем по всем
+    private static class ImportReport {
+        private int imported;
+        private int errorCount;
+        private final List<String> errors = new ArrayList<>();
 
-        public CsvParseResult(List<T> records, List<String> errors, boolean hasErrors) {
-            this.records = records;
-            this.errors = errors;
-            this.hasErrors = hasErrors;
+        void error(String error) {
+            errorCount++;
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add(error);
+            }
+        }
+
+        void batch(int size, List<String> batchErrors) {
+            imported += size - batchErrors.size();
+            batchErrors.forEach(this::error);
         }
 
-        public List<T> getRecords() { return records; }
-        public List<String> getErrors() { return errors; }
-        public boolean isHasErrors() { return hasErrors; }
+        CsvImportDto toDto(String failure) {
+            boolean hasErrors = errorCount > 0;
+            String message = failure != null ? failure
+                : hasErrors ? "Import completed with errors" : "Import completed successfully";
+            return new CsvImportDto(message, imported, errorCount, List.copyOf(errors), hasErrors);
+        }
     }
 }
\ No newline at end of file
@@ -1,5 +1,8 @@
 package com.example.demo.service;
 
+import com.example.demo.dto.BulkToggleResult;
+import com.example.demo.dto.DeviceStateSnapshot;
+import com.example.demo.dto.PowerBreakdownDto;
 import com.example.demo.model.Device;
 import com.example.demo.model.DeviceType;
 
@@ -15,19 +18,20 @@ import java.util.List;
 public class DeviceControlService {
     private static final Logger logger = LoggerFactory.getLogger(DeviceControlService.class);
     private final DeviceService deviceService;
+    private final PowerLedgerService powerLedgerService;
 
-    public DeviceControlService(DeviceService deviceService) {
+    public DeviceControlService(DeviceService deviceService, PowerLedgerService powerLedgerService) {
         this.deviceService = deviceService;
+        this.powerLedgerService = powerLedgerService;
     }
 
     // Включить/выключить устройство по ID
     public Device toggleDevice(Long deviceId, boolean active) {
         logger.info("Attempt to toggle the device");
-        Device device = deviceService.getDeviceById(deviceId);
+        Device device = deviceService.setActive(deviceId, active);
         if (device != null) {
-            device.setActive(active);
             logger.debug("The device was toggle: id - {}, status - {}", deviceId, active);
-            return deviceService.updateDevice(deviceId, device);
+            return device;
         }
         logger.warn("A non-existent device: id - {}", deviceId);
         return null;
@@ -36,31 +40,56 @@ public class DeviceControlService {
     // Включить/выключить все устройства определенного типа
     public List<Device> toggleDevicesByType(DeviceType type, boolean active) {
         logger.debug("Toggle has been implemented for devices: type - {}, status - {}", type, active);
-        List<Device> devices = deviceService.getDevicesByType(type);
-        devices.forEach(device -> device.setActive(active));
-        // Сохраняем изменения для каждого устройства
-        logger.info("Status update for all devices of the same type");
-        return devices.stream()
-            .map(device -> deviceService.updateDevice(device.getId(), device))
-            .toList();
+        // Один UPDATE на все устройства типа вместо findById + save на каждое
+        BulkToggleResult result = deviceService.setActiveByType(type, active);
+        logger.info("Status update for all devices of the same type: {} changed", result.count());
+        return deviceService.getDevicesByType(type);
     }
 
-    // Получить суммарное энергопотребление всех включенных устройств
+    // Включить/выключить все устройства
+    public BulkToggleResult toggleAllDevices(boolean active) {
+        logger.debug("Toggle has been implemented for all devices: status - {}", active);
+        return deviceService.setActiveForAll(active);
+    }
+
+    // Включить/выключить все устройства, кроме устройств заданного типа
+    public BulkToggleResult toggleDevicesExceptType(DeviceType excludedType, boolean active) {
+        logger.debug("Toggle has been implemented for devices except type: {}, status - {}", excludedType, active);
+        return deviceService.setActiveExceptType(excludedType, active);
+    }
+
+    // Включить/выключить устройства из списка id
+    public BulkToggleResult toggleDevices(List<Long> deviceIds, boolean active) {
+        logger.debug("Toggle has been implemented for {} devices: status - {}", deviceIds.size(), active);
+        return deviceService.setActiveByIds(deviceIds, active);
+    }
+
+    public List<DeviceStateSnapshot> getDeviceStates() {
+        return deviceService.getDeviceStates();
+    }
+
+    // Получить суммарное энергопотребление всех включенных устройств (из журнала, без чтения таблицы)
     public double getTotalPowerConsumption() {
         logger.info("Getting the total device consumption");
-        List<Device> allDevices = deviceService.getAllDevices();
-        return allDevices.stream()
-            .filter(Device::isActive)
-            .mapToDouble(Device::getPower)
-            .sum();
+        return powerLedgerService.getTotalPower();
+    }
+
+    // Энергопотребление в разрезе комнат, типов устройств и менеджеров
+    public PowerBreakdownDto getPowerBreakdown() {
+        logger.info("Getting the device consumption breakdown");
+        return powerLedgerService.getBreakdown();
     }
 
     // Получить устройства по комнате (через DeviceService)
     public List<Device> getDevicesByRoom(Long roomId) {
         logger.info("Getting devices by room");
-        return deviceService.getAllDevices().stream()
-            .filter(device -> device.getRoom() != null && device.getRoom().getId().equals(roomId))
-            .toList();
+        return deviceService.getDevicesByRoom(roomId);
+    }
+
+    // Получить устройство заданного типа в комнате одним запросом по индексу (room_id, type)
+    public Device getRoomDeviceByType(Long roomId, DeviceType type) {
+        logger.info("Getting device by room and type");
+        return deviceService.getRoomDeviceByType(roomId, type);
     }
 
     // Получить все устройства (делегируем DeviceService)
@@ -0,0 +1,252 @@
+package com.example.demo.service;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.example.demo.dto.DeviceEventDto;
+import com.example.demo.dto.DevicePowerSnapshot;
+import com.example.demo.model.Device;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Поток изменений устройств для /api/devices/stream (Server-Sent Events).
+ * Публикация и повтор по Last-Event-ID выполняются одним фоновым потоком: события получают
+ * возрастающие id в порядке публикации. Запись в соединение идет не в нем, а через ограниченную
+ * очередь каждого подписчика, которую разбирает поток записи, - медленный клиент задерживает только себя.
+ * Переполнение очереди отключает подписчика: при переподключении недостающее вернет повтор
+ * по Last-Event-ID или событие resync. Последние события хранятся в ограниченном буфере повтора.
+ */
+@Slf4j
+@Service
+public class DeviceEventService {
+    private static final Logger logger = LoggerFactory.getLogger(DeviceEventService.class);
+    private static final int REPLAY_BUFFER_SIZE = 1024;
+    // Массовое переключение разбивается на события не более чем по стольку устройств
+    private static final int BULK_EVENT_SIZE = 1000;
+    private static final long EMITTER_TIMEOUT_MILLIS = 30 * 60_000;
+    private static final long RECONNECT_MILLIS = 3_000;
+    private static final String RESYNC = "resync";
+    // Вмещает полный повтор буфера; клиент, отставший сильнее, повтором все равно не догнать
+    private static final int SUBSCRIBER_QUEUE_CAPACITY = REPLAY_BUFFER_SIZE + 16;
+
+    private final ExecutorService dispatcher = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "device-events");
+        thread.setDaemon(true);
+        return thread;
+    });
+    // У подписчика не больше одной задачи записи, поэтому потоков не больше, чем подписчиков с данными в очереди;
+    // простаивающие потоки завершаются через минуту
+    private final AtomicInteger writerNumber = new AtomicInteger();
+    private final ExecutorService writers = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "device-events-writer-" + writerNumber.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+    // Доступны только из потока dispatcher
+    private final Deque<PublishedEvent> replayBuffer = new ArrayDeque<>(REPLAY_BUFFER_SIZE);
+    private long lastEventId = 0;
+
+    public void created(Device device) {
+        publish(managerId(device), toEvent(DeviceEventDto.CREATED, device));
+    }
+
+    public void updated(Device device) {
+        publish(managerId(device), toEvent(DeviceEventDto.UPDATED, device));
+    }
+
+    public void deleted(Device device) {
+        Long roomId = device.getRoom() != null ? device.getRoom().getId() : null;
+        publish(managerId(device),
+            new DeviceEventDto(DeviceEventDto.DELETED, device.getId(), null, null, null, null, roomId, null));
+    }
+
+    // Отдельное событие на каждого менеджера, чтобы фильтр по комнатам не раскрывал чужие устройства
+    public void bulkToggled(List<DevicePowerSnapshot> snapshots, boolean active) {
+        Map<Long, List<Long>> byManager = new LinkedHashMap<>();
+        for (DevicePowerSnapshot snapshot : snapshots) {
+            byManager.computeIfAbsent(snapshot.managerId(), key -> new ArrayList<>()).add(snapshot.deviceId());
+        }
+        byManager.forEach((managerId, ids) -> {
+            for (int from = 0; from < ids.size(); from += BULK_EVENT_SIZE) {
+                List<Long> chunk = List.copyOf(ids.subList(from, Math.min(from + BULK_EVENT_SIZE, ids.size())));
+                publish(managerId,
+                    new DeviceEventDto(DeviceEventDto.BULK, null, null, null, null, active, null, chunk));
+            }
+        });
+    }
+
+    // managerId == null - все устройства (ADMIN); lastEventId - заголовок Last-Event-ID при переподключении
+    public SseEmitter subscribe(Long managerId, Long lastEventId) {
+        SseEmitter emitter = new SseEmitter(EMITTER_TIMEOUT_MILLIS);
+        Subscriber subscriber = new Subscriber(emitter, managerId);
+        emitter.onCompletion(subscriber::detach);
+        emitter.onTimeout(subscriber::detach);
+        emitter.onError(error -> subscriber.detach());
+        dispatcher.execute(() -> {
+            subscriber.enqueue(SseEmitter.event().reconnectTime(RECONNECT_MILLIS).comment("connected"));
+            replay(subscriber, lastEventId);
+            subscribers.add(subscriber);
+            // Клиент мог уйти, пока шел повтор
+            if (subscriber.closed) {
+                subscribers.remove(subscriber);
+                return;
+            }
+            logger.debug("Device stream subscriber added: manager - {}, last event - {}, total - {}",
+                managerId, lastEventId, subscribers.size());
+        });
+        return emitter;
+    }
+
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    // Комментарий раз в 15 секунд не дает прокси закрыть соединение и выявляет отключившихся клиентов
+    @Scheduled(fixedRate = 15_000)
+    public void heartbeat() {
+        if (!subscribers.isEmpty()) {
+            dispatcher.execute(() -> subscribers.forEach(subscriber ->
+                subscriber.enqueue(SseEmitter.event().comment("heartbeat"))));
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        dispatcher.shutdownNow();
+        writers.shutdownNow();
+        subscribers.forEach(subscriber -> subscriber.emitter.complete());
+        subscribers.clear();
+    }
+
+    private void publish(Long managerId, DeviceEventDto event) {
+        dispatcher.execute(() -> {
+            PublishedEvent published = new PublishedEvent(++lastEventId, managerId, event);
+            if (replayBuffer.size() == REPLAY_BUFFER_SIZE) {
+                replayBuffer.removeFirst();
+            }
+            replayBuffer.addLast(published);
+            for (Subscriber subscriber : subscribers) {
+                if (subscriber.accepts(published)) {
+                    subscriber.enqueue(published.toSse());
+                }
+            }
+        });
+    }
+
+    // Если часть событий уже вытеснена из буфера (или сервер перезапущен), клиенту нужно перечитать состояние
+    private void replay(Subscriber subscriber, Long clientEventId) {
+        if (clientEventId == null) {
+            return;
+        }
+        long oldestId = replayBuffer.isEmpty() ? lastEventId + 1 : replayBuffer.getFirst().id();
+        if (clientEventId > lastEventId || clientEventId < oldestId - 1) {
+            subscriber.enqueue(SseEmitter.event().id(String.valueOf(lastEventId)).name(RESYNC).data(RESYNC));
+            return;
+        }
+        for (PublishedEvent published : replayBuffer) {
+            if (published.id() > clientEventId && subscriber.accepts(published)) {
+                subscriber.enqueue(published.toSse());
+            }
+        }
+    }
+
+    private static DeviceEventDto toEvent(String type, Device device) {
+        Long roomId = device.getRoom() != null ? device.getRoom().getId() : null;
+        return new DeviceEventDto(type, device.getId(), device.getTitle(), device.getType(),
+            device.getPower(), device.isActive(), roomId, null);
+    }
+
+    private static Long managerId(Device device) {
+        return device.getRoom() != null && device.getRoom().getManager() != null
+            ? device.getRoom().getManager().getId()
+            : null;
+    }
+
+    private record PublishedEvent(long id, Long managerId, DeviceEventDto event) {
+        SseEmitter.SseEventBuilder toSse() {
+            return SseEmitter.event().id(String.valueOf(id)).name(event.type()).data(event);
+        }
+    }
+
+    private final class Subscriber {
+        private final SseEmitter emitter;
+        private final Long managerId;
+        private final BlockingQueue<SseEmitter.SseEventBuilder> pending =
+            new ArrayBlockingQueue<>(SUBSCRIBER_QUEUE_CAPACITY);
+        // true, пока задача записи этого подписчика поставлена или выполняется
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private volatile boolean closed;
+
+        Subscriber(SseEmitter emitter, Long managerId) {
+            this.emitter = emitter;
+            this.managerId = managerId;
+        }
+
+        boolean accepts(PublishedEvent published) {
+            return managerId == null || Objects.equals(managerId, published.managerId());
+        }
+
+        // Вызывается из потока dispatcher и никогда не ждет соединение
+        void enqueue(SseEmitter.SseEventBuilder event) {
+            if (closed) {
+                return;
+            }
+            if (!pending.offer(event)) {
+                logger.debug("Device stream subscriber dropped: {} events pending", pending.size());
+                detach();
+                // complete() ждет зависшую запись в это соединение - не в потоке dispatcher
+                writers.execute(emitter::complete);
+                return;
+            }
+            if (draining.compareAndSet(false, true)) {
+                writers.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            do {
+                SseEmitter.SseEventBuilder event;
+                while (!closed && (event = pending.poll()) != null) {
+                    try {
+                        emitter.send(event);
+                    } catch (IOException | IllegalStateException e) {
+                        logger.debug("Device stream subscriber dropped: {}", e.getMessage());
+                        detach();
+                        emitter.completeWithError(e);
+                        return;
+                    }
+                }
+                draining.set(false);
+                // Событие могло прийти между последним poll и сбросом флага
+            } while (!closed && !pending.isEmpty() && draining.compareAndSet(false, true));
+        }
+
+        void detach() {
+            closed = true;
+            subscribers.remove(this);
+            pending.clear();
+        }
+    }
+}
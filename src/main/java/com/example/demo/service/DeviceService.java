@@ -1,6 +1,10 @@
 package com.example.demo.service;
 
+import java.util.ArrayList;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
@@ -8,34 +12,91 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import com.example.demo.dto.BulkToggleResult;
+import com.example.demo.dto.CursorPage;
+import com.example.demo.dto.DevicePowerSnapshot;
+import com.example.demo.dto.DeviceStateSnapshot;
+import com.example.demo.dto.SeekCursor;
 import com.example.demo.model.Device;
 import com.example.demo.model.DeviceType;
 import com.example.demo.repository.DeviceRepository;
 import com.example.demo.specification.DeviceSpecification;
+import com.example.demo.specification.KeysetSpecification;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
 
 @Slf4j
 @Service
 public class DeviceService {
     private final DeviceRepository deviceRepository;
+    private final PowerLedgerService powerLedgerService;
+    private final DeviceEventService deviceEventService;
+    private final TitleSearchService titleSearchService;
     private static final Logger logger = LoggerFactory.getLogger(DeviceService.class);
-    public DeviceService(DeviceRepository deviceRepository) {
+    // Размер порции идентификаторов в IN-списке (ограничение числа параметров у Postgres)
+    private static final int BULK_CHUNK_SIZE = 1000;
+    private static final Set<String> DEVICE_SEEK_KEYS = Set.of("title", "power", "id");
+    // device.toggles по типу и новому состоянию: одиночные (PUT, /api/control) и массовые переключения
+    private final Map<DeviceType, Counter> toggledOn = new EnumMap<>(DeviceType.class);
+    private final Map<DeviceType, Counter> toggledOff = new EnumMap<>(DeviceType.class);
+    public DeviceService(DeviceRepository deviceRepository, PowerLedgerService powerLedgerService,
+                         DeviceEventService deviceEventService, TitleSearchService titleSearchService,
+                         MeterRegistry meterRegistry) {
         this.deviceRepository = deviceRepository;
+        this.powerLedgerService = powerLedgerService;
+        this.deviceEventService = deviceEventService;
+        this.titleSearchService = titleSearchService;
+        for (DeviceType type : DeviceType.values()) {
+            toggledOn.put(type, toggleCounter(meterRegistry, type, "on"));
+            toggledOff.put(type, toggleCounter(meterRegistry, type, "off"));
+        }
+    }
+
+    private static Counter toggleCounter(MeterRegistry meterRegistry, DeviceType type, String state) {
+        return Counter.builder("device.toggles")
+            .description("Device state changes")
+            .tag("type", type.name())
+            .tag("state", state)
+            .register(meterRegistry);
+    }
+
+    private void countToggle(DeviceType type, boolean active, int devices) {
+        if (type != null) {
+            (active ? toggledOn : toggledOff).get(type).increment(devices);
+        }
     }
     
-    public Page<Device> getDevicesByFilter(String title, DeviceType type, 
+    // Единый путь фильтрации для USER и ADMIN: все условия уходят в SQL; managerId == null - все устройства
+    public Page<Device> getDevicesByFilter(Long managerId, String title, DeviceType type, 
                                          Double minPower, Double maxPower, 
                                          Boolean active, Pageable pageable) {
         logger.info("Devices are filtered by fields");
-        Specification<Device> spec = DeviceSpecification.withFilter(title, type, minPower, maxPower, active);
+        Specification<Device> spec = DeviceSpecification.managedBy(managerId)
+                .and(titleFilter(title))
+                .and(DeviceSpecification.withFilter(null, type, minPower, maxPower, active));
         return deviceRepository.findAll(spec, pageable);
     }
 
+    // Подстрока названия: id из триграммного индекса, а если индекс ответить не может - LIKE в SQL
+    private Specification<Device> titleFilter(String title) {
+        return titleSearchService.findDeviceIds(title)
+                .map(DeviceSpecification::idIn)
+                .orElseGet(() -> DeviceSpecification.titleLike(title));
+    }
+
     // Сохранить новое устройство
     public Device createDevice(Device device) {
         logger.debug("Creating a device: {}", device.getTitle());
         Device savedDevice = deviceRepository.save(device);
+        powerLedgerService.record(savedDevice);
+        titleSearchService.indexDevice(savedDevice);
+        deviceEventService.created(savedDevice);
         logger.debug("The device has been created: ID={}", savedDevice.getId());
         return savedDevice;
     }
@@ -58,26 +119,68 @@ public class DeviceService {
         return deviceRepository.findByType(type);
     }
     
+    // Устройства одной комнаты - выборка по индексу, без чтения всей таблицы
+    public List<Device> getDevicesByRoom(Long roomId) {
+        logger.debug("Device by room search: {}", roomId);
+        return deviceRepository.findByRoomId(roomId);
+    }
+
+    public Device getRoomDeviceByType(Long roomId, DeviceType type) {
+        logger.debug("Device by room and type search: room - {}, type - {}", roomId, type);
+        return deviceRepository.findFirstByRoomIdAndTypeOrderByIdAsc(roomId, type).orElse(null);
+    }
+    
     // Обновить устройство
     public Device updateDevice(Long id, Device deviceDetails) {
         logger.debug("Updating the device ID: {}", id);
         return deviceRepository.findById(id)
             .map(existingDevice -> {
+                boolean toggled = existingDevice.isActive() != deviceDetails.isActive();
                 existingDevice.setTitle(deviceDetails.getTitle());
                 existingDevice.setType(deviceDetails.getType());
                 existingDevice.setPower(deviceDetails.getPower());
                 existingDevice.setActive(deviceDetails.isActive());
                 logger.debug("Device ID {} updated", id);
-                return deviceRepository.save(existingDevice);
+                Device savedDevice = deviceRepository.save(existingDevice);
+                powerLedgerService.record(savedDevice);
+                titleSearchService.indexDevice(savedDevice);
+                deviceEventService.updated(savedDevice);
+                if (toggled) {
+                    countToggle(savedDevice.getType(), savedDevice.isActive(), 1);
+                }
+                return savedDevice;
             })
             .orElse(null);
     }
     
+    // Переключить одно устройство; название не меняется, поэтому индекс названий не трогаем
+    public Device setActive(Long id, boolean active) {
+        logger.debug("Toggling the device ID: {}", id);
+        return deviceRepository.findById(id)
+            .map(device -> {
+                boolean toggled = device.isActive() != active;
+                device.setActive(active);
+                Device savedDevice = deviceRepository.save(device);
+                powerLedgerService.record(savedDevice);
+                deviceEventService.updated(savedDevice);
+                if (toggled) {
+                    countToggle(savedDevice.getType(), active, 1);
+                }
+                return savedDevice;
+            })
+            .orElse(null);
+    }
+
     // Удалить устройство
     public boolean deleteDevice(Long id) {
         logger.debug("Deleting the device ID: {}", id);
-        if (deviceRepository.existsById(id)) {
-            deviceRepository.deleteById(id);
+        // Загружаем устройство, чтобы событие об удалении ушло владельцу комнаты
+        Device device = deviceRepository.findById(id).orElse(null);
+        if (device != null) {
+            deviceRepository.delete(device);
+            powerLedgerService.remove(id);
+            titleSearchService.removeDevice(id);
+            deviceEventService.deleted(device);
             logger.debug("Device ID {} deleted", id);
             return true;
         }
@@ -86,18 +189,122 @@ public class DeviceService {
     }
 
 
+    // Массовое переключение устройств заданного типа: блокировка и UPDATE в одной транзакции
+    @Transactional
+    public BulkToggleResult setActiveByType(DeviceType type, boolean active) {
+        logger.debug("Bulk toggle of devices: type - {}, status - {}", type, active);
+        List<Long> ids = deviceRepository.lockIdsByTypeAndActiveNot(type, active);
+        updateLocked(ids, active);
+        return recordBulkToggle(new BulkToggleResult(active, ids));
+    }
+
+    // Массовое переключение всех устройств
+    @Transactional
+    public BulkToggleResult setActiveForAll(boolean active) {
+        logger.debug("Bulk toggle of all devices: status - {}", active);
+        List<Long> ids = deviceRepository.lockIdsByActiveNot(active);
+        updateLocked(ids, active);
+        return recordBulkToggle(new BulkToggleResult(active, ids));
+    }
+
+    // Массовое переключение всех устройств, кроме заданного типа
+    @Transactional
+    public BulkToggleResult setActiveExceptType(DeviceType excludedType, boolean active) {
+        logger.debug("Bulk toggle of devices except type: {}, status - {}", excludedType, active);
+        List<Long> ids = deviceRepository.lockIdsByTypeNotAndActiveNot(excludedType, active);
+        updateLocked(ids, active);
+        return recordBulkToggle(new BulkToggleResult(active, ids));
+    }
+
+    // Массовое переключение устройств по списку id (применение правил режима), UPDATE порциями
+    @Transactional
+    public BulkToggleResult setActiveByIds(List<Long> deviceIds, boolean active) {
+        logger.debug("Bulk toggle of {} devices by id: status - {}", deviceIds.size(), active);
+        List<Long> ids = new ArrayList<>();
+        for (int from = 0; from < deviceIds.size(); from += BULK_CHUNK_SIZE) {
+            List<Long> chunk = deviceIds.subList(from, Math.min(from + BULK_CHUNK_SIZE, deviceIds.size()));
+            List<Long> locked = deviceRepository.lockIdsByIdInAndActiveNot(chunk, active);
+            if (!locked.isEmpty()) {
+                deviceRepository.updateActiveByIdIn(locked, active);
+                ids.addAll(locked);
+            }
+        }
+        return recordBulkToggle(new BulkToggleResult(active, ids));
+    }
+
+    // UPDATE только заблокированных строк: устройство, добавленное после блокировки, не переключится
+    // мимо журнала мощности, счетчиков и события bulkToggled
+    private void updateLocked(List<Long> ids, boolean active) {
+        for (int from = 0; from < ids.size(); from += BULK_CHUNK_SIZE) {
+            deviceRepository.updateActiveByIdIn(ids.subList(from, Math.min(from + BULK_CHUNK_SIZE, ids.size())), active);
+        }
+    }
+
+    public List<DeviceStateSnapshot> getDeviceStates() {
+        logger.debug("Getting device states for rule evaluation");
+        return deviceRepository.findAllStateSnapshots();
+    }
+
+    // Журнал мощности и поток событий обновляем только после коммита массового изменения
+    private BulkToggleResult recordBulkToggle(BulkToggleResult result) {
+        if (result.deviceIds().isEmpty()) {
+            return result;
+        }
+        // Снимки нужны и при выключении: по ним события раскладываются по менеджерам комнат
+        List<DevicePowerSnapshot> snapshots = new ArrayList<>();
+        for (int from = 0; from < result.count(); from += BULK_CHUNK_SIZE) {
+            List<Long> chunk = result.deviceIds().subList(from, Math.min(from + BULK_CHUNK_SIZE, result.count()));
+            snapshots.addAll(deviceRepository.findPowerSnapshotsByIds(chunk));
+        }
+        afterCommit(() -> {
+            Map<DeviceType, Integer> byType = new EnumMap<>(DeviceType.class);
+            snapshots.forEach(snapshot -> byType.merge(snapshot.type(), 1, Integer::sum));
+            byType.forEach((type, devices) -> countToggle(type, result.active(), devices));
+            if (result.active()) {
+                snapshots.forEach(powerLedgerService::record);
+            } else {
+                result.deviceIds().forEach(powerLedgerService::remove);
+            }
+            deviceEventService.bulkToggled(snapshots, result.active());
+        });
+        logger.info("Bulk toggle changed {} devices", result.count());
+        return result;
+    }
+
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
    
     public Page<Device> getDevicesByUserRooms(Long managerId, Pageable pageable) {
         logger.debug("Device search by user: {}", managerId);
         return deviceRepository.findByRoomManagerId(managerId, pageable);
     }
-    
-    
-    public Page<Device> getDevicesByUserRoomsWithFilter(Long managerId, String title, DeviceType type, 
-                                                      Double minPower, Double maxPower, Boolean active, 
-                                                      Pageable pageable) {
-        //Пока используем фильтрацию только по type и active
-        logger.info("Devices by user are filtered by fields");
-        return deviceRepository.findByManagerIdWithFilter(managerId, type, active, pageable);
+
+
+    // Курсорная пагинация без COUNT и OFFSET; managerId == null - все устройства (ADMIN)
+    public CursorPage<Device> seekDevices(Long managerId, String title, DeviceType type, Double minPower,
+                                          Double maxPower, Boolean active, String sortKey,
+                                          Sort.Direction direction, String after, Integer size) {
+        SeekCursor cursor = KeysetSpecification.parse(after, sortKey, direction, DEVICE_SEEK_KEYS);
+        int limit = KeysetSpecification.size(size);
+        logger.debug("Device seek: manager - {}, sort - {} {}, size - {}", managerId, sortKey, direction, limit);
+        Specification<Device> spec = DeviceSpecification.managedBy(managerId)
+                .and(titleFilter(title))
+                .and(DeviceSpecification.withFilter(null, type, minPower, maxPower, active))
+                .and(KeysetSpecification.after(cursor));
+        List<Device> rows = deviceRepository.findBy(spec,
+                query -> query.project(DeviceRepository.ROOM_GRAPH)
+                    .sortBy(KeysetSpecification.sort(sortKey, direction)).limit(limit + 1).all());
+        return KeysetSpecification.page(rows, limit, sortKey, direction);
     }
 }
@@ -1,17 +1,26 @@
 package com.example.demo.service;
 
+import com.example.demo.dto.FileDownloadDto;
 import com.example.demo.model.File;
 import com.example.demo.model.User;
 import com.example.demo.repository.FileRepository;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.FilterInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Instant;
 import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.List;
@@ -26,11 +35,14 @@ public class FileStorageService {
     private final UserService userService;
     private final List<String> allowedMimeTypes;
     private final List<String> allowedExtensions;
+    private final DistributionSummary uploadedBytes;
+    private final DistributionSummary downloadedBytes;
 
     // ЗАМЕНА: убрали @Value, добавили константы
     public FileStorageService(
             FileRepository fileRepository,
-            UserService userService) throws IOException {
+            UserService userService,
+            MeterRegistry meterRegistry) throws IOException {
         
         // Константы вместо @Value
         String allowedMimeTypesConfig = "image/jpeg,image/png,image/gif,application/pdf,text/plain,application/msword,application/vnd.openxmlformats-officedocument.wordprocessingml.document";
@@ -43,6 +55,8 @@ public class FileStorageService {
         this.fileStorageLocation = Paths.get(uploadDir).toAbsolutePath().normalize();
         this.fileRepository = fileRepository;
         this.userService = userService;
+        this.uploadedBytes = transferSummary(meterRegistry, "upload");
+        this.downloadedBytes = transferSummary(meterRegistry, "download");
         
         Files.createDirectories(this.fileStorageLocation);
         
@@ -50,6 +64,15 @@ public class FileStorageService {
                 this.fileStorageLocation, this.allowedMimeTypes, this.allowedExtensions);
     }
 
+    // file.transfer.bytes: размер сохраненных файлов и фактически отданные байты (Range и 304 учтены)
+    private static DistributionSummary transferSummary(MeterRegistry meterRegistry, String direction) {
+        return DistributionSummary.builder("file.transfer.bytes")
+            .description("File bytes per upload or download")
+            .baseUnit("bytes")
+            .tag("direction", direction)
+            .register(meterRegistry);
+    }
+
     public File saveFile(MultipartFile file, String username) throws IOException {
         log.debug("Saving file: {} with MIME type: {}", file.getOriginalFilename(), file.getContentType());
         
@@ -63,7 +86,8 @@ public class FileStorageService {
         
         //Только после успешной валидации сохраняем на диск
         Path targetLocation = this.fileStorageLocation.resolve(fileName);
-        Files.copy(file.getInputStream(), targetLocation, StandardCopyOption.REPLACE_EXISTING);
+        long written = Files.copy(file.getInputStream(), targetLocation, StandardCopyOption.REPLACE_EXISTING);
+        uploadedBytes.record(written);
         
         User uploadedBy = userService.getUserByUsername(username);
         
@@ -197,9 +221,75 @@ public class FileStorageService {
                 .orElseThrow(() -> new RuntimeException("File not found with id: " + fileId));
     }
 
-    public byte[] loadFileAsBytes(Long fileId) throws IOException {
+    // Метаданные из БД и с диска читаются один раз, содержимое отдается потоком из файла
+    public FileDownloadDto openForDownload(Long fileId) throws IOException {
         File file = getFile(fileId);
-        return Files.readAllBytes(Paths.get(file.getFilePath()));
+        Path path = Paths.get(file.getFilePath());
+        BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+        long contentLength = attributes.size();
+        long lastModified = attributes.lastModifiedTime().toMillis();
+
+        // Размер и дата уже известны - конвертеру ответа не нужно заново обращаться к диску
+        Resource resource = new FileSystemResource(path) {
+            @Override
+            public long contentLength() {
+                return contentLength;
+            }
+
+            @Override
+            public long lastModified() {
+                return lastModified;
+            }
+
+            // Поток открывает конвертер ответа только когда тело действительно пишется
+            @Override
+            public InputStream getInputStream() throws IOException {
+                return new CountingInputStream(super.getInputStream(), downloadedBytes);
+            }
+        };
+        // Имена файлов уникальны и не перезаписываются, поэтому id, размера и даты изменения достаточно
+        String eTag = "\"" + file.getId() + "-" + Long.toHexString(contentLength) + "-"
+                + Long.toHexString(lastModified) + "\"";
+        return new FileDownloadDto(file, resource, contentLength, Instant.ofEpochMilli(lastModified), eTag);
+    }
+
+    // Считает прочитанные байты; пропущенные skip() (начало диапазона) не учитываются
+    private static final class CountingInputStream extends FilterInputStream {
+        private final DistributionSummary summary;
+        private long count;
+        private boolean closed;
+
+        CountingInputStream(InputStream in, DistributionSummary summary) {
+            super(in);
+            this.summary = summary;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int value = super.read();
+            if (value >= 0) {
+                count++;
+            }
+            return value;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int read = super.read(buffer, offset, length);
+            if (read > 0) {
+                count += read;
+            }
+            return read;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (!closed) {
+                closed = true;
+                summary.record(count);
+            }
+            super.close();
+        }
     }
 
     public boolean deleteFile(Long fileId) {
@@ -0,0 +1,65 @@
+package com.example.demo.service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import com.example.demo.model.ModeType;
+import com.example.demo.repository.ModeRuleRepository;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Кэш скомпилированных правил по типу режима.
+ * Сбрасывается при любом изменении правил через ModeRuleController.
+ * Запись помечена поколением, прочитанным до загрузки правил, и отдается только в том же поколении:
+ * набор, загруженный до сброса, может попасть в карту и после remove/clear, но уже не будет выдан.
+ * Поколение общее для всех режимов - сброс одного режима дает лишний промах по остальным (правила меняются редко).
+ */
+@Slf4j
+@Component
+public class ModeRuleCache {
+    private static final Logger logger = LoggerFactory.getLogger(ModeRuleCache.class);
+
+    private final ModeRuleRepository modeRuleRepository;
+    private final Map<ModeType, Cached> evaluators = new ConcurrentHashMap<>();
+    private final AtomicLong generation = new AtomicLong();
+
+    public ModeRuleCache(ModeRuleRepository modeRuleRepository) {
+        this.modeRuleRepository = modeRuleRepository;
+    }
+
+    public ModeRuleEvaluator get(ModeType modeType) {
+        long current = generation.get();
+        Cached cached = evaluators.get(modeType);
+        if (cached != null && cached.generation() == current) {
+            return cached.evaluator();
+        }
+        ModeRuleEvaluator evaluator = ModeRuleEvaluator.compile(
+            modeRuleRepository.findByModeTypeOrderByPriorityDesc(modeType));
+        // Более поздняя загрузка не затирается более ранней
+        evaluators.merge(modeType, new Cached(current, evaluator),
+            (existing, loaded) -> existing.generation() >= loaded.generation() ? existing : loaded);
+        logger.debug("Rules of mode {} compiled: {}", modeType, evaluator.size());
+        return evaluator;
+    }
+
+    // remove/clear только освобождают память: устаревшую запись отсекает поколение
+    public void invalidate(ModeType modeType) {
+        generation.incrementAndGet();
+        if (modeType != null) {
+            evaluators.remove(modeType);
+        }
+    }
+
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        evaluators.clear();
+    }
+
+    private record Cached(long generation, ModeRuleEvaluator evaluator) {}
+}
@@ -0,0 +1,238 @@
+package com.example.demo.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.regex.Pattern;
+
+import com.example.demo.model.DeviceType;
+import com.example.demo.model.ModeRule;
+
+/**
+ * Неизменяемый скомпилированный набор правил одного режима.
+ * Правила разложены по типу устройства, границы мощности сведены в отсортированные интервалы,
+ * шаблоны названий скомпилированы заранее. Семантика совпадает с прежней проверкой правил:
+ * первое подходящее правило в порядке приоритета определяет состояние устройства,
+ * шаблон ищется через find() без учета регистра (только US-ASCII, как у Pattern.CASE_INSENSITIVE).
+ */
+public final class ModeRuleEvaluator {
+    private static final String REGEX_META = "\\^$.|?*+()[]{}";
+    private static final String QUANTIFIERS = "?*+{";
+
+    private final int ruleCount;
+    private final Map<DeviceType, Bucket> buckets;
+
+    private ModeRuleEvaluator(int ruleCount, Map<DeviceType, Bucket> buckets) {
+        this.ruleCount = ruleCount;
+        this.buckets = buckets;
+    }
+
+    // rules - в порядке убывания приоритета, как их возвращает ModeRuleRepository
+    public static ModeRuleEvaluator compile(List<ModeRule> rules) {
+        List<CompiledRule> compiled = rules.stream().map(CompiledRule::of).toList();
+        Map<DeviceType, Bucket> buckets = new EnumMap<>(DeviceType.class);
+        for (DeviceType type : DeviceType.values()) {
+            List<CompiledRule> applicable = compiled.stream()
+                .filter(rule -> rule.deviceType == null || rule.deviceType == type)
+                .toList();
+            if (!applicable.isEmpty()) {
+                buckets.put(type, Bucket.of(applicable));
+            }
+        }
+        return new ModeRuleEvaluator(compiled.size(), buckets);
+    }
+
+    public boolean isEmpty() {
+        return ruleCount == 0;
+    }
+
+    public int size() {
+        return ruleCount;
+    }
+
+    // Требуемое состояние устройства или null, если ни одно правило не подошло
+    public Boolean evaluate(DeviceType type, String title, double power) {
+        Bucket bucket = type != null ? buckets.get(type) : null;
+        if (bucket == null) {
+            return null;
+        }
+        for (CompiledRule rule : bucket.candidates(power)) {
+            if (rule.titleMatcher.matches(title)) {
+                return rule.shouldBeActive;
+            }
+        }
+        return null;
+    }
+
+    // Правила одного типа устройства, сгруппированные по элементарным отрезкам шкалы мощности
+    private static final class Bucket {
+        private final double[] bounds;
+        private final CompiledRule[][] segments;
+
+        private Bucket(double[] bounds, CompiledRule[][] segments) {
+            this.bounds = bounds;
+            this.segments = segments;
+        }
+
+        static Bucket of(List<CompiledRule> rules) {
+            TreeSet<Double> distinct = new TreeSet<>();
+            for (CompiledRule rule : rules) {
+                if (rule.minPower != Double.NEGATIVE_INFINITY) {
+                    distinct.add(rule.minPower);
+                }
+                if (rule.maxPower != Double.POSITIVE_INFINITY) {
+                    distinct.add(rule.maxPower);
+                }
+            }
+            double[] bounds = distinct.stream().mapToDouble(Double::doubleValue).toArray();
+            // Отрезок 2i+1 - точка bounds[i], отрезок 2i - интервал между bounds[i-1] и bounds[i]
+            CompiledRule[][] segments = new CompiledRule[bounds.length * 2 + 1][];
+            for (int segment = 0; segment < segments.length; segment++) {
+                List<CompiledRule> covering = new ArrayList<>();
+                for (CompiledRule rule : rules) {
+                    if (covers(rule, bounds, segment)) {
+                        covering.add(rule);
+                    }
+                }
+                segments[segment] = covering.toArray(CompiledRule[]::new);
+            }
+            return new Bucket(bounds, segments);
+        }
+
+        private static boolean covers(CompiledRule rule, double[] bounds, int segment) {
+            if (segment % 2 == 1) {
+                double point = bounds[segment / 2];
+                return rule.minPower <= point && point <= rule.maxPower;
+            }
+            int index = segment / 2;
+            double lower = index == 0 ? Double.NEGATIVE_INFINITY : bounds[index - 1];
+            double upper = index == bounds.length ? Double.POSITIVE_INFINITY : bounds[index];
+            return rule.minPower <= lower && upper <= rule.maxPower;
+        }
+
+        CompiledRule[] candidates(double power) {
+            int index = Arrays.binarySearch(bounds, power);
+            return segments[index >= 0 ? index * 2 + 1 : (-index - 1) * 2];
+        }
+    }
+
+    private static final class CompiledRule {
+        private final DeviceType deviceType;
+        private final double minPower;
+        private final double maxPower;
+        private final Boolean shouldBeActive;
+        private final TitleMatcher titleMatcher;
+
+        private CompiledRule(ModeRule rule) {
+            this.deviceType = rule.getDeviceType();
+            this.minPower = rule.getMinPower() != null ? rule.getMinPower() : Double.NEGATIVE_INFINITY;
+            this.maxPower = rule.getMaxPower() != null ? rule.getMaxPower() : Double.POSITIVE_INFINITY;
+            this.shouldBeActive = rule.getShouldBeActive();
+            this.titleMatcher = TitleMatcher.of(rule.getTitlePattern());
+        }
+
+        static CompiledRule of(ModeRule rule) {
+            return new CompiledRule(rule);
+        }
+    }
+
+    // Видимость пакетная для ModeRuleEvaluatorTest: результат сверяется с Pattern.find()
+    @FunctionalInterface
+    interface TitleMatcher {
+        TitleMatcher ANY = title -> true;
+
+        boolean matches(String title);
+
+        static TitleMatcher of(String titlePattern) {
+            if (titlePattern == null || titlePattern.isEmpty()) {
+                return ANY;
+            }
+            // Для find() ведущие и завершающие .* ничего не меняют
+            String core = titlePattern;
+            while (core.startsWith(".*") && (core.length() == 2 || QUANTIFIERS.indexOf(core.charAt(2)) < 0)) {
+                core = core.substring(2);
+            }
+            while (core.endsWith(".*") && !isEscaped(core, core.length() - 2)) {
+                core = core.substring(0, core.length() - 2);
+            }
+            if (core.isEmpty()) {
+                return ANY;
+            }
+
+            boolean anchored = core.charAt(0) == '^';
+            String body = anchored ? core.substring(1) : core;
+            if (isLiteral(body)) {
+                return anchored
+                    ? title -> title != null && startsWithIgnoreAsciiCase(title, body)
+                    : title -> title != null && containsIgnoreAsciiCase(title, body);
+            }
+
+            Pattern pattern = Pattern.compile(titlePattern, Pattern.CASE_INSENSITIVE);
+            String prefix = core.indexOf('|') >= 0 ? "" : literalPrefix(body);
+            if (prefix.isEmpty()) {
+                return title -> title != null && pattern.matcher(title).find();
+            }
+            // Быстрый отсев по обязательному литеральному префиксу до запуска регулярного выражения
+            return anchored
+                ? title -> title != null && startsWithIgnoreAsciiCase(title, prefix) && pattern.matcher(title).find()
+                : title -> title != null && containsIgnoreAsciiCase(title, prefix) && pattern.matcher(title).find();
+        }
+    }
+
+    private static boolean isEscaped(String pattern, int index) {
+        int backslashes = 0;
+        for (int i = index - 1; i >= 0 && pattern.charAt(i) == '\\'; i--) {
+            backslashes++;
+        }
+        return backslashes % 2 == 1;
+    }
+
+    private static boolean isLiteral(String pattern) {
+        for (int i = 0; i < pattern.length(); i++) {
+            if (REGEX_META.indexOf(pattern.charAt(i)) >= 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String literalPrefix(String pattern) {
+        int end = 0;
+        while (end < pattern.length() && REGEX_META.indexOf(pattern.charAt(end)) < 0) {
+            end++;
+        }
+        // Квантификатор после префикса может сделать его последний символ необязательным
+        if (end < pattern.length() && end > 0 && QUANTIFIERS.indexOf(pattern.charAt(end)) >= 0
+                && pattern.charAt(end) != '+') {
+            end--;
+        }
+        return pattern.substring(0, end);
+    }
+
+    private static boolean startsWithIgnoreAsciiCase(String text, String prefix) {
+        return text.length() >= prefix.length() && regionMatches(text, 0, prefix);
+    }
+
+    private static boolean containsIgnoreAsciiCase(String text, String literal) {
+        for (int offset = 0; offset + literal.length() <= text.length(); offset++) {
+            if (regionMatches(text, offset, literal)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean regionMatches(String text, int offset, String literal) {
+        for (int i = 0; i < literal.length(); i++) {
+            char a = text.charAt(offset + i);
+            char b = literal.charAt(i);
+            if (a != b && (a >= 128 || b >= 128 || Character.toLowerCase(a) != Character.toLowerCase(b))) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
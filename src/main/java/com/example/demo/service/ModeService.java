@@ -1,71 +1,98 @@
 package com.example.demo.service;
 
+import com.example.demo.dto.DeviceStateSnapshot;
 import com.example.demo.model.*;
 import com.example.demo.repository.ModeRepository;
-import com.example.demo.repository.ModeRuleRepository;
 
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
 import java.util.List;
-import java.util.regex.Pattern;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntSupplier;
 
 @Slf4j
 @Service
 public class ModeService {
     private static final Logger logger = LoggerFactory.getLogger(ModeService.class);
     private final ModeRepository modeRepository;
-    private final ModeRuleRepository modeRuleRepository;
+    private final ModeRuleCache modeRuleCache;
     private final DeviceControlService deviceControlService;
+    private final MeterRegistry meterRegistry;
 
     public ModeService(ModeRepository modeRepository, 
-                      ModeRuleRepository modeRuleRepository,
-                      DeviceControlService deviceControlService) {
+                      ModeRuleCache modeRuleCache,
+                      DeviceControlService deviceControlService,
+                      MeterRegistry meterRegistry) {
         this.modeRepository = modeRepository;
-        this.modeRuleRepository = modeRuleRepository;
+        this.modeRuleCache = modeRuleCache;
         this.deviceControlService = deviceControlService;
+        this.meterRegistry = meterRegistry;
+    }
+
+    // Длительность активации (mode.activation) и число переключенных устройств (mode.devices.changed) по режиму
+    private int measure(String mode, IntSupplier activation) {
+        long started = System.nanoTime();
+        int devicesChanged = activation.getAsInt();
+        Timer.builder("mode.activation")
+            .description("Mode activation time, rule evaluation and bulk toggles included")
+            .tag("mode", mode)
+            .publishPercentileHistogram()
+            .register(meterRegistry)
+            .record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        DistributionSummary.builder("mode.devices.changed")
+            .description("Devices toggled by one mode activation")
+            .tag("mode", mode)
+            .register(meterRegistry)
+            .record(devicesChanged);
+        return devicesChanged;
     }
 
     // активация режима по заданному правилу
     public String activateMode(ModeType modeType) {
-        List<ModeRule> rules = modeRuleRepository.findByModeTypeOrderByPriorityDesc(modeType);
+        ModeRuleEvaluator evaluator = modeRuleCache.get(modeType);
         
-        if (rules.isEmpty()) {
+        if (evaluator.isEmpty()) {
             logger.warn("There are no rules configured for this mode");
             return "Для данного режима не настроены правила";
         }
 
-        List<Device> allDevices = deviceControlService.getAllDevices();
-        
-        int devicesChanged = 0;
-        for (Device device : allDevices) {
-            Boolean shouldBeActive = evaluateDeviceState(device, rules);
-            if (shouldBeActive != null && device.isActive() != shouldBeActive) {
-                deviceControlService.toggleDevice(device.getId(), shouldBeActive);
-                devicesChanged++;
-            }
-        }
+        int devicesChanged = measure(modeType.name(), () -> applyRules(evaluator));
         logger.debug("{} mode activated, devices changed: {}",  modeType, devicesChanged);
         return String.format("Режим '%s' активирован. Изменено устройств: %d", modeType, devicesChanged);
     }
 
+    private int applyRules(ModeRuleEvaluator evaluator) {
+        List<Long> turnOn = new ArrayList<>();
+        List<Long> turnOff = new ArrayList<>();
+        for (DeviceStateSnapshot device : deviceControlService.getDeviceStates()) {
+            Boolean shouldBeActive = evaluator.evaluate(device.type(), device.title(), device.power());
+            if (shouldBeActive != null && device.active() != shouldBeActive) {
+                (shouldBeActive ? turnOn : turnOff).add(device.deviceId());
+            }
+        }
+        int devicesChanged = 0;
+        if (!turnOn.isEmpty()) {
+            devicesChanged += deviceControlService.toggleDevices(turnOn, true).count();
+        }
+        if (!turnOff.isEmpty()) {
+            devicesChanged += deviceControlService.toggleDevices(turnOff, false).count();
+        }
+        return devicesChanged;
+    }
+
     // отключаем все устройства кроме климат-контроля
     public String activateNightMode() {
         log.info("Attempt to activate night mode");
-        List<Device> allDevices = deviceControlService.getAllDevices();
-        int devicesTurnedOff = 0;
-        
-        for (Device device : allDevices) {
-            boolean isClimateDevice = device.getType() == DeviceType.CONDITIONER;
-            
-            if (!isClimateDevice && device.isActive()) {
-                deviceControlService.toggleDevice(device.getId(), false);
-                devicesTurnedOff++;
-            }
-        }
+        int devicesTurnedOff = measure("NIGHT",
+            () -> deviceControlService.toggleDevicesExceptType(DeviceType.CONDITIONER, false).count());
         logger.debug("Night mode activated, devices turned off: {}", devicesTurnedOff);
         return String.format("Ночной режим активирован. Выключено устройств: %d", devicesTurnedOff);
     }
@@ -73,15 +100,7 @@ public class ModeService {
     // отключаем все устройства
     public String turnOffAllDevices() {
         log.info("Attempt to turn off all devices");
-        List<Device> allDevices = deviceControlService.getAllDevices();
-        int devicesTurnedOff = 0;
-        
-        for (Device device : allDevices) {
-            if (device.isActive()) {
-                deviceControlService.toggleDevice(device.getId(), false);
-                devicesTurnedOff++;
-            }
-        }
+        int devicesTurnedOff = measure("ALL_OFF", () -> deviceControlService.toggleAllDevices(false).count());
         log.warn("All devices are disabled: {}", devicesTurnedOff);
         return String.format("Все устройства выключены. Отключено: %d", devicesTurnedOff);
     }
@@ -89,55 +108,8 @@ public class ModeService {
     // включение всех устройств
     public String turnOnAllDevices() {
         log.info("Attempt to turn on all devices");
-        List<Device> allDevices = deviceControlService.getAllDevices();
-        int devicesTurnedOn = 0;
-        
-        for (Device device : allDevices) {
-            if (!device.isActive()) {
-                deviceControlService.toggleDevice(device.getId(), true);
-                devicesTurnedOn++;
-            }
-        }
+        int devicesTurnedOn = measure("ALL_ON", () -> deviceControlService.toggleAllDevices(true).count());
         log.warn("All devices are enabled: {}", devicesTurnedOn);
         return String.format("Все устройства включены. Включено: %d", devicesTurnedOn);
     }
-
-
-    private Boolean evaluateDeviceState(Device device, List<ModeRule> rules) {
-        logger.info("Device status assessment");
-        for (ModeRule rule : rules) {
-            if (matchesRule(device, rule)) {
-                return rule.getShouldBeActive();
-            }
-        }
-        logger.warn("None of the rules fit");
-        return null;
-    }
-
-    private boolean matchesRule(Device device, ModeRule rule) {
-        logger.info("Rule assessment");
-        if (rule.getDeviceType() != null && device.getType() != rule.getDeviceType()) {
-            logger.warn("Device type does not match");
-            return false;
-        }
-
-        if (rule.getTitlePattern() != null && !rule.getTitlePattern().isEmpty()) {
-            Pattern pattern = Pattern.compile(rule.getTitlePattern(), Pattern.CASE_INSENSITIVE);
-            if (!pattern.matcher(device.getTitle()).find()) {
-                logger.warn("Device title pattern does not match");
-                return false;
-            }
-        }
-
-        if (rule.getMinPower() != null && device.getPower() < rule.getMinPower()) {
-            logger.warn("Device power is too low");
-            return false;
-        }
-        if (rule.getMaxPower() != null && device.getPower() > rule.getMaxPower()) {
-            logger.warn("Device power is too high");
-            return false;
-        }
-        logger.info("Rules matches");
-        return true;
-    }
-}
\ No newline at end of file
+}
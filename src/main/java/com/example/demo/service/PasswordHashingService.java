@@ -0,0 +1,205 @@
+package com.example.demo.service;
+
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import com.example.demo.dto.HashingStatsDto;
+import com.example.demo.exception.PasswordHashingBusyException;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * PasswordEncoder приложения: BCrypt на отдельном пуле из числа ядер с ограниченной очередью.
+ * Через него хешируют вход (DaoAuthenticationProvider), создание пользователей и смену пароля.
+ * Поток запроса ждет результат не дольше WAIT_TIMEOUT_MILLIS; при заполненной очереди или истечении ожидания
+ * запрос сразу получает 503 с Retry-After, а не занимает поток Tomcat, пока очередь не рассосется.
+ * Хеши с меньшей стоимостью, чем COST, пересчитываются при следующем успешном входе (upgradeEncoding).
+ * Метрики: password.hashing (время BCrypt по operation), password.hashing.queue.wait, размер очереди,
+ * занятые потоки и отказы по reason.
+ */
+@Slf4j
+@Service
+public class PasswordHashingService implements PasswordEncoder {
+    private static final Logger logger = LoggerFactory.getLogger(PasswordHashingService.class);
+    // Стоимость BCrypt для новых хешей; после повышения старые хеши обновятся при входе
+    private static final int COST = 10;
+    private static final int POOL_SIZE = Runtime.getRuntime().availableProcessors();
+    // При стоимости 10 хеш занимает 50-150 мс: полная очередь - одна-две секунды работы пула
+    private static final int QUEUE_CAPACITY = POOL_SIZE * 16;
+    private static final long WAIT_TIMEOUT_MILLIS = 5_000;
+    private static final long RETRY_AFTER_SECONDS = 1;
+
+    private final BCryptPasswordEncoder bcrypt = new BCryptPasswordEncoder(COST);
+    private final ThreadPoolExecutor executor;
+
+    private final LongAdder encodes = new LongAdder();
+    private final LongAdder encodeNanos = new LongAdder();
+    private final LongAdder verifications = new LongAdder();
+    private final LongAdder verifyNanos = new LongAdder();
+    private final LongAdder queueWaitNanos = new LongAdder();
+    private final AtomicLong maxHashNanos = new AtomicLong();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder timedOut = new LongAdder();
+    private final LongAdder upgradesRequested = new LongAdder();
+
+    private final Timer encodeTimer;
+    private final Timer verifyTimer;
+    private final Timer queueWaitTimer;
+
+    public PasswordHashingService(MeterRegistry meterRegistry) {
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(POOL_SIZE, POOL_SIZE, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(QUEUE_CAPACITY),
+            runnable -> {
+                Thread thread = new Thread(runnable, "password-hashing-" + threadNumber.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            },
+            new ThreadPoolExecutor.AbortPolicy());
+
+        this.encodeTimer = hashTimer(meterRegistry, "encode");
+        this.verifyTimer = hashTimer(meterRegistry, "matches");
+        this.queueWaitTimer = Timer.builder("password.hashing.queue.wait")
+            .description("Time a hashing task waits for a free pool thread")
+            .publishPercentileHistogram()
+            .maximumExpectedValue(Duration.ofMillis(WAIT_TIMEOUT_MILLIS))
+            .register(meterRegistry);
+        Gauge.builder("password.hashing.queue", executor, pool -> pool.getQueue().size())
+            .description("Hashing tasks waiting in the queue")
+            .register(meterRegistry);
+        Gauge.builder("password.hashing.active", executor, ThreadPoolExecutor::getActiveCount)
+            .description("Pool threads busy hashing")
+            .register(meterRegistry);
+        FunctionCounter.builder("password.hashing.rejected", rejected, LongAdder::sum)
+            .tag("reason", "queue_full")
+            .register(meterRegistry);
+        FunctionCounter.builder("password.hashing.rejected", timedOut, LongAdder::sum)
+            .tag("reason", "timeout")
+            .register(meterRegistry);
+    }
+
+    // Стоимость 10 - около 100 мс, поэтому границы гистограммы от 10 мс до таймаута ожидания
+    private static Timer hashTimer(MeterRegistry meterRegistry, String operation) {
+        return Timer.builder("password.hashing")
+            .description("BCrypt hashing time on the pool thread")
+            .tag("operation", operation)
+            .tag("cost", String.valueOf(COST))
+            .publishPercentileHistogram()
+            .minimumExpectedValue(Duration.ofMillis(10))
+            .maximumExpectedValue(Duration.ofMillis(WAIT_TIMEOUT_MILLIS))
+            .register(meterRegistry);
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return submit(() -> bcrypt.encode(rawPassword), encodes, encodeNanos, encodeTimer);
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return submit(() -> bcrypt.matches(rawPassword, encodedPassword), verifications, verifyNanos, verifyTimer);
+    }
+
+    // Разбор префикса хеша без вычислений - выполняется в потоке запроса
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        boolean upgrade = bcrypt.upgradeEncoding(encodedPassword);
+        if (upgrade) {
+            upgradesRequested.increment();
+            logger.debug("Password hash below cost {} will be rehashed", COST);
+        }
+        return upgrade;
+    }
+
+    public HashingStatsDto stats() {
+        long encodeCount = encodes.sum();
+        long verifyCount = verifications.sum();
+        return new HashingStatsDto(
+            COST,
+            encodeCount,
+            verifyCount,
+            averageMillis(encodeNanos.sum(), encodeCount),
+            averageMillis(verifyNanos.sum(), verifyCount),
+            maxHashNanos.get() / 1_000_000.0,
+            averageMillis(queueWaitNanos.sum(), encodeCount + verifyCount),
+            rejected.sum(),
+            timedOut.sum(),
+            upgradesRequested.sum(),
+            executor.getActiveCount(),
+            executor.getQueue().size(),
+            POOL_SIZE,
+            QUEUE_CAPACITY);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private <T> T submit(Callable<T> hash, LongAdder count, LongAdder nanos, Timer timer) {
+        long submitted = System.nanoTime();
+        Future<T> future;
+        try {
+            future = executor.submit(() -> {
+                long started = System.nanoTime();
+                queueWaitNanos.add(started - submitted);
+                queueWaitTimer.record(started - submitted, TimeUnit.NANOSECONDS);
+                try {
+                    return hash.call();
+                } finally {
+                    long elapsed = System.nanoTime() - started;
+                    count.increment();
+                    nanos.add(elapsed);
+                    timer.record(elapsed, TimeUnit.NANOSECONDS);
+                    maxHashNanos.accumulateAndGet(elapsed, Math::max);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            logger.debug("Password hashing queue is full ({} queued)", QUEUE_CAPACITY);
+            throw new PasswordHashingBusyException("Password hashing queue is full", RETRY_AFTER_SECONDS);
+        }
+        try {
+            return future.get(WAIT_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            timedOut.increment();
+            logger.warn("Password hashing took longer than {} ms", WAIT_TIMEOUT_MILLIS);
+            throw new PasswordHashingBusyException("Password hashing timed out", RETRY_AFTER_SECONDS);
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new PasswordHashingBusyException("Password hashing interrupted", RETRY_AFTER_SECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException("Password hashing failed", e.getCause());
+        }
+    }
+
+    private static double averageMillis(long totalNanos, long count) {
+        return count == 0 ? 0 : totalNanos / 1_000_000.0 / count;
+    }
+}
@@ -0,0 +1,245 @@
+package com.example.demo.service;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.example.demo.dto.DevicePowerSnapshot;
+import com.example.demo.dto.PowerBreakdownDto;
+import com.example.demo.model.Device;
+import com.example.demo.model.DeviceType;
+import com.example.demo.repository.DeviceRepository;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Журнал энергопотребления: держит в памяти вклад каждого включенного устройства
+ * и суммы по комнатам, типам и менеджерам, чтобы /api/control/power не читал всю таблицу.
+ * Обновления идемпотентны: запись устройства всегда сначала снимает его прежний вклад.
+ * Блокировка - ReentrantLock, а не synchronized: загрузка и сверка читают БД под блокировкой,
+ * и виртуальный поток не должен занимать поток-носитель на время запроса.
+ */
+@Slf4j
+@Service
+public class PowerLedgerService {
+    private static final Logger logger = LoggerFactory.getLogger(PowerLedgerService.class);
+    private static final double DRIFT_TOLERANCE = 0.001;
+
+    private final DeviceRepository deviceRepository;
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private Ledger ledger = new Ledger();
+    private boolean loaded = false;
+
+    public PowerLedgerService(DeviceRepository deviceRepository) {
+        this.deviceRepository = deviceRepository;
+    }
+
+    // Снимок читается под блокировкой, чтобы параллельные изменения не потерялись при замене журнала
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        lock.lock();
+        try {
+            ledger = Ledger.of(deviceRepository.findActivePowerSnapshots());
+            loaded = true;
+            logger.info("Power ledger loaded: {} active devices, total {}", ledger.contributions.size(), ledger.total);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Суммарная мощность; до загрузки журнала считаем в БД одним агрегатом
+    public double getTotalPower() {
+        lock.lock();
+        try {
+            if (loaded) {
+                return ledger.total;
+            }
+        } finally {
+            lock.unlock();
+        }
+        return deviceRepository.sumActivePower();
+    }
+
+    public PowerBreakdownDto getBreakdown() {
+        lock.lock();
+        try {
+            return new PowerBreakdownDto(
+                ledger.total,
+                Map.copyOf(ledger.byRoom),
+                Map.copyOf(ledger.byType),
+                Map.copyOf(ledger.byManager)
+            );
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Зафиксировать текущее состояние устройства (создание, обновление, переключение)
+    public void record(Device device) {
+        record(toSnapshot(device));
+    }
+
+    public void record(DevicePowerSnapshot snapshot) {
+        lock.lock();
+        try {
+            ledger.remove(snapshot.deviceId());
+            if (snapshot.active()) {
+                ledger.add(snapshot);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void remove(Long deviceId) {
+        lock.lock();
+        try {
+            ledger.remove(deviceId);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // У комнаты сменился менеджер - переносим вклад ее устройств
+    public void reassignRoom(Long roomId, Long managerId) {
+        lock.lock();
+        try {
+            List<DevicePowerSnapshot> moved = ledger.contributions.values().stream()
+                .filter(snapshot -> roomId.equals(snapshot.roomId()))
+                .toList();
+            moved.forEach(snapshot -> {
+                ledger.remove(snapshot.deviceId());
+                ledger.add(new DevicePowerSnapshot(snapshot.deviceId(), snapshot.type(), snapshot.power(),
+                    true, roomId, managerId));
+            });
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Комната удалена вместе с устройствами (cascade)
+    public void removeRoom(Long roomId) {
+        lock.lock();
+        try {
+            List<Long> removed = ledger.contributions.values().stream()
+                .filter(snapshot -> roomId.equals(snapshot.roomId()))
+                .map(DevicePowerSnapshot::deviceId)
+                .toList();
+            removed.forEach(ledger::remove);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Сверка журнала с БД: при расхождении сообщаем о нем и заменяем журнал данными из БД
+    @Scheduled(fixedDelay = 300_000, initialDelay = 300_000)
+    public void reconcile() {
+        lock.lock();
+        try {
+            if (!loaded) {
+                return;
+            }
+            Ledger actual = Ledger.of(deviceRepository.findActivePowerSnapshots());
+            List<String> drift = ledger.diff(actual);
+            if (drift.isEmpty()) {
+                logger.debug("Power ledger reconciled without drift");
+                return;
+            }
+            logger.warn("Power ledger drift detected, rebuilding: {}", drift);
+            ledger = actual;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static DevicePowerSnapshot toSnapshot(Device device) {
+        Long roomId = device.getRoom() != null ? device.getRoom().getId() : null;
+        Long managerId = device.getRoom() != null && device.getRoom().getManager() != null
+            ? device.getRoom().getManager().getId()
+            : null;
+        return new DevicePowerSnapshot(device.getId(), device.getType(), device.getPower(),
+            device.isActive(), roomId, managerId);
+    }
+
+    private static class Ledger {
+        private final Map<Long, DevicePowerSnapshot> contributions = new HashMap<>();
+        private final Map<Long, Double> byRoom = new HashMap<>();
+        private final Map<DeviceType, Double> byType = new EnumMap<>(DeviceType.class);
+        private final Map<Long, Double> byManager = new HashMap<>();
+        private double total;
+
+        static Ledger of(List<DevicePowerSnapshot> snapshots) {
+            Ledger ledger = new Ledger();
+            snapshots.forEach(ledger::add);
+            return ledger;
+        }
+
+        void add(DevicePowerSnapshot snapshot) {
+            contributions.put(snapshot.deviceId(), snapshot);
+            apply(snapshot, snapshot.power());
+        }
+
+        void remove(Long deviceId) {
+            DevicePowerSnapshot previous = contributions.remove(deviceId);
+            if (previous != null) {
+                apply(previous, -previous.power());
+            }
+        }
+
+        private void apply(DevicePowerSnapshot snapshot, double delta) {
+            total += delta;
+            adjust(byType, snapshot.type(), delta);
+            adjust(byRoom, snapshot.roomId(), delta);
+            adjust(byManager, snapshot.managerId(), delta);
+        }
+
+        private static <K> void adjust(Map<K, Double> totals, K key, double delta) {
+            if (key == null) {
+                return;
+            }
+            double value = totals.getOrDefault(key, 0.0) + delta;
+            if (Math.abs(value) < DRIFT_TOLERANCE) {
+                totals.remove(key);
+            } else {
+                totals.put(key, value);
+            }
+        }
+
+        List<String> diff(Ledger actual) {
+            List<String> drift = new ArrayList<>();
+            if (Math.abs(total - actual.total) > DRIFT_TOLERANCE) {
+                drift.add(String.format("total %.3f != %.3f", total, actual.total));
+            }
+            diff("type", byType, actual.byType, drift);
+            diff("room", byRoom, actual.byRoom, drift);
+            diff("manager", byManager, actual.byManager, drift);
+            return drift;
+        }
+
+        private static <K> void diff(String dimension, Map<K, Double> ledger, Map<K, Double> actual,
+                                     List<String> drift) {
+            Set<K> keys = new HashSet<>(ledger.keySet());
+            keys.addAll(actual.keySet());
+            for (K key : keys) {
+                double expected = actual.getOrDefault(key, 0.0);
+                double recorded = ledger.getOrDefault(key, 0.0);
+                if (Math.abs(expected - recorded) > DRIFT_TOLERANCE) {
+                    drift.add(String.format("%s %s: %.3f != %.3f", dimension, key, recorded, expected));
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.demo.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.example.demo.cache.BoundedTtlCache;
+import com.example.demo.dto.CacheStatsDto;
+import com.example.demo.jwt.AuthenticatedPrincipal;
+import com.example.demo.model.User;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Кэш аутентифицированных пользователей для JwtAuthFilter, ключ - username.
+ * Избавляет от загрузки User, Role и Permission из БД на каждом запросе.
+ * Сбрасывается при изменении или удалении пользователя, изменении ролей и прав и при выходе из системы.
+ */
+@Slf4j
+@Component
+public class PrincipalCache {
+    private static final Logger logger = LoggerFactory.getLogger(PrincipalCache.class);
+    private static final int MAX_SIZE = 10_000;
+    private static final long TTL_MILLIS = 60_000;
+
+    private final UserDetailsService userDetailsService;
+    private final BoundedTtlCache<String, AuthenticatedPrincipal> cache = new BoundedTtlCache<>(MAX_SIZE, TTL_MILLIS);
+
+    public PrincipalCache(UserDetailsService userDetailsService) {
+        this.userDetailsService = userDetailsService;
+    }
+
+    public AuthenticatedPrincipal get(String username) {
+        return cache.get(username, this::load);
+    }
+
+    // Сбрасываем сразу и повторно после коммита, чтобы параллельный запрос не закэшировал старые данные
+    public void invalidate(String username) {
+        if (username == null) {
+            return;
+        }
+        logger.debug("Principal cache invalidated for {}", username);
+        cache.invalidate(username);
+        afterCommit(() -> cache.invalidate(username));
+    }
+
+    public void invalidateAll() {
+        logger.debug("Principal cache cleared");
+        cache.invalidateAll();
+        afterCommit(cache::invalidateAll);
+    }
+
+    public CacheStatsDto stats() {
+        return cache.stats();
+    }
+
+    private AuthenticatedPrincipal load(String username) {
+        logger.debug("Principal cache miss: {}", username);
+        return AuthenticatedPrincipal.of((User) userDetailsService.loadUserByUsername(username));
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
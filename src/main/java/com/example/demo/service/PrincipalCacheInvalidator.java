@@ -0,0 +1,25 @@
+package com.example.demo.service;
+
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+
+// JPA-слушатель Role и Permission: любое изменение ролей или прав сбрасывает кэш пользователей целиком
+@Component
+public class PrincipalCacheInvalidator {
+    private final PrincipalCache principalCache;
+
+    public PrincipalCacheInvalidator(@Lazy PrincipalCache principalCache) {
+        this.principalCache = principalCache;
+    }
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void onSecurityModelChange(Object entity) {
+        principalCache.invalidateAll();
+    }
+}
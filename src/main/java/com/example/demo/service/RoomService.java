@@ -1,15 +1,26 @@
 package com.example.demo.service;
 
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 
+import com.example.demo.dto.CursorPage;
+import com.example.demo.dto.DeviceSimpleDto;
+import com.example.demo.dto.RoomDto;
+import com.example.demo.dto.SeekCursor;
+import com.example.demo.mapper.RoomMapper;
 import com.example.demo.model.Device;
 import com.example.demo.model.Room;
 import com.example.demo.model.User;
 import com.example.demo.repository.RoomRepository;
+import com.example.demo.specification.KeysetSpecification;
+import com.example.demo.specification.RoomSpecification;
 
 import lombok.extern.slf4j.Slf4j;
 
@@ -18,11 +29,16 @@ import lombok.extern.slf4j.Slf4j;
 public class RoomService {
     private static final Logger logger = LoggerFactory.getLogger(RoomService.class);
     private final RoomRepository roomRepository;
-    
+    private final PowerLedgerService powerLedgerService;
+    private final TitleSearchService titleSearchService;
+    private static final Set<String> ROOM_SEEK_KEYS = Set.of("bus", "id");
+    private static final List<String> ROOM_FETCH_PLAN = List.of("manager", "manager.role");
 
-     public List<Room> getRoomsByManager(Long managerId) {
+    // Список комнат менеджера двумя запросами-проекциями независимо от числа комнат
+    public List<RoomDto> getRoomsByManager(Long managerId) {
         logger.debug("Getting rooms by managerId: {}", managerId);
-        return roomRepository.findByManagerId(managerId);
+        return RoomMapper.toDtos(roomRepository.findSnapshotsByManagerId(managerId),
+            roomRepository.findDeviceSnapshotsByManagerId(managerId));
     }
     
     public boolean isRoomManager(Long roomId, Long userId) {
@@ -31,18 +47,23 @@ public class RoomService {
         return room != null && room.getManager() != null && room.getManager().getId().equals(userId);
     }
 
-    public RoomService(RoomRepository roomRepository) {
+    public RoomService(RoomRepository roomRepository, PowerLedgerService powerLedgerService,
+                       TitleSearchService titleSearchService) {
         this.roomRepository = roomRepository;
+        this.powerLedgerService = powerLedgerService;
+        this.titleSearchService = titleSearchService;
     }
 
     public Room createRoom(Room room) {
         logger.debug("Creating room: {}", room);
-        return roomRepository.save(room);
+        Room savedRoom = roomRepository.save(room);
+        titleSearchService.indexRoom(savedRoom);
+        return savedRoom;
     }
 
-    public List<Room> getAllRooms() {
+    public List<RoomDto> getAllRooms() {
         logger.info("Getting all rooms");
-        return roomRepository.findAll();
+        return RoomMapper.toDtos(roomRepository.findAllSnapshots(), roomRepository.findAllDeviceSnapshots());
     }
 
     public Room getRoomById(Long id) {
@@ -62,7 +83,11 @@ public class RoomService {
                 existingRoom.setDevices(roomDetails.getDevices());
                 existingRoom.setManager(roomDetails.getManager());
                 existingRoom.setBus(roomDetails.getBus());
-                return roomRepository.save(existingRoom);
+                Room savedRoom = roomRepository.save(existingRoom);
+                powerLedgerService.reassignRoom(savedRoom.getId(),
+                    savedRoom.getManager() != null ? savedRoom.getManager().getId() : null);
+                titleSearchService.indexRoom(savedRoom);
+                return savedRoom;
             })
             .orElse(null);
         }
@@ -71,6 +96,8 @@ public class RoomService {
         logger.debug("Deleting room with id: {}", id);
         if (roomRepository.existsById(id)) {
             roomRepository.deleteById(id);
+            powerLedgerService.removeRoom(id);
+            titleSearchService.removeRoom(id);
             logger.debug("Room with id {} deleted", id);
             return true;
         }
@@ -78,6 +105,29 @@ public class RoomService {
         return false;
     }
 
-
-    
-}
\ No newline at end of file
+    // Курсорная пагинация комнат; managerId == null - все комнаты (ADMIN), bus - подстрока названия
+    // Менеджер и роль загружаются вместе со страницей, устройства страницы - одним запросом-проекцией
+    public CursorPage<RoomDto> seekRooms(Long managerId, String bus, String sortKey, Sort.Direction direction,
+                                         String after, Integer size) {
+        SeekCursor cursor = KeysetSpecification.parse(after, sortKey, direction, ROOM_SEEK_KEYS);
+        int limit = KeysetSpecification.size(size);
+        logger.debug("Room seek: manager - {}, sort - {} {}, size - {}", managerId, sortKey, direction, limit);
+        Specification<Room> spec = RoomSpecification.managedBy(managerId)
+                .and(titleSearchService.findRoomIds(bus)
+                    .map(RoomSpecification::idIn)
+                    .orElseGet(() -> RoomSpecification.busLike(bus)))
+                .and(KeysetSpecification.after(cursor));
+        List<Room> rows = roomRepository.findBy(spec,
+                query -> query.sortBy(KeysetSpecification.sort(sortKey, direction))
+                    .project(ROOM_FETCH_PLAN)
+                    .limit(limit + 1)
+                    .all());
+        CursorPage<Room> page = KeysetSpecification.page(rows, limit, sortKey, direction);
+        if (page.content().isEmpty()) {
+            return page.map(room -> RoomMapper.toDto(room, List.of()));
+        }
+        Map<Long, List<DeviceSimpleDto>> devicesByRoom = RoomMapper.groupByRoom(
+            roomRepository.findDeviceSnapshotsByRoomIdIn(page.content().stream().map(Room::getId).toList()));
+        return page.map(room -> RoomMapper.toDto(room, devicesByRoom.getOrDefault(room.getId(), List.of())));
+    }
+}
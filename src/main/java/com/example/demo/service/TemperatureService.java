@@ -8,7 +8,6 @@ import lombok.extern.slf4j.Slf4j;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
-import java.util.List;
 
 @Slf4j
 @Service
@@ -22,8 +21,7 @@ public class TemperatureService {
 
     public String controlByTemperature(Long roomId, double currentTemperature) {
         logger.debug("Control by temperature for room {}", roomId);
-        List<Device> roomDevices = deviceControlService.getDevicesByRoom(roomId);
-        Device conditioner = findConditioner(roomDevices);
+        Device conditioner = findConditioner(roomId);
         
         if (conditioner == null) {
             logger.warn("Conditioner not found in room {}", roomId);
@@ -63,11 +61,9 @@ public class TemperatureService {
         }
     }
 
-    private Device findConditioner(List<Device> devices) {
+    // Стоимость не зависит от общего числа устройств: ищем только в комнате и только нужный тип
+    private Device findConditioner(Long roomId) {
         logger.info("Finding conditioner in room");
-        return devices.stream()
-            .filter(device -> device.getType() == DeviceType.CONDITIONER)
-            .findFirst()
-            .orElse(null);
+        return deviceControlService.getRoomDeviceByType(roomId, DeviceType.CONDITIONER);
     }
 }
\ No newline at end of file
@@ -0,0 +1,352 @@
+package com.example.demo.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.example.demo.dto.TitleSnapshot;
+import com.example.demo.model.Device;
+import com.example.demo.model.Room;
+import com.example.demo.repository.DeviceRepository;
+import com.example.demo.repository.RoomRepository;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Поиск подстроки в названиях устройств и комнат (bus) без просмотра всей таблицы.
+ * В памяти держится триграммный индекс: для каждой тройки символов - отсортированный список id.
+ * Кандидаты - пересечение самых коротких списков триграмм запроса; оставшиеся сверяются
+ * с названием, затем строки читаются из БД по первичному ключу вместе с остальными фильтрами.
+ * Поиски идут параллельно под блокировкой чтения, изменения и замена индекса - под блокировкой записи.
+ * Пока индекс перестраивается, для коротких запросов и при большом числе совпадений поиск выполняет SQL (LIKE).
+ */
+@Slf4j
+@Service
+public class TitleSearchService {
+    private static final Logger logger = LoggerFactory.getLogger(TitleSearchService.class);
+    private static final int GRAM = 3;
+    // Больше совпадений - отдаем поиск SQL: IN-список ограничен числом параметров и не дешевле LIKE
+    private static final int MAX_MATCHES = 1000;
+    // Кандидаты самого короткого списка пересекаются еще с двумя самыми короткими: на 1 млн названий
+    // это в 3-4 раза быстрее одного списка для редких запросов, а следующие списки уже не окупают скачков
+    private static final int MAX_FILTERS = 2;
+    // Столько кандидатов проверяется по списку триграммы, прежде чем решить, отсекает ли он что-нибудь
+    private static final int PROBE_WINDOW = 64;
+
+    private final DeviceRepository deviceRepository;
+    private final RoomRepository roomRepository;
+    // Поля ниже читаются под readLock, меняются под writeLock
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private TrigramIndex devices = new TrigramIndex();
+    private TrigramIndex rooms = new TrigramIndex();
+    private boolean ready = false;
+    // Изменения, пришедшие во время перестроения; применяются к новому индексу перед заменой
+    private List<Change> pending;
+
+    public TitleSearchService(DeviceRepository deviceRepository, RoomRepository roomRepository) {
+        this.deviceRepository = deviceRepository;
+        this.roomRepository = roomRepository;
+    }
+
+    // Перестроение раз в 10 минут убирает устройства, удаленные каскадом вместе с комнатой
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelay = 600_000, initialDelay = 600_000)
+    public void rebuild() {
+        lock.writeLock().lock();
+        try {
+            if (pending != null) {
+                return;
+            }
+            ready = false;
+            pending = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        try {
+            TrigramIndex newDevices = TrigramIndex.of(deviceRepository.findAllTitleSnapshots());
+            TrigramIndex newRooms = TrigramIndex.of(roomRepository.findAllTitleSnapshots());
+            lock.writeLock().lock();
+            try {
+                pending.forEach(change -> change.applyTo(change.room() ? newRooms : newDevices));
+                devices = newDevices;
+                rooms = newRooms;
+                pending = null;
+                ready = true;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            logger.info("Title index built: {} devices, {} rooms", newDevices.titles.size(), newRooms.titles.size());
+        } catch (RuntimeException e) {
+            lock.writeLock().lock();
+            try {
+                pending = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            logger.error("Title index rebuild failed, title search falls back to SQL", e);
+        }
+    }
+
+    // id устройств, в названии которых есть подстрока; пусто - искать в SQL
+    public Optional<List<Long>> findDeviceIds(String query) {
+        return find(false, query);
+    }
+
+    public Optional<List<Long>> findRoomIds(String query) {
+        return find(true, query);
+    }
+
+    public void indexDevice(Device device) {
+        apply(new Change(false, device.getId(), device.getTitle()));
+    }
+
+    public void removeDevice(Long deviceId) {
+        apply(new Change(false, deviceId, null));
+    }
+
+    public void indexRoom(Room room) {
+        apply(new Change(true, room.getId(), room.getBus()));
+    }
+
+    // Устройства комнаты, удаленные каскадом, уйдут при перестроении; до того их id отсекает запрос по ключу
+    public void removeRoom(Long roomId) {
+        apply(new Change(true, roomId, null));
+    }
+
+    private Optional<List<Long>> find(boolean room, String query) {
+        if (query == null) {
+            return Optional.empty();
+        }
+        String normalized = normalize(query);
+        // LIKE понимает % и _ как шаблон - такие запросы оставляем SQL, чтобы результат не зависел от пути
+        if (normalized.length() < GRAM || normalized.indexOf('%') >= 0 || normalized.indexOf('_') >= 0) {
+            return Optional.empty();
+        }
+        Optional<List<Long>> ids;
+        lock.readLock().lock();
+        try {
+            if (!ready) {
+                return Optional.empty();
+            }
+            ids = (room ? rooms : devices).find(normalized, MAX_MATCHES);
+        } finally {
+            lock.readLock().unlock();
+        }
+        if (ids.isEmpty()) {
+            logger.debug("Title search '{}' matches over {} rows, using SQL", query, MAX_MATCHES);
+        }
+        return ids;
+    }
+
+    private void apply(Change change) {
+        lock.writeLock().lock();
+        try {
+            if (pending != null) {
+                pending.add(change);
+            } else {
+                change.applyTo(change.room() ? rooms : devices);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Как lower() в SQL-варианте поиска
+    private static String normalize(String text) {
+        return text.toLowerCase(Locale.ROOT);
+    }
+
+    // title == null - удаление
+    private record Change(boolean room, Long id, String title) {
+        void applyTo(TrigramIndex index) {
+            if (title == null) {
+                index.remove(id);
+            } else {
+                index.put(id, title);
+            }
+        }
+    }
+
+    private static class TrigramIndex {
+        private final Map<Long, String> titles = new HashMap<>();
+        private final Map<Long, Postings> postings = new HashMap<>();
+
+        static TrigramIndex of(List<TitleSnapshot> snapshots) {
+            TrigramIndex index = new TrigramIndex();
+            snapshots.forEach(snapshot -> index.put(snapshot.id(), snapshot.title()));
+            return index;
+        }
+
+        void put(Long id, String title) {
+            remove(id);
+            if (title == null) {
+                return;
+            }
+            String normalized = normalize(title);
+            titles.put(id, normalized);
+            for (long gram : grams(normalized)) {
+                postings.computeIfAbsent(gram, key -> new Postings()).add(id);
+            }
+        }
+
+        void remove(Long id) {
+            String previous = titles.remove(id);
+            if (previous == null) {
+                return;
+            }
+            for (long gram : grams(previous)) {
+                Postings ids = postings.get(gram);
+                if (ids != null && ids.remove(id) && ids.size == 0) {
+                    postings.remove(gram);
+                }
+            }
+        }
+
+        // Пересечение списков не учитывает порядок триграмм, поэтому кандидаты сверяются с названием
+        Optional<List<Long>> find(String query, int limit) {
+            long[] grams = grams(query);
+            // Повторяющиеся триграммы запроса дают один и тот же список - берем каждую один раз
+            Arrays.sort(grams);
+            List<Postings> lists = new ArrayList<>(grams.length);
+            for (int i = 0; i < grams.length; i++) {
+                if (i > 0 && grams[i] == grams[i - 1]) {
+                    continue;
+                }
+                Postings ids = postings.get(grams[i]);
+                if (ids == null) {
+                    return Optional.of(List.of());
+                }
+                lists.add(ids);
+            }
+            lists.sort((left, right) -> Integer.compare(left.size, right.size));
+            // Пересечение идет вместе со сверкой: курсор в каждом списке только движется вперед,
+            // и поиск останавливается, как только совпадений больше limit.
+            // Триграммы одного слова почти всегда встречаются вместе, и такой список почти ничего не отсекает -
+            // он перестает участвовать, если за очередные PROBE_WINDOW проверок отсек меньше четверти кандидатов:
+            // скачок по списку стоит примерно как сверка названия, и слабый фильтр ее не окупает
+            Postings smallest = lists.get(0);
+            int others = Math.min(lists.size() - 1, MAX_FILTERS);
+            Postings[] filters = new Postings[others];
+            int[] cursors = new int[others];
+            int[] probes = new int[others];
+            int[] rejects = new int[others];
+            for (int l = 0; l < others; l++) {
+                filters[l] = lists.get(l + 1);
+            }
+            List<Long> matches = new ArrayList<>();
+            int i = 0;
+            candidates:
+            while (i < smallest.size) {
+                long id = smallest.ids[i];
+                for (int l = 0; l < others; l++) {
+                    Postings other = filters[l];
+                    if (other == null) {
+                        continue;
+                    }
+                    int at = other.seek(id, cursors[l]);
+                    cursors[l] = at;
+                    if (at == other.size) {
+                        break candidates;
+                    }
+                    boolean rejected = other.ids[at] != id;
+                    probes[l]++;
+                    if (rejected) {
+                        rejects[l]++;
+                    }
+                    if (probes[l] == PROBE_WINDOW) {
+                        if (rejects[l] * 4 < PROBE_WINDOW) {
+                            filters[l] = null;
+                        }
+                        probes[l] = 0;
+                        rejects[l] = 0;
+                    }
+                    if (rejected) {
+                        // В самом коротком списке сразу переходим к id, которого ждет этот список
+                        i = smallest.seek(other.ids[at], i + 1);
+                        continue candidates;
+                    }
+                }
+                i++;
+                if (titles.get(id).contains(query)) {
+                    if (matches.size() == limit) {
+                        return Optional.empty();
+                    }
+                    matches.add(id);
+                }
+            }
+            return Optional.of(matches);
+        }
+
+        // Три символа UTF-16 упакованы в одно long
+        private static long[] grams(String text) {
+            if (text.length() < GRAM) {
+                return new long[0];
+            }
+            long[] grams = new long[text.length() - GRAM + 1];
+            for (int i = 0; i < grams.length; i++) {
+                grams[i] = ((long) text.charAt(i) << 32) | ((long) text.charAt(i + 1) << 16) | text.charAt(i + 2);
+            }
+            return grams;
+        }
+    }
+
+    // Отсортированный массив id: при загрузке и импорте id растут, и вставка идет в конец
+    private static class Postings {
+        private long[] ids = new long[4];
+        private int size;
+
+        void add(long id) {
+            int at = Arrays.binarySearch(ids, 0, size, id);
+            if (at >= 0) {
+                return;
+            }
+            at = -at - 1;
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            System.arraycopy(ids, at, ids, at + 1, size - at);
+            ids[at] = id;
+            size++;
+        }
+
+        // Индекс первого id не меньше заданного, начиная с from: скачки 1, 2, 4... и двоичный поиск
+        // в последнем промежутке - длинный список не проходится целиком, если кандидатов мало
+        int seek(long id, int from) {
+            int step = 1;
+            while (from + step < size && ids[from + step] < id) {
+                step <<= 1;
+            }
+            int low = from + (step >> 1);
+            int high = Math.min(from + step + 1, size);
+            if (low >= high) {
+                return size;
+            }
+            int at = Arrays.binarySearch(ids, low, high, id);
+            return at >= 0 ? at : -at - 1;
+        }
+
+        boolean remove(long id) {
+            int at = Arrays.binarySearch(ids, 0, size, id);
+            if (at < 0) {
+                return false;
+            }
+            System.arraycopy(ids, at + 1, ids, at, size - at - 1);
+            size--;
+            return true;
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.demo.service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.demo.dto.TokenExpirySnapshot;
+import com.example.demo.jwt.JwtTokenProvider;
+import com.example.demo.jwt.RevokedTokens;
+import com.example.demo.model.Token;
+import com.example.demo.model.User;
+import com.example.demo.repository.TokenRepository;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Хранилище выданных токенов: в БД лежит SHA-256 токена, срок действия и признак отзыва.
+ * Отзыв всех токенов пользователя - один UPDATE; отозванные, но не истекшие токены дублируются в RevokedTokens,
+ * чтобы проверка на каждом запросе обходилась без БД. Истекшие строки удаляются фоновой очисткой порциями.
+ * Список отзыва хранится в памяти узла: при нескольких экземплярах приложения отзыв виден только на своем.
+ */
+@Slf4j
+@Service
+public class TokenService {
+    private static final Logger logger = LoggerFactory.getLogger(TokenService.class);
+    // Одна порция очистки - одна транзакция с DELETE ... WHERE id IN (...)
+    private static final int SWEEP_BATCH_SIZE = 1000;
+
+    private final TokenRepository tokenRepository;
+    private final RevokedTokens revokedTokens;
+
+    public TokenService(TokenRepository tokenRepository, RevokedTokens revokedTokens) {
+        this.tokenRepository = tokenRepository;
+        this.revokedTokens = revokedTokens;
+    }
+
+    // До приема запросов: токены, отозванные до перезапуска, должны отвергаться сразу
+    @PostConstruct
+    public void loadRevoked() {
+        List<TokenExpirySnapshot> revoked = tokenRepository.findRevokedLive(LocalDateTime.now());
+        revoked.forEach(token -> revokedTokens.revoke(token.tokenHash(), token.expiryDate()));
+        logger.info("Revoked tokens loaded: {}", revoked.size());
+    }
+
+    public Token save(Token token) {
+        return tokenRepository.save(token);
+    }
+
+    // keepTokenValue - токен, который остается действующим (null - отозвать все)
+    @Transactional
+    public int revokeAllOfUser(User user, String keepTokenValue) {
+        LocalDateTime now = LocalDateTime.now();
+        String keepHash = keepTokenValue != null ? JwtTokenProvider.digest(keepTokenValue) : null;
+        List<TokenExpirySnapshot> live = tokenRepository.findLiveByUserId(user.getId(), now, keepHash);
+        if (live.isEmpty()) {
+            return 0;
+        }
+        // Сначала в список отзыва: параллельный запрос с этим токеном не должен пройти, пока идет UPDATE
+        live.forEach(token -> revokedTokens.revoke(token.tokenHash(), token.expiryDate()));
+        int disabled = tokenRepository.disableLiveByUserId(user.getId(), now, keepHash);
+        logger.debug("Revoked {} tokens of user {}", disabled, user.getUsername());
+        return disabled;
+    }
+
+    @Scheduled(fixedDelay = 300_000, initialDelay = 60_000)
+    public void sweepExpired() {
+        LocalDateTime now = LocalDateTime.now();
+        int deleted = 0;
+        List<Long> ids;
+        do {
+            ids = tokenRepository.findExpiredIds(now, PageRequest.of(0, SWEEP_BATCH_SIZE));
+            if (!ids.isEmpty()) {
+                tokenRepository.deleteAllByIdInBatch(ids);
+                deleted += ids.size();
+            }
+        } while (ids.size() == SWEEP_BATCH_SIZE);
+        int purged = revokedTokens.purgeExpired(now);
+        if (deleted > 0 || purged > 0) {
+            logger.info("Expired tokens swept: {} rows deleted, {} revocations dropped", deleted, purged);
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package com.example.demo.service;
 
+import com.example.demo.dto.CacheStatsDto;
+import com.example.demo.dto.HashingStatsDto;
 import com.example.demo.dto.UserCreateDto;
 import com.example.demo.model.Role;
 import com.example.demo.model.User;
@@ -10,7 +12,6 @@ import lombok.extern.slf4j.Slf4j;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -23,15 +24,18 @@ import java.util.Optional;
 public class UserService {
     private static final Logger logger = LoggerFactory.getLogger(UserService.class);
     private final UserRepository userRepository;
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHashingService passwordHashingService;
     private final RoleRepository roleRepository;
+    private final PrincipalCache principalCache;
 
     public UserService(UserRepository userRepository, 
-                      PasswordEncoder passwordEncoder,
-                      RoleRepository roleRepository) {
+                      PasswordHashingService passwordHashingService,
+                      RoleRepository roleRepository,
+                      PrincipalCache principalCache) {
         this.userRepository = userRepository;
-        this.passwordEncoder = passwordEncoder;
+        this.passwordHashingService = passwordHashingService;
         this.roleRepository = roleRepository;
+        this.principalCache = principalCache;
     }
 
     // Проверка, есть ли пользователи в системе
@@ -56,7 +60,7 @@ public class UserService {
         // Создание пользователя
         User user = User.builder()
             .username(userCreateDto.username())
-            .password(passwordEncoder.encode(userCreateDto.password()))
+            .password(passwordHashingService.encode(userCreateDto.password()))
             .role(role)
             .build();
         
@@ -75,7 +79,7 @@ public class UserService {
         
         User user = User.builder()
             .username(username)
-            .password(passwordEncoder.encode(password))
+            .password(passwordHashingService.encode(password))
             .role(adminRole)
             .build();
         
@@ -90,6 +94,7 @@ public class UserService {
             logger.error("User not found: {}", userId);
             throw new IllegalArgumentException("User not found");
         }
+        principalCache.invalidate(user.getUsername());
         logger.info("Toggled user status for user: {}", userId);
         return userRepository.save(user);
     }
@@ -97,7 +102,7 @@ public class UserService {
     // Создание пользователя
     public User createUser(User user) {
         logger.debug("Creating user: {}", user.getUsername());
-        user.setPassword(passwordEncoder.encode(user.getPassword())); // Кодируем пароль
+        user.setPassword(passwordHashingService.encode(user.getPassword())); // Кодируем пароль
         User savedUser = userRepository.save(user);
         logger.info("Created user: {}", user.getUsername());
         return savedUser;
@@ -126,11 +131,12 @@ public class UserService {
         logger.debug("Updating user with id: {}", id);
         return userRepository.findById(id)
             .map(existingUser -> {
+                principalCache.invalidate(existingUser.getUsername());
                 if (userDetails.getUsername() != null) {
                     existingUser.setUsername(userDetails.getUsername());
                 }
                 if (userDetails.getPassword() != null) {
-                    existingUser.setPassword(passwordEncoder.encode(userDetails.getPassword()));
+                    existingUser.setPassword(passwordHashingService.encode(userDetails.getPassword()));
                 }
                 logger.info("Updated user: {}", id);
                 return userRepository.save(existingUser);
@@ -141,12 +147,24 @@ public class UserService {
     // Удаление пользователя
     public boolean deleteUser(Long id) {
         logger.debug("Deleting user with id: {}", id);
-        if (userRepository.existsById(id)) {
-            userRepository.deleteById(id);
+        User user = userRepository.findById(id).orElse(null);
+        if (user != null) {
+            principalCache.invalidate(user.getUsername());
+            userRepository.delete(user);
             logger.info("Deleted user: {}", id);
             return true;
         }
         logger.warn("User not found for deletion: {}", id);
         return false;
     }
-}
\ No newline at end of file
+
+    // Статистика кэша аутентифицированных пользователей
+    public CacheStatsDto getPrincipalCacheStats() {
+        return principalCache.stats();
+    }
+
+    // Счетчики пула хеширования паролей
+    public HashingStatsDto getPasswordHashingStats() {
+        return passwordHashingService.stats();
+    }
+}
@@ -1,5 +1,7 @@
 package com.example.demo.specification;
 
+import java.util.Collection;
+
 import org.springframework.data.jpa.domain.Specification;
 
 
@@ -16,7 +18,19 @@ public class DeviceSpecification {
                 .and(activeEqual(active));
     }
     
-    private static Specification<Device> titleLike(String title) {
+    // Устройства в комнатах заданного менеджера (null - без ограничения)
+    public static Specification<Device> managedBy(Long managerId) {
+        return (root, query, cb) -> managerId != null
+                ? cb.equal(root.get("room").get("manager").get("id"), managerId)
+                : null;
+    }
+    
+    // Устройства с заданными id (кандидаты триграммного индекса TitleSearchService)
+    public static Specification<Device> idIn(Collection<Long> ids) {
+        return (root, query, cb) -> ids.isEmpty() ? cb.disjunction() : root.get("id").in(ids);
+    }
+    
+    public static Specification<Device> titleLike(String title) {
         return (root, query, cb) -> {
             if (title == null) return null;
             return cb.like(cb.lower(root.get("title")), "%" + title.toLowerCase() + "%");
@@ -0,0 +1,83 @@
+package com.example.demo.specification;
+
+import java.util.List;
+import java.util.Set;
+
+import org.springframework.beans.BeanWrapperImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import com.example.demo.dto.CursorPage;
+import com.example.demo.dto.SeekCursor;
+
+import jakarta.persistence.criteria.Path;
+
+// Keyset (seek) пагинация по паре (ключ сортировки, id): вместо OFFSET условие "строго после курсора"
+public class KeysetSpecification {
+    public static final int DEFAULT_SIZE = 20;
+    public static final int MAX_SIZE = 200;
+
+    public static SeekCursor parse(String after, String sortKey, Sort.Direction direction, Set<String> allowedKeys) {
+        if (!allowedKeys.contains(sortKey)) {
+            throw new IllegalArgumentException("Unsupported sort key: " + sortKey);
+        }
+        if (after == null || after.isBlank()) {
+            return null;
+        }
+        SeekCursor cursor = SeekCursor.decode(after);
+        if (!cursor.sortKey().equals(sortKey) || cursor.direction() != direction) {
+            throw new IllegalArgumentException("Cursor was issued for a different sort order");
+        }
+        return cursor;
+    }
+
+    public static int size(Integer size) {
+        if (size == null) {
+            return DEFAULT_SIZE;
+        }
+        return Math.max(1, Math.min(size, MAX_SIZE));
+    }
+
+    public static Sort sort(String sortKey, Sort.Direction direction) {
+        Sort sort = Sort.by(direction, sortKey);
+        return "id".equals(sortKey) ? sort : sort.and(Sort.by(direction, "id"));
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public static <T> Specification<T> after(SeekCursor cursor) {
+        return (root, query, cb) -> {
+            if (cursor == null) return null;
+            boolean asc = cursor.direction().isAscending();
+            Path<Long> id = root.get("id");
+            Path<Comparable> key = root.get(cursor.sortKey());
+            Comparable value = convert(cursor.value(), key.getJavaType());
+            if ("id".equals(cursor.sortKey())) {
+                return asc ? cb.greaterThan(id, cursor.id()) : cb.lessThan(id, cursor.id());
+            }
+            return cb.or(
+                asc ? cb.greaterThan(key, value) : cb.lessThan(key, value),
+                cb.and(cb.equal(key, value), asc ? cb.greaterThan(id, cursor.id()) : cb.lessThan(id, cursor.id()))
+            );
+        };
+    }
+
+    // rows запрошены с запасом в одну запись: по ней понимаем, есть ли следующая страница
+    public static <T> CursorPage<T> page(List<T> rows, int size, String sortKey, Sort.Direction direction) {
+        if (rows.size() <= size) {
+            return new CursorPage<>(rows, size, false, null);
+        }
+        List<T> content = rows.subList(0, size);
+        BeanWrapperImpl last = new BeanWrapperImpl(content.get(size - 1));
+        SeekCursor next = new SeekCursor(sortKey, direction,
+            String.valueOf(last.getPropertyValue(sortKey)), (Long) last.getPropertyValue("id"));
+        return new CursorPage<>(List.copyOf(content), size, true, next.encode());
+    }
+
+    @SuppressWarnings("rawtypes")
+    private static Comparable convert(String value, Class<?> type) {
+        if (type == Double.class || type == double.class) return Double.valueOf(value);
+        if (type == Long.class || type == long.class) return Long.valueOf(value);
+        if (type == Integer.class || type == int.class) return Integer.valueOf(value);
+        return value;
+    }
+}
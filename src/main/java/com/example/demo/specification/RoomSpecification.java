@@ -0,0 +1,29 @@
+package com.example.demo.specification;
+
+import java.util.Collection;
+
+import org.springframework.data.jpa.domain.Specification;
+
+import com.example.demo.model.Room;
+
+public class RoomSpecification {
+    
+    // Комнаты заданного менеджера (null - все комнаты)
+    public static Specification<Room> managedBy(Long managerId) {
+        return (root, query, cb) -> managerId != null
+                ? cb.equal(root.get("manager").get("id"), managerId)
+                : null;
+    }
+
+    // Комнаты с заданными id (кандидаты триграммного индекса TitleSearchService)
+    public static Specification<Room> idIn(Collection<Long> ids) {
+        return (root, query, cb) -> ids.isEmpty() ? cb.disjunction() : root.get("id").in(ids);
+    }
+
+    // Подстрока в bus без учета регистра (null - без ограничения)
+    public static Specification<Room> busLike(String bus) {
+        return (root, query, cb) -> bus != null
+                ? cb.like(cb.lower(root.get("bus")), "%" + bus.toLowerCase() + "%")
+                : null;
+    }
+}
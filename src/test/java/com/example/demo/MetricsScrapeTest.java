@@ -0,0 +1,120 @@
+package com.example.demo;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import com.example.demo.model.Device;
+import com.example.demo.model.DeviceType;
+import com.example.demo.model.ModeType;
+import com.example.demo.model.Room;
+import com.example.demo.model.User;
+import com.example.demo.repository.DeviceRepository;
+import com.example.demo.repository.RoleRepository;
+import com.example.demo.repository.RoomRepository;
+import com.example.demo.repository.UserRepository;
+import com.jayway.jsonpath.JsonPath;
+
+// Каждая подсистема после одного запроса видна в /actuator/prometheus; сам эндпоинт только для админа.
+// Без @AutoConfigureObservability тесты Spring Boot подменяют реестр Prometheus простым,
+// статистику Hibernate включает профиль metrics
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:metrics-scrape")
+@AutoConfigureMockMvc
+@AutoConfigureObservability
+@ActiveProfiles("metrics")
+class MetricsScrapeTest {
+    private static final String PASSWORD = "metrics";
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private RoleRepository roleRepository;
+    @Autowired
+    private RoomRepository roomRepository;
+    @Autowired
+    private DeviceRepository deviceRepository;
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Test
+    void scrapeExposesRouteHistogramsAndDomainMeters() throws Exception {
+        User manager = userRepository.save(User.builder().username("metrics-admin")
+            .password(passwordEncoder.encode(PASSWORD)).role(roleRepository.findByName("ADMIN")).build());
+        Room room = new Room();
+        room.setBus("metrics-room");
+        room.setManager(manager);
+        room = roomRepository.save(room);
+        Device device = new Device();
+        device.setTitle("metrics lamp");
+        device.setType(DeviceType.LIGHT);
+        device.setPower(0.1);
+        device.setRoom(room);
+        device = deviceRepository.save(device);
+
+        String token = mockMvc.perform(post("/api/auth/login").contentType(MediaType.APPLICATION_JSON)
+                .content("{\"username\":\"metrics-admin\",\"password\":\"" + PASSWORD + "\"}"))
+            .andExpect(status().isOk())
+            .andReturn().getResponse().getCookie("access_token").getValue();
+
+        perform(token, get("/api/devices"));
+        perform(token, post("/api/control/devices/" + device.getId() + "/toggle")
+            .contentType(MediaType.APPLICATION_JSON).content("{\"active\":true}"));
+        perform(token, post("/api/modes/" + ModeType.ECO + "/activate"));
+        perform(token, post("/api/modes/all-off"));
+        perform(token, multipart("/api/devices/import/csv").file(new MockMultipartFile("file", "metrics.csv",
+            "text/csv", "title,type,power,active,roomBus\nmetrics fan,FAN,0.2,true,metrics-room\nbroken,NOPE,1,true,\n"
+                .getBytes(StandardCharsets.UTF_8))));
+        String upload = perform(token, multipart("/api/files").file(new MockMultipartFile("file", "metrics.txt",
+            MediaType.TEXT_PLAIN_VALUE, "metrics".getBytes(StandardCharsets.UTF_8))));
+        Number fileId = JsonPath.read(upload, "$.id");
+        perform(token, get("/api/files/" + fileId));
+        perform(token, delete("/api/files/" + fileId));
+
+        mockMvc.perform(get("/actuator/prometheus")).andExpect(status().isUnauthorized());
+        String scrape = perform(token, get("/actuator/prometheus"));
+
+        assertThat(scrape)
+            .contains("http_server_requests_seconds_bucket{application=\"demo\"")
+            .contains("uri=\"/api/control/devices/{deviceId}/toggle\"")
+            .contains("hikaricp_connections_active{")
+            .contains("hikaricp_connections_pending{")
+            .contains("hibernate_query_executions_total{")
+            .contains("hibernate_entities_loads_total{")
+            .contains("hibernate_l2_cache_requests_total{")
+            .contains("jwt_validation_seconds_bucket{")
+            .contains("password_hashing_seconds_count{application=\"demo\",cost=\"10\",operation=\"matches\"}")
+            .contains("csv_import_rows_total{application=\"demo\",entity=\"device\",outcome=\"imported\"} 1.0")
+            .contains("csv_import_rows_total{application=\"demo\",entity=\"device\",outcome=\"failed\"} 1.0")
+            .contains("mode_activation_seconds_count{application=\"demo\",mode=\"ALL_OFF\"} 1")
+            .contains("mode_devices_changed_count{application=\"demo\",mode=\"ALL_OFF\"} 1")
+            .contains("device_toggles_total{application=\"demo\",state=\"on\",type=\"LIGHT\"} 1.0")
+            .contains("file_transfer_bytes_sum{application=\"demo\",direction=\"upload\"} 7.0")
+            .contains("file_transfer_bytes_sum{application=\"demo\",direction=\"download\"} 7.0");
+    }
+
+    private String perform(String token, MockHttpServletRequestBuilder request) throws Exception {
+        return mockMvc.perform(request.header(HttpHeaders.AUTHORIZATION, "Bearer " + token))
+            .andExpect(status().is2xxSuccessful())
+            .andReturn().getResponse().getContentAsString();
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.demo.capture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.atLeast;
+import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.verify;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.RequestPostProcessor;
+
+import com.example.demo.model.Role;
+import com.example.demo.model.User;
+import com.example.demo.repository.RoleRepository;
+import com.example.demo.repository.UserRepository;
+import com.jayway.jsonpath.JsonPath;
+
+// Во время захвата пароли из тел /api/auth/** и /api/users/** не попадают в записи, остальные тела попадают.
+// Записи перехватываются на offer - до буфера, файлы в captures/ не создаются
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:request-capture")
+@AutoConfigureMockMvc
+class RequestCaptureFilterTest {
+    private static final String PASSWORD = "capture-secret";
+    // Фильтр отбирает запросы по servletPath, а MockMvc по умолчанию оставляет его пустым
+    private static final RequestPostProcessor SERVLET_PATH = request -> {
+        request.setServletPath(request.getRequestURI());
+        return request;
+    };
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private RoleRepository roleRepository;
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+    @MockitoSpyBean
+    private RequestCaptureService captureService;
+
+    @AfterEach
+    void stopCapture() {
+        captureService.stop();
+    }
+
+    @Test
+    void userPasswordsAreNotCaptured() throws Exception {
+        Role admin = roleRepository.findByName("ADMIN");
+        userRepository.save(User.builder().username("capture-admin").password(passwordEncoder.encode(PASSWORD))
+            .role(admin).build());
+        String token = mockMvc.perform(post("/api/auth/login").contentType(MediaType.APPLICATION_JSON)
+                .content("{\"username\":\"capture-admin\",\"password\":\"" + PASSWORD + "\"}"))
+            .andExpect(status().isOk())
+            .andReturn().getResponse().getCookie("access_token").getValue();
+
+        doNothing().when(captureService).offer(any(), any());
+        captureService.start(60, 1);
+        String created = mockMvc.perform(post("/api/users").contentType(MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + token).with(SERVLET_PATH)
+                .content("{\"username\":\"captured\",\"password\":\"" + PASSWORD + "\",\"roleId\":" + admin.getId() + "}"))
+            .andExpect(status().is2xxSuccessful())
+            .andReturn().getResponse().getContentAsString();
+        Number id = JsonPath.read(created, "$.id");
+        mockMvc.perform(put("/api/users/" + id).contentType(MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + token).with(SERVLET_PATH)
+                .content("{\"username\":\"captured\",\"password\":\"" + PASSWORD + "-2\",\"roleId\":" + admin.getId() + "}"))
+            .andExpect(status().is2xxSuccessful());
+        mockMvc.perform(post("/api/rooms").contentType(MediaType.APPLICATION_JSON)
+            .header(HttpHeaders.AUTHORIZATION, "Bearer " + token).with(SERVLET_PATH)
+            .content("{\"bus\":\"capture-room\"}"));
+
+        ArgumentCaptor<CapturedRequest> captured = ArgumentCaptor.forClass(CapturedRequest.class);
+        verify(captureService, atLeast(3)).offer(any(), captured.capture());
+        List<CapturedRequest> requests = captured.getAllValues();
+
+        assertThat(requests).filteredOn(request -> request.path().startsWith("/api/users"))
+            .hasSize(2)
+            .allSatisfy(request -> assertThat(request.body()).isNull());
+        assertThat(requests).extracting(CapturedRequest::body)
+            .noneMatch(body -> body != null && body.contains(PASSWORD));
+        assertThat(requests).filteredOn(request -> request.path().equals("/api/rooms"))
+            .singleElement()
+            .satisfies(request -> assertThat(request.body()).contains("capture-room"));
+    }
+}
@@ -0,0 +1,257 @@
+package com.example.demo.controller;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import com.example.demo.model.Device;
+import com.example.demo.model.DeviceType;
+import com.example.demo.model.ModeType;
+import com.example.demo.model.Role;
+import com.example.demo.model.Room;
+import com.example.demo.model.User;
+import com.example.demo.repository.DeviceRepository;
+import com.example.demo.repository.RoleRepository;
+import com.example.demo.repository.RoomRepository;
+import com.example.demo.repository.UserRepository;
+import com.example.demo.service.PowerLedgerService;
+import com.example.demo.service.TitleSearchService;
+import com.example.demo.support.StatementCounter;
+import com.example.demo.support.StatementCounterConfig;
+import com.jayway.jsonpath.JsonPath;
+
+import jakarta.servlet.http.Cookie;
+
+// Бюджет SQL-выражений на запрос к каждому контроллеру при 1000 комнат и 2000 устройств.
+// Бюджеты не зависят от объема данных: новая ленивая связь или запрос в цикле превысит их и уронит сборку
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:controller-statements")
+@AutoConfigureMockMvc
+@Import(StatementCounterConfig.class)
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class ControllerStatementCountTest {
+    private static final int ROOMS = 1_000;
+    private static final int MANAGERS = 50;
+    private static final int DEVICES_PER_ROOM = 2;
+    private static final String PASSWORD = "statements";
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private StatementCounter statementCounter;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private RoleRepository roleRepository;
+    @Autowired
+    private RoomRepository roomRepository;
+    @Autowired
+    private DeviceRepository deviceRepository;
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+    @Autowired
+    private PowerLedgerService powerLedgerService;
+    @Autowired
+    private TitleSearchService titleSearchService;
+
+    private String adminToken;
+    private Long roomId;
+    private Long deviceId;
+    private Long managerId;
+    private Long userRoleId;
+
+    // База теста отдельная; данные создаются один раз, тесты их только читают или добавляют свои строки
+    @BeforeAll
+    void seed() throws Exception {
+        Role admin = roleRepository.findByName("ADMIN");
+        String hash = passwordEncoder.encode(PASSWORD);
+        List<User> managers = new ArrayList<>();
+        for (int i = 0; i < MANAGERS; i++) {
+            managers.add(User.builder().username("stmt-manager-" + i).password(hash).role(admin).build());
+        }
+        managers.add(User.builder().username("stmt-auth").password(hash).role(admin).build());
+        managers = userRepository.saveAll(managers);
+
+        List<Room> rooms = new ArrayList<>();
+        for (int i = 0; i < ROOMS; i++) {
+            Room room = new Room();
+            room.setBus("stmt-" + i);
+            room.setManager(managers.get(i % MANAGERS));
+            rooms.add(room);
+        }
+        rooms = roomRepository.saveAll(rooms);
+
+        DeviceType[] types = DeviceType.values();
+        List<Device> devices = new ArrayList<>();
+        for (Room room : rooms) {
+            for (int j = 0; j < DEVICES_PER_ROOM; j++) {
+                Device device = new Device();
+                device.setTitle(room.getBus() + " device " + j);
+                device.setType(types[(devices.size()) % types.length]);
+                device.setPower(0.1 * (j + 1));
+                device.setRoom(room);
+                devices.add(device);
+            }
+        }
+        devices = deviceRepository.saveAll(devices);
+        powerLedgerService.load();
+        titleSearchService.rebuild();
+        roomId = rooms.get(0).getId();
+        deviceId = devices.get(0).getId();
+        managerId = managers.get(1).getId();
+        userRoleId = roleRepository.findByName("USER").getId();
+
+        adminToken = login("stmt-manager-0").getResponse().getCookie("access_token").getValue();
+        // Первый запрос заполняет кэш пользователя в JwtAuthFilter - дальше аутентификация без БД
+        mockMvc.perform(authorized(get("/api/users/principal-cache/stats"))).andExpect(status().isOk());
+    }
+
+    @Test
+    void roomController() throws Exception {
+        expect(3, get("/api/rooms"));
+        expect(3, get("/api/rooms/seek").param("size", "200"));
+        expect(3, get("/api/rooms/" + roomId));
+        Long created = id(expect(2, post("/api/rooms").contentType(MediaType.APPLICATION_JSON)
+            .content("{\"bus\":\"stmt-created\",\"managerId\":" + managerId + "}")));
+        expect(3, put("/api/rooms/" + created).contentType(MediaType.APPLICATION_JSON)
+            .content("{\"bus\":\"stmt-updated\",\"managerId\":" + managerId + "}"));
+        expect(4, delete("/api/rooms/" + created));
+        expect(3, multipart("/api/rooms/import/csv").file(csv("bus,managerUsername\nstmt-import-0,\nstmt-import-1,\n")));
+    }
+
+    @Test
+    void deviceController() throws Exception {
+        expect(3, get("/api/devices").param("page", "3").param("size", "50"));
+        expect(3, get("/api/devices").param("type", "LIGHT").param("minPower", "0.05"));
+        expect(2, get("/api/devices/seek").param("size", "200"));
+        expect(1, get("/api/devices/" + deviceId));
+        Long created = id(expect(2, post("/api/devices").contentType(MediaType.APPLICATION_JSON)
+            .content("{\"title\":\"stmt created\",\"type\":\"FAN\",\"power\":0.2,\"roomId\":" + roomId + "}")));
+        expect(3, put("/api/devices/" + created).contentType(MediaType.APPLICATION_JSON)
+            .content("{\"title\":\"stmt updated\",\"type\":\"FAN\",\"power\":0.3,\"roomId\":" + roomId + "}"));
+        expect(2, delete("/api/devices/" + created));
+        expect(6, multipart("/api/devices/import/csv").file(csv(
+            "title,type,power,active,roomBus\nstmt imported 0,LIGHT,0.1,true,stmt-1\nstmt imported 1,FAN,0.2,false,stmt-2\n")));
+    }
+
+    @Test
+    void deviceControlController() throws Exception {
+        expect(2, post("/api/control/devices/" + deviceId + "/toggle").contentType(MediaType.APPLICATION_JSON)
+            .content("{\"active\":true}"));
+        expect(2, post("/api/control/temperature").contentType(MediaType.APPLICATION_JSON)
+            .content("{\"roomId\":" + roomId + ",\"temperature\":18}"));
+        expect(0, get("/api/control/power"));
+        expect(0, get("/api/control/power/breakdown"));
+        expect(2, post("/api/control/type/FAN").contentType(MediaType.APPLICATION_JSON).content("{\"active\":false}"));
+    }
+
+    @Test
+    void modeController() throws Exception {
+        expect(5, post("/api/modes/" + ModeType.ECO + "/activate"));
+        expect(5, post("/api/modes/night"));
+        // Блокировка, затем UPDATE и снимки порциями по 1000 id: при 2000 устройств - по три порции
+        expect(7, post("/api/modes/all-off"));
+        expect(7, post("/api/modes/all-on"));
+    }
+
+    @Test
+    void modeRuleController() throws Exception {
+        expect(1, get("/api/mode-rules"));
+        expect(1, get("/api/mode-rules/mode/" + ModeType.HEAT));
+        Long created = id(expect(1, post("/api/mode-rules").contentType(MediaType.APPLICATION_JSON)
+            .content("{\"modeType\":\"AUTO\",\"deviceType\":\"FAN\",\"titlePattern\":\"stmt.*\",\"priority\":5}")));
+        expect(2, put("/api/mode-rules/" + created).contentType(MediaType.APPLICATION_JSON)
+            .content("{\"modeType\":\"AUTO\",\"deviceType\":\"FAN\",\"titlePattern\":\"stmt-1.*\",\"priority\":6}"));
+        expect(3, delete("/api/mode-rules/" + created));
+    }
+
+    @Test
+    void userController() throws Exception {
+        expect(1, get("/api/users"));
+        Long created = id(expect(4, post("/api/users").contentType(MediaType.APPLICATION_JSON)
+            .content("{\"username\":\"stmt-created\",\"password\":\"" + PASSWORD + "\",\"roleId\":" + userRoleId + "}")));
+        expect(2, get("/api/users/" + created));
+        expect(1, get("/api/users/username/stmt-created"));
+        expect(3, put("/api/users/" + created).contentType(MediaType.APPLICATION_JSON)
+            .content("{\"username\":\"stmt-renamed\",\"password\":\"" + PASSWORD + "\",\"roleId\":" + userRoleId + "}"));
+        expect(3, delete("/api/users/" + created));
+        expect(0, get("/api/users/principal-cache/stats"));
+        expect(0, get("/api/users/password-hashing/stats"));
+    }
+
+    @Test
+    void fileUploadController() throws Exception {
+        Long created = id(expect(3, multipart("/api/files").file(new MockMultipartFile("file", "stmt.txt",
+            MediaType.TEXT_PLAIN_VALUE, "statements".getBytes(StandardCharsets.UTF_8)))));
+        expect(0, get("/api/files"));
+        expect(1, get("/api/files/" + created + "/info"));
+        expect(1, get("/api/files/" + created));
+        expect(1, get("/api/files/" + created + "/size"));
+        expect(0, get("/api/files/allowed-types"));
+        expect(3, delete("/api/files/" + created));
+    }
+
+    @Test
+    void authenticationController() throws Exception {
+        MvcResult login = statementCounter.count(() -> login("stmt-auth")).assertAtMost(5);
+        Cookie refresh = login.getResponse().getCookie("refresh_token");
+        Cookie access = login.getResponse().getCookie("access_token");
+        statementCounter.count(() -> mockMvc.perform(post("/api/auth/refresh").cookie(refresh))
+            .andExpect(status().isOk()).andReturn()).assertAtMost(2);
+        statementCounter.count(() -> mockMvc.perform(post("/api/auth/logout").cookie(access))
+            .andExpect(status().isOk()).andReturn()).assertAtMost(4);
+    }
+
+    @Test
+    void captureAndTelegramControllers() throws Exception {
+        expect(0, get("/api/capture/status"));
+        expect(0, get("/test/telegram-stats"));
+    }
+
+    // Запрос от имени администратора: код 2xx и не больше maxStatements SQL-выражений
+    private MvcResult expect(int maxStatements, MockHttpServletRequestBuilder request) throws Exception {
+        return statementCounter.count(() -> mockMvc.perform(authorized(request))
+            .andExpect(status().is2xxSuccessful())
+            .andReturn()).assertAtMost(maxStatements);
+    }
+
+    private MockHttpServletRequestBuilder authorized(MockHttpServletRequestBuilder request) {
+        return request.header(HttpHeaders.AUTHORIZATION, "Bearer " + adminToken);
+    }
+
+    private MvcResult login(String username) throws Exception {
+        return mockMvc.perform(post("/api/auth/login").contentType(MediaType.APPLICATION_JSON)
+                .content("{\"username\":\"" + username + "\",\"password\":\"" + PASSWORD + "\"}"))
+            .andExpect(status().isOk())
+            .andReturn();
+    }
+
+    private static MockMultipartFile csv(String content) {
+        return new MockMultipartFile("file", "statements.csv", "text/csv", content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Long id(MvcResult result) throws Exception {
+        return ((Number) JsonPath.read(result.getResponse().getContentAsString(), "$.id")).longValue();
+    }
+}
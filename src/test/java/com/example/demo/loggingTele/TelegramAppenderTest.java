@@ -0,0 +1,138 @@
+package com.example.demo.loggingTele;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BooleanSupplier;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import com.example.demo.dto.TelegramAlertStatsDto;
+import com.sun.net.httpserver.HttpServer;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.LoggingEvent;
+
+// TelegramAppender против локальной заглушки Telegram API: склейка одинаковых событий, circuit breaker, отправка при остановке
+class TelegramAppenderTest {
+    private final LoggerContext loggerContext = new LoggerContext();
+    private final List<String> bodies = new CopyOnWriteArrayList<>();
+    private HttpServer server;
+    private TelegramAppender appender;
+
+    @AfterEach
+    void tearDown() {
+        if (appender != null) {
+            appender.stop();
+        }
+        if (server != null) {
+            server.stop(0);
+        }
+    }
+
+    @Test
+    void identicalEventsWithinWindowAreSentAsOneMessage() throws Exception {
+        startServer(200);
+        startAppender();
+
+        for (int i = 0; i < 50; i++) {
+            appender.doAppend(event(Level.ERROR, "Device 42 is not responding"));
+        }
+        appender.doAppend(event(Level.WARN, "Room 7 has no devices"));
+        appender.doAppend(event(Level.INFO, "ignored"));
+
+        awaitTrue(() -> appender.stats().eventsSent() == 51);
+        TelegramAlertStatsDto stats = appender.stats();
+        assertThat(bodies).hasSize(1);
+        assertThat(bodies.get(0)).contains("50× repeated").contains("Room 7 has no devices");
+        assertThat(stats.received()).isEqualTo(51);
+        assertThat(stats.coalesced()).isEqualTo(49);
+        assertThat(stats.sent()).isEqualTo(1);
+        assertThat(stats.dropped()).isZero();
+        assertThat(stats.pending()).isZero();
+        assertThat(stats.circuit()).isEqualTo("CLOSED");
+    }
+
+    @Test
+    void circuitOpensAfterConsecutiveFailures() throws Exception {
+        startServer(500);
+        startAppender();
+
+        for (int i = 0; i < 3; i++) {
+            appender.doAppend(event(Level.ERROR, "failure " + i));
+            int expected = i + 1;
+            awaitTrue(() -> appender.stats().failed() == expected);
+        }
+        assertThat(appender.stats().circuit()).isEqualTo("OPEN");
+
+        // Пока цепь разомкнута, запросы к API не идут, события ждут в pending
+        appender.doAppend(event(Level.ERROR, "while open"));
+        Thread.sleep(500);
+        TelegramAlertStatsDto stats = appender.stats();
+        assertThat(bodies).hasSize(3);
+        assertThat(stats.failed()).isEqualTo(3);
+        assertThat(stats.dropped()).isEqualTo(3);
+        assertThat(stats.pending()).isEqualTo(1);
+    }
+
+    @Test
+    void pendingEventsAreFlushedOnStop() throws Exception {
+        startServer(200);
+        startAppender();
+        appender.setWindowMillis(60_000);
+
+        appender.doAppend(event(Level.ERROR, "Shutting down with an error"));
+        appender.doAppend(event(Level.ERROR, "Shutting down with an error"));
+        appender.stop();
+
+        TelegramAlertStatsDto stats = appender.stats();
+        assertThat(bodies).hasSize(1);
+        assertThat(bodies.get(0)).contains("Shutting down with an error").contains("2× repeated");
+        assertThat(stats.eventsSent()).isEqualTo(2);
+        assertThat(stats.dropped()).isZero();
+        assertThat(stats.pending()).isZero();
+    }
+
+    private void startServer(int status) throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", exchange -> {
+            try (InputStream body = exchange.getRequestBody()) {
+                bodies.add(new String(body.readAllBytes(), StandardCharsets.UTF_8));
+            }
+            exchange.sendResponseHeaders(status, -1);
+            exchange.close();
+        });
+        server.start();
+    }
+
+    private void startAppender() {
+        appender = new TelegramAppender();
+        appender.setContext(loggerContext);
+        appender.setBotToken("test-token");
+        appender.setChatId("1");
+        appender.setApiUrl("http://127.0.0.1:" + server.getAddress().getPort());
+        appender.setWindowMillis(100);
+        appender.setMaxMessagesPerSecond(10);
+        appender.start();
+    }
+
+    private LoggingEvent event(Level level, String message) {
+        return new LoggingEvent(TelegramAppenderTest.class.getName(),
+            loggerContext.getLogger("com.example.demo.service.DeviceService"), level, message, null, null);
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (!condition.getAsBoolean()) {
+            assertThat(System.currentTimeMillis()).as("condition not met within 5 s").isLessThan(deadline);
+            Thread.sleep(20);
+        }
+    }
+}
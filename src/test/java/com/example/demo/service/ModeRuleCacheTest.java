@@ -0,0 +1,62 @@
+package com.example.demo.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.example.demo.model.DeviceType;
+import com.example.demo.model.ModeRule;
+import com.example.demo.model.ModeType;
+import com.example.demo.repository.ModeRuleRepository;
+
+// Сброс кэша посреди загрузки: набор правил, прочитанный до сброса, попадает в карту уже после clear
+// (как при сбросе между проверкой и записью), но следующему вызову не выдается
+class ModeRuleCacheTest {
+    private final ModeRuleRepository repository = mock(ModeRuleRepository.class);
+    private final ModeRuleCache cache = new ModeRuleCache(repository);
+
+    @Test
+    void rulesLoadedBeforeInvalidationAreNotServed() {
+        List<ModeRule> before = List.of(rule(1));
+        List<ModeRule> after = List.of(rule(2), rule(1));
+        when(repository.findByModeTypeOrderByPriorityDesc(ModeType.ECO))
+            .thenAnswer(invocation -> {
+                cache.invalidateAll();
+                return before;
+            })
+            .thenReturn(after);
+
+        assertEquals(1, cache.get(ModeType.ECO).size());
+        assertEquals(2, cache.get(ModeType.ECO).size());
+        assertEquals(2, cache.get(ModeType.ECO).size());
+        verify(repository, times(2)).findByModeTypeOrderByPriorityDesc(ModeType.ECO);
+    }
+
+    @Test
+    void invalidationOfOneModeReloadsIt() {
+        when(repository.findByModeTypeOrderByPriorityDesc(ModeType.ECO))
+            .thenReturn(List.of(rule(1)))
+            .thenReturn(List.of(rule(2), rule(1)));
+
+        assertEquals(1, cache.get(ModeType.ECO).size());
+        assertEquals(1, cache.get(ModeType.ECO).size());
+        cache.invalidate(ModeType.ECO);
+        assertEquals(2, cache.get(ModeType.ECO).size());
+        verify(repository, times(2)).findByModeTypeOrderByPriorityDesc(ModeType.ECO);
+    }
+
+    private static ModeRule rule(int priority) {
+        ModeRule rule = new ModeRule();
+        rule.setModeType(ModeType.ECO);
+        rule.setDeviceType(DeviceType.LIGHT);
+        rule.setShouldBeActive(false);
+        rule.setPriority(priority);
+        return rule;
+    }
+}
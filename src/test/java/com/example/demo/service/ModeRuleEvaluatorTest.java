@@ -0,0 +1,53 @@
+package com.example.demo.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.List;
+import java.util.regex.Pattern;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+// Быстрые пути TitleMatcher.of (срезанные .*, литерал, литеральный префикс) должны давать
+// тот же ответ, что и Pattern.compile(p, CASE_INSENSITIVE).matcher(t).find()
+class ModeRuleEvaluatorTest {
+
+    private static final List<String> TITLES = List.of(
+        "", "lamp", "Lamp", "LAMP", "desk lamp", "Desk Lamp 2", "lamps", "lammp", "lap", "laamp",
+        "lamp.", "lamp...", "lamp\\", "fan", "ceiling fan", "lamp fan", "xlampx",
+        "Лампа", "лампа", "настольная лампа", "Lamp Лампа", "ÉCLAIRAGE", "éclairage",
+        // Знак кельвина (U+212A) и İ (U+0130): Character.toLowerCase дает ASCII-букву, а CASE_INSENSITIVE без UNICODE_CASE - нет
+        "\u212Aettle", "kettle", "\u0130ron", "iron");
+
+    static List<String> patterns() {
+        return List.of(
+            // ведущие и завершающие .*
+            ".*", ".*.*", ".*lamp", "lamp.*", ".*lamp.*", ".*.*lamp.*.*", ".*Lamp", "LAMP.*",
+            // ленивый .*? не срезается
+            ".*?lamp", "lamp.*?", ".*?", ".*?lamp.*?",
+            // экранированная точка перед *: \.* - это ноль или больше точек, а \\.* - обратная косая и .*
+            "lamp\\.*", "lamp\\.", "\\.*", "lamp\\\\.*", ".*\\.",
+            // альтернатива
+            "lamp|fan", "^lamp|fan", "fan|^lamp", ".*lamp|fan.*", "(lamp|fan)",
+            // якорь ^
+            "^lamp", "^Lamp", "^desk", "^", "^.*lamp", "^lamp.*",
+            // квантификаторы сразу после литерального префикса
+            "lamp{2}", "lam{2}p", "la{2}mp", "lamp?", "lamps?", "lam?p", "la?mp", "lamp+", "lamp*", "lam*p",
+            "^lamps?", "^la{0}mp", "desk {0,1}lamp",
+            // прочие метасимволы
+            "la.p", "l[a]mp", "lamp$", "\\d", "lamp \\d",
+            // не-ASCII
+            "лампа", "Лампа", "ЛАМПА", "^лампа", "éclairage", "ÉCLAIRAGE", "kettle", "KETTLE", "iron", "IRON");
+    }
+
+    @ParameterizedTest
+    @MethodSource("patterns")
+    void matchesLikeCaseInsensitiveFind(String pattern) {
+        ModeRuleEvaluator.TitleMatcher matcher = ModeRuleEvaluator.TitleMatcher.of(pattern);
+        Pattern expected = Pattern.compile(pattern, Pattern.CASE_INSENSITIVE);
+        for (String title : TITLES) {
+            assertEquals(expected.matcher(title).find(), matcher.matches(title),
+                () -> "pattern '" + pattern + "', title '" + title + "'");
+        }
+    }
+}
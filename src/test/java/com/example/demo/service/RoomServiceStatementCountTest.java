@@ -0,0 +1,149 @@
+package com.example.demo.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Sort;
+
+import com.example.demo.dto.CursorPage;
+import com.example.demo.dto.RoomDto;
+import com.example.demo.model.Device;
+import com.example.demo.model.DeviceType;
+import com.example.demo.model.Room;
+import com.example.demo.model.User;
+import com.example.demo.repository.DeviceRepository;
+import com.example.demo.repository.RoleRepository;
+import com.example.demo.repository.RoomRepository;
+import com.example.demo.repository.UserRepository;
+import com.example.demo.support.StatementCounter;
+import com.example.demo.support.StatementCounter.Counted;
+import com.example.demo.support.StatementCounterConfig;
+
+// Число SQL-выражений при выдаче списка комнат не должно зависеть от числа комнат, менеджеров и устройств
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:room-statements")
+@Import(StatementCounterConfig.class)
+class RoomServiceStatementCountTest {
+    private static final int DEVICES_PER_ROOM = 3;
+
+    @Autowired
+    private RoomService roomService;
+    @Autowired
+    private RoomRepository roomRepository;
+    @Autowired
+    private DeviceRepository deviceRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private RoleRepository roleRepository;
+    @Autowired
+    private StatementCounter statementCounter;
+
+    private final List<Room> createdRooms = new ArrayList<>();
+    private final List<User> createdUsers = new ArrayList<>();
+
+    // База теста отдельная, комнаты и устройства в ней создает только этот тест
+    @AfterEach
+    void cleanUp() {
+        deviceRepository.deleteAllInBatch();
+        roomRepository.deleteAllInBatch();
+        userRepository.deleteAllInBatch(createdUsers);
+    }
+
+    @Test
+    void allRoomsAreListedWithConstantStatementCount() throws Exception {
+        createRoomsWithOwnManagers(2);
+        Counted<List<RoomDto>> small = statementCounter.count(() -> roomService.getAllRooms());
+
+        createRoomsWithOwnManagers(20);
+        Counted<List<RoomDto>> large = statementCounter.count(() -> roomService.getAllRooms());
+
+        large.assertSameCountAs(small);
+        small.assertExactly(2);
+        assertThat(large.result()).hasSize(small.result().size() + 20);
+        assertThat(large.result())
+            .filteredOn(room -> room.location().startsWith("stmt-"))
+            .allSatisfy(room -> {
+                assertThat(room.manager().role()).isEqualTo("USER");
+                assertThat(room.devices()).hasSize(DEVICES_PER_ROOM);
+            });
+    }
+
+    @Test
+    void managerRoomsAreListedWithConstantStatementCount() throws Exception {
+        User manager = createManager();
+        createRooms(manager, 2);
+        Counted<List<RoomDto>> small = statementCounter.count(() -> roomService.getRoomsByManager(manager.getId()));
+
+        createRooms(manager, 20);
+        Counted<List<RoomDto>> large = statementCounter.count(() -> roomService.getRoomsByManager(manager.getId()));
+
+        large.assertSameCountAs(small);
+        small.assertExactly(2);
+        assertThat(small.result()).hasSize(2);
+        assertThat(large.result()).hasSize(22)
+            .allSatisfy(room -> {
+                assertThat(room.manager().username()).isEqualTo(manager.getUsername());
+                assertThat(room.devices()).hasSize(DEVICES_PER_ROOM);
+            });
+    }
+
+    @Test
+    void seekPageIsLoadedWithConstantStatementCount() throws Exception {
+        createRoomsWithOwnManagers(2);
+        Counted<CursorPage<RoomDto>> small =
+            statementCounter.count(() -> roomService.seekRooms(null, null, "id", Sort.Direction.ASC, null, 200));
+
+        createRoomsWithOwnManagers(20);
+        Counted<CursorPage<RoomDto>> large =
+            statementCounter.count(() -> roomService.seekRooms(null, null, "id", Sort.Direction.ASC, null, 200));
+
+        large.assertSameCountAs(small);
+        small.assertExactly(2);
+        assertThat(large.result().content())
+            .filteredOn(room -> room.location().startsWith("stmt-"))
+            .hasSize(22)
+            .allSatisfy(room -> assertThat(room.devices()).hasSize(DEVICES_PER_ROOM));
+    }
+
+    private void createRoomsWithOwnManagers(int count) {
+        for (int i = 0; i < count; i++) {
+            createRooms(createManager(), 1);
+        }
+    }
+
+    private void createRooms(User manager, int count) {
+        for (int i = 0; i < count; i++) {
+            Room room = new Room();
+            room.setBus("stmt-" + createdRooms.size());
+            room.setManager(manager);
+            room = roomRepository.save(room);
+            createdRooms.add(room);
+            for (int j = 0; j < DEVICES_PER_ROOM; j++) {
+                Device device = new Device();
+                device.setTitle(room.getBus() + "-device-" + j);
+                device.setType(DeviceType.LIGHT);
+                device.setPower(0.1);
+                device.setRoom(room);
+                deviceRepository.save(device);
+            }
+        }
+    }
+
+    private User createManager() {
+        User manager = User.builder()
+            .username("stmt-manager-" + createdUsers.size())
+            .password("password")
+            .role(roleRepository.findByName("USER"))
+            .build();
+        manager = userRepository.save(manager);
+        createdUsers.add(manager);
+        return manager;
+    }
+}
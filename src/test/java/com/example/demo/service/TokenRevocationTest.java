@@ -0,0 +1,144 @@
+package com.example.demo.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultActions;
+
+import com.example.demo.jwt.JwtTokenProvider;
+import com.example.demo.jwt.RevokedTokens;
+import com.example.demo.model.User;
+import com.example.demo.repository.RoleRepository;
+import com.example.demo.repository.TokenRepository;
+import com.example.demo.repository.UserRepository;
+
+import jakarta.servlet.http.Cookie;
+
+// Отзыв токенов: выход, повторный вход (остается только сохраненный клиентом токен) и восстановление
+// списка отзыва из БД после перезапуска. Каждый тест работает со своим пользователем
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:token-revocation")
+@AutoConfigureMockMvc
+class TokenRevocationTest {
+    private static final String PASSWORD = "revocation";
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private JwtTokenProvider jwtTokenProvider;
+    @Autowired
+    private TokenRepository tokenRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private RoleRepository roleRepository;
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Test
+    void tokenFailsVerifyAfterLogout() throws Exception {
+        createUser("revoke-logout");
+        MvcResult login = login("revoke-logout");
+        String access = cookie(login, "access_token");
+        String refresh = cookie(login, "refresh_token");
+        assertNotNull(jwtTokenProvider.verify(access));
+        devices(access).andExpect(status().isOk());
+
+        mockMvc.perform(post("/api/auth/logout").cookie(new Cookie("access_token", access)))
+            .andExpect(status().isOk());
+
+        assertNull(jwtTokenProvider.verify(access));
+        assertNull(jwtTokenProvider.verify(refresh));
+        devices(access).andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    void reloginKeepsOnlyTheRetainedToken() throws Exception {
+        createUser("revoke-relogin");
+        MvcResult first = login("revoke-relogin");
+        String firstAccess = cookie(first, "access_token");
+        String firstRefresh = cookie(first, "refresh_token");
+
+        // Вход с другого устройства без cookie - все прежние токены отозваны
+        MvcResult second = login("revoke-relogin");
+        String secondAccess = cookie(second, "access_token");
+        String secondRefresh = cookie(second, "refresh_token");
+        assertNull(jwtTokenProvider.verify(firstAccess));
+        assertNull(jwtTokenProvider.verify(firstRefresh));
+        assertNotNull(jwtTokenProvider.verify(secondAccess));
+
+        // Вход с действующим access в cookie: access остается, refresh заменяется новым
+        MvcResult third = mockMvc.perform(post("/api/auth/login").contentType(MediaType.APPLICATION_JSON)
+                .cookie(new Cookie("access_token", secondAccess), new Cookie("refresh_token", secondRefresh))
+                .content(credentials("revoke-relogin")))
+            .andExpect(status().isOk())
+            .andReturn();
+        assertNull(third.getResponse().getCookie("access_token"));
+        String thirdRefresh = cookie(third, "refresh_token");
+
+        assertNotNull(jwtTokenProvider.verify(secondAccess));
+        assertNull(jwtTokenProvider.verify(secondRefresh));
+        assertNotNull(jwtTokenProvider.verify(thirdRefresh));
+        devices(secondAccess).andExpect(status().isOk());
+    }
+
+    @Test
+    void loadRevokedRestoresTheRevokedSet() throws Exception {
+        createUser("revoke-restart");
+        MvcResult first = login("revoke-restart");
+        String revokedAccess = cookie(first, "access_token");
+        String revokedRefresh = cookie(first, "refresh_token");
+        String liveAccess = cookie(login("revoke-restart"), "access_token");
+
+        // Как после перезапуска: пустой список отзыва заполняется из БД
+        RevokedTokens restored = new RevokedTokens();
+        new TokenService(tokenRepository, restored).loadRevoked();
+        assertTrue(restored.isRevoked(JwtTokenProvider.digest(revokedAccess)));
+        assertTrue(restored.isRevoked(JwtTokenProvider.digest(revokedRefresh)));
+        assertFalse(restored.isRevoked(JwtTokenProvider.digest(liveAccess)));
+
+        JwtTokenProvider restarted = new JwtTokenProvider(restored);
+        assertNull(restarted.verify(revokedAccess));
+        assertEquals("revoke-restart", restarted.verify(liveAccess).subject());
+    }
+
+    private void createUser(String username) {
+        userRepository.save(User.builder().username(username).password(passwordEncoder.encode(PASSWORD))
+            .role(roleRepository.findByName("ADMIN")).build());
+    }
+
+    private MvcResult login(String username) throws Exception {
+        return mockMvc.perform(post("/api/auth/login").contentType(MediaType.APPLICATION_JSON)
+                .content(credentials(username)))
+            .andExpect(status().isOk())
+            .andReturn();
+    }
+
+    private ResultActions devices(String access) throws Exception {
+        return mockMvc.perform(get("/api/devices").header(HttpHeaders.AUTHORIZATION, "Bearer " + access));
+    }
+
+    private static String credentials(String username) {
+        return "{\"username\":\"" + username + "\",\"password\":\"" + PASSWORD + "\"}";
+    }
+
+    private static String cookie(MvcResult result, String name) {
+        Cookie cookie = result.getResponse().getCookie(name);
+        assertNotNull(cookie, name + " cookie");
+        return cookie.getValue();
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.demo.support;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Счетчик SQL-выражений, которые готовит Hibernate, для проверок "не больше N запросов" в тестах.
+ * Подключается через @Import(StatementCounterConfig.class) и внедряется в тест как бин.
+ * Считаются только выражения потока, вызвавшего count: MockMvc и вызовы сервисов выполняются в потоке теста,
+ * а фоновые задачи (@Async, @Scheduled) в счет не попадают. Пакетная вставка считается одним выражением.
+ *
+ * Пример: counter.count(() -> mockMvc.perform(get("/api/rooms"))).assertAtMost(3);
+ */
+public class StatementCounter implements StatementInspector {
+    private final ThreadLocal<List<String>> recording = new ThreadLocal<>();
+
+    @Override
+    public String inspect(String sql) {
+        List<String> statements = recording.get();
+        if (statements != null) {
+            statements.add(sql);
+        }
+        return sql;
+    }
+
+    public <T> Counted<T> count(Callable<T> action) throws Exception {
+        List<String> statements = new ArrayList<>();
+        List<String> outer = recording.get();
+        recording.set(statements);
+        try {
+            T result = action.call();
+            return new Counted<>(List.copyOf(statements), result);
+        } finally {
+            recording.set(outer);
+            // Вложенный count: выражения внутреннего вызова входят и во внешний
+            if (outer != null) {
+                outer.addAll(statements);
+            }
+        }
+    }
+
+    /**
+     * Результат действия и выражения, выполненные за время его работы.
+     */
+    public record Counted<T>(List<String> statements, T result) {
+
+        public int count() {
+            return statements.size();
+        }
+
+        public T assertAtMost(int max) {
+            if (count() > max) {
+                throw new AssertionError(describe("Expected at most " + max + " statements"));
+            }
+            return result;
+        }
+
+        public T assertExactly(int expected) {
+            if (count() != expected) {
+                throw new AssertionError(describe("Expected exactly " + expected + " statements"));
+            }
+            return result;
+        }
+
+        // Проверка на N+1: то же действие на большем наборе данных не должно выполнять больше выражений
+        public T assertSameCountAs(Counted<?> smaller) {
+            if (count() != smaller.count()) {
+                throw new AssertionError(describe("Expected the same " + smaller.count()
+                    + " statements as on the smaller data set"));
+            }
+            return result;
+        }
+
+        private String describe(String expectation) {
+            StringBuilder message = new StringBuilder(expectation).append(", got ").append(count()).append(':');
+            for (String statement : statements) {
+                message.append("\n  ").append(statement.replaceAll("\\s+", " "));
+            }
+            return message.toString();
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.demo.support;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+
+/**
+ * Регистрирует StatementCounter как StatementInspector фабрики сессий теста.
+ * Тест с этой конфигурацией получает отдельный контекст Spring - задавайте ему и отдельную базу H2.
+ */
+@TestConfiguration(proxyBeanMethods = false)
+public class StatementCounterConfig {
+
+    @Bean
+    public StatementCounter statementCounter() {
+        return new StatementCounter();
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer statementCounterCustomizer(StatementCounter statementCounter) {
+        return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, statementCounter);
+    }
+}